@@ -5,15 +5,29 @@ package br.com.victor;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 //import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 //import org.springframework.security.crypto.password.PasswordEncoder;
 //import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 //import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm;
 
-@SpringBootApplication
+import br.com.victor.reactive.ReactiveStartup;
+
+// o R2DBC fica so na variante reativa: aqui nao ha spring.r2dbc.url e o JPA continua com o unico transaction manager
+@SpringBootApplication(exclude = { R2dbcAutoConfiguration.class, R2dbcDataAutoConfiguration.class,
+		R2dbcRepositoriesAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class })
 public class Startup {
 
     public static void main(String[] args) {
+        // --spring.profiles.active=reactive (ou SPRING_PROFILES_ACTIVE=reactive) sobe a API reativa no lugar da servlet
+        if (ReactiveStartup.isRequested(args)) {
+        	ReactiveStartup.main(args);
+        	return;
+        }
+        
         SpringApplication.run(Startup.class, args);
         
         /*
@@ -0,0 +1,48 @@
+package br.com.victor.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// tamanho, TTL e estatisticas dos caches ficam em spring.cache.caffeine.spec (application.yml);
+// hit/miss/eviction ficam expostos em /actuator/metrics/cache.gets e /actuator/metrics/cache.evictions
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+	public static final String PEOPLE = "people";
+	public static final String BOOKS = "books";
+	public static final String PERSON_COUNTS = "personCounts";
+	public static final String BOOK_COUNTS = "bookCounts";
+
+	@Value("${cache.counts.expire-after-write-seconds:30}")
+	private long countsExpireAfterWriteSeconds = 30;
+
+	@Value("${cache.counts.maximum-size:1000}")
+	private long countsMaximumSize = 1000;
+
+	// os totais de paginacao usam um TTL bem mais curto que o cache de entidades
+	@Bean
+	CacheManagerCustomizer<CaffeineCacheManager> countCachesCustomizer() {
+		return cacheManager -> {
+			cacheManager.registerCustomCache(PERSON_COUNTS, countCache());
+			cacheManager.registerCustomCache(BOOK_COUNTS, countCache());
+		};
+	}
+
+	private com.github.benmanes.caffeine.cache.Cache<Object, Object> countCache() {
+		return Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofSeconds(countsExpireAfterWriteSeconds))
+				.maximumSize(countsMaximumSize)
+				.recordStats()
+				.build();
+	}
+
+}
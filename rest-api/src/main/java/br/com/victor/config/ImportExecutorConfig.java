@@ -0,0 +1,55 @@
+package br.com.victor.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+// importacao de arquivos: cada job le o arquivo numa thread de importJobExecutor (com pool e fila cheios
+// o import e recusado com 429) e manda os blocos para importChunkExecutor, onde acontecem parse, validacao
+// e o batch JDBC. Um bloco recusado pelo pool de blocos e gravado pelo proprio job (ImportService),
+// o que segura a leitura do arquivo
+@Configuration
+public class ImportExecutorConfig {
+	
+	@Value("${import.max-running-jobs:2}")
+	private int maxRunningJobs = 2;
+	
+	@Value("${import.job-queue-capacity:16}")
+	private int jobQueueCapacity = 16;
+	
+	@Value("${import.pool-size:4}")
+	private int poolSize = 4;
+	
+	@Bean(destroyMethod = "shutdown")
+	ThreadPoolExecutor importJobExecutor(MeterRegistry registry) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				maxRunningJobs, maxRunningJobs,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(jobQueueCapacity),
+				new CustomizableThreadFactory("import-job-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		new ExecutorServiceMetrics(executor, "import.job", Tags.empty()).bindTo(registry);
+		return executor;
+	}
+	
+	@Bean(destroyMethod = "shutdown")
+	ThreadPoolExecutor importChunkExecutor(MeterRegistry registry) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				poolSize, poolSize,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(poolSize),
+				new CustomizableThreadFactory("import-chunk-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		new ExecutorServiceMetrics(executor, "import.chunk", Tags.empty()).bindTo(registry);
+		return executor;
+	}
+}
@@ -0,0 +1,68 @@
+package br.com.victor.config;
+
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import br.com.victor.storage.FileStore;
+import br.com.victor.storage.S3FileStore;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+// file.storage.type=s3: sem endpoint usa a AWS; com endpoint + path-style-access aponta para um MinIO local.
+// sem access-key as credenciais vem da cadeia padrao da AWS (variaveis de ambiente, perfil, role)
+@Configuration
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "s3")
+public class S3StorageConfig {
+
+	@Value("${file.storage.s3.bucket}")
+	private String bucket;
+
+	@Value("${file.storage.s3.prefix:}")
+	private String prefix;
+
+	@Value("${file.storage.s3.region:us-east-1}")
+	private String region;
+
+	@Value("${file.storage.s3.endpoint:}")
+	private String endpoint;
+
+	@Value("${file.storage.s3.path-style-access:false}")
+	private boolean pathStyleAccess;
+
+	@Value("${file.storage.s3.access-key:}")
+	private String accessKey;
+
+	@Value("${file.storage.s3.secret-key:}")
+	private String secretKey;
+
+	@Bean(destroyMethod = "close")
+	S3Client s3Client() {
+		S3ClientBuilder builder = S3Client.builder()
+				.region(Region.of(region))
+				.serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build());
+		
+		if (StringUtils.hasText(endpoint)) builder.endpointOverride(URI.create(endpoint));
+		
+		if (StringUtils.hasText(accessKey)) {
+			builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+		} else {
+			builder.credentialsProvider(DefaultCredentialsProvider.create());
+		}
+		return builder.build();
+	}
+
+	@Bean
+	FileStore s3FileStore(S3Client s3Client) {
+		return new S3FileStore(s3Client, bucket, prefix);
+	}
+}
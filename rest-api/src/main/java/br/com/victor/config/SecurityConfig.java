@@ -4,22 +4,27 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
-import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm;
 import org.springframework.security.web.SecurityFilterChain;
 
+import br.com.victor.security.Pbkdf2IterationsPasswordEncoder;
+import br.com.victor.security.TimedPasswordEncoder;
+import br.com.victor.security.jwt.JwtAuthenticationCache;
 import br.com.victor.security.jwt.JwtConfigurer;
 import br.com.victor.security.jwt.JwtTokenProvider;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @EnableWebSecurity
 @Configuration
@@ -28,15 +33,31 @@ public class SecurityConfig {
 	@Autowired
 	private JwtTokenProvider tokenProvider;
 
+	@Autowired
+	private JwtAuthenticationCache authenticationCache;
+
+	// id usado para novos hashes; hashes em outro formato (ou sem prefixo) sao regravados no proximo login
+	@Value("${security.password.encoding-id:pbkdf2}")
+	private String passwordEncodingId = "pbkdf2";
+
+	@Value("${security.password.bcrypt-strength:10}")
+	private int bcryptStrength = 10;
+
+	// o custo vai gravado no hash {pbkdf2}; hashes com outro custo sao regravados no proximo login
+	@Value("${security.password.pbkdf2-iterations:185000}")
+	private int pbkdf2Iterations = Pbkdf2IterationsPasswordEncoder.LEGACY_ITERATIONS;
+
 	@Bean
-	PasswordEncoder passwordEncoder() {
+	PasswordEncoder passwordEncoder(MeterRegistry registry) {
 		Map<String, PasswordEncoder> encoders = new HashMap<>();
 		
-		Pbkdf2PasswordEncoder pbkdf2Encoder = new Pbkdf2PasswordEncoder("", 8, 185000, SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
-		encoders.put("pbkdf2", pbkdf2Encoder);
-		DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder("pbkdf2", encoders);
-		passwordEncoder.setDefaultPasswordEncoderForMatches(pbkdf2Encoder);
-		return passwordEncoder;
+		encoders.put("pbkdf2", new Pbkdf2IterationsPasswordEncoder(pbkdf2Iterations));
+		encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+		DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(passwordEncodingId, encoders);
+		// hashes sem prefixo sao os originais da aplicacao
+		passwordEncoder.setDefaultPasswordEncoderForMatches(
+				Pbkdf2IterationsPasswordEncoder.withIterations(Pbkdf2IterationsPasswordEncoder.LEGACY_ITERATIONS));
+		return new TimedPasswordEncoder(passwordEncoder, registry);
 	}
 
 	@Bean
@@ -54,6 +75,7 @@ public class SecurityConfig {
     					session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
     			.authorizeHttpRequests(
     					authorizeHttpRequests -> authorizeHttpRequests
+    					.requestMatchers("/auth/revoke/**").hasAuthority("ADMIN")
     					.requestMatchers(
     							"/auth/signin",
     							"/auth/refresh/**",
@@ -61,11 +83,14 @@ public class SecurityConfig {
     							"/v3/api-docs/**"
     							).permitAll()
     					.requestMatchers("/api/**").authenticated()
+    					// DELETE /actuator/caches esvazia os caches da aplicacao: so ADMIN; o GET segue aberto a qualquer autenticado
+    					.requestMatchers(HttpMethod.DELETE, "/actuator/caches", "/actuator/caches/**").hasAuthority("ADMIN")
+    					.requestMatchers("/actuator/**").authenticated()
     					.requestMatchers("/users").denyAll()
     			)
     			.cors()
     			.and()
-    			.apply(new JwtConfigurer(tokenProvider))
+    			.apply(new JwtConfigurer(tokenProvider, authenticationCache))
     			.and()
     			.build();
     }
@@ -0,0 +1,38 @@
+package br.com.victor.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+// o hash da senha (PBKDF2/BCrypt) roda neste pool e nao nas threads do Tomcat; com o pool e a fila
+// cheios o signin e recusado na hora (429) em vez de segurar todos os workers
+@Configuration
+public class SigninExecutorConfig {
+
+	@Value("${security.signin.pool-size:4}")
+	private int poolSize = 4;
+
+	@Value("${security.signin.queue-capacity:32}")
+	private int queueCapacity = 32;
+
+	@Bean(destroyMethod = "shutdown")
+	ThreadPoolExecutor credentialVerificationExecutor(MeterRegistry registry) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				poolSize, poolSize,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				new CustomizableThreadFactory("credential-verification-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		new ExecutorServiceMetrics(executor, "credential.verification", Tags.empty()).bindTo(registry);
+		return executor;
+	}
+}
@@ -0,0 +1,38 @@
+package br.com.victor.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+// gravacao dos uploads em lote: o tamanho do pool e o limite global de arquivos gravando ao mesmo tempo;
+// o limite por request fica em file.upload.parallelism-per-request (FileStorageService)
+@Configuration
+public class UploadExecutorConfig {
+
+	@Value("${file.upload.pool-size:8}")
+	private int poolSize = 8;
+
+	@Value("${file.upload.queue-capacity:64}")
+	private int queueCapacity = 64;
+
+	@Bean(destroyMethod = "shutdown")
+	ThreadPoolExecutor fileUploadExecutor(MeterRegistry registry) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				poolSize, poolSize,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				new CustomizableThreadFactory("file-upload-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		new ExecutorServiceMetrics(executor, "file.upload", Tags.empty()).bindTo(registry);
+		return executor;
+	}
+}
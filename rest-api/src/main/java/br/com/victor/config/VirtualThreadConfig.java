@@ -0,0 +1,36 @@
+package br.com.victor.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// modo virtual threads (Java 21+): cada request roda numa virtual thread propria no lugar do pool de
+// server.tomcat.threads.max, entao request esperando JDBC, disco ou o pool do signin nao segura thread
+// do sistema. O limite passa a ser server.tomcat.max-connections e o pool do Hikari.
+// Mesmo nome da propriedade do Spring Boot 3.2+, que faz isso sozinho: ao subir de versao esta classe sai
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	@Bean(destroyMethod = "shutdown")
+	ExecutorService virtualThreadRequestExecutor() {
+		if (Runtime.version().feature() < 21) {
+			throw new IllegalStateException("spring.threads.virtual.enabled requires Java 21 or newer, running on " + Runtime.version());
+		}
+		// o build continua em release 17: a API de virtual threads so e chamada por reflexao
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create the virtual thread executor", e);
+		}
+	}
+
+	@Bean
+	TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadRequestExecutor) {
+		return protocolHandler -> protocolHandler.setExecutor(virtualThreadRequestExecutor);
+	}
+}
@@ -0,0 +1,86 @@
+package br.com.victor.config;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Diagnostico de pinning no modo virtual threads: assina o evento JFR {@code jdk.VirtualThreadPinned}
+ * (virtual thread bloqueada sem soltar a carrier, por exemplo dentro de um {@code synchronized}) acima de
+ * {@code virtual-threads.pinning-threshold-ms}.
+ *
+ * Todo evento conta em {@code jvm.threads.virtual.pinned} (/actuator/metrics); o log traz a pilha so na
+ * primeira vez de cada ponto, para o aviso nao virar ruido sob carga.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+	
+	private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+	
+	private static final int MAX_FRAMES = 12;
+	
+	private Logger logger = Logger.getLogger(VirtualThreadPinningMonitor.class.getName());
+	
+	private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+	
+	private final Counter pinned;
+	
+	private final long thresholdMillis;
+	
+	private RecordingStream stream;
+	
+	public VirtualThreadPinningMonitor(MeterRegistry registry,
+			@Value("${virtual-threads.pinning-threshold-ms:20}") long thresholdMillis) {
+		this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+				.description("Virtual threads that blocked while pinned to their carrier")
+				.register(registry);
+		this.thresholdMillis = thresholdMillis;
+	}
+	
+	@PostConstruct
+	void start() {
+		stream = new RecordingStream();
+		stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+		stream.onEvent(PINNED_EVENT, this::report);
+		stream.startAsync();
+	}
+	
+	@PreDestroy
+	void stop() {
+		if (stream != null) stream.close();
+	}
+	
+	private void report(RecordedEvent event) {
+		pinned.increment();
+		
+		RecordedStackTrace stackTrace = event.getStackTrace();
+		if (stackTrace == null) return;
+		String site = stackTrace.getFrames().stream()
+				.limit(MAX_FRAMES)
+				.map(VirtualThreadPinningMonitor::describe)
+				.collect(Collectors.joining("\n\tat "));
+		if (reportedSites.add(site)) {
+			logger.warning("Virtual thread pinned for " + event.getDuration().toMillis() + " ms\n\tat " + site);
+		}
+	}
+	
+	private static String describe(RecordedFrame frame) {
+		return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+	}
+}
@@ -57,6 +57,13 @@ public class AuthController {
 		return token;
 	}
 
+	@Operation(summary = "Revokes every token already issued to a user (ADMIN only)")
+	@PostMapping(value = "/revoke/{username}")
+	public ResponseEntity<?> revoke(@PathVariable("username") String username) {
+		authServices.revoke(username);
+		return ResponseEntity.noContent().build();
+	}
+
 	private boolean checkIfParamsIsNotNull(String username, String refreshToken) {
 		return refreshToken == null || refreshToken.isBlank() || username == null || username.isBlank();
 	}
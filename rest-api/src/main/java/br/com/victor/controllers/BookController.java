@@ -1,10 +1,14 @@
 package br.com.victor.controllers;
 
+import java.io.IOException;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.http.ResponseEntity;
@@ -18,16 +22,23 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.victor.data.vo.v1.BulkItemResultVO;
 import br.com.victor.data.vo.v1.BookVO;
 //import br.com.victor.data.vo.v2.BookVOV2;
+import br.com.victor.services.ExportService;
 import br.com.victor.services.BookServices;
 import br.com.victor.util.MediaType;
+import br.com.victor.util.NdjsonIterator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/book/v1")
@@ -36,13 +47,19 @@ public class BookController {
 	
 	@Autowired
 	private BookServices service;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	@Autowired
+	private ExportService exportService;
 	// private BookServices service = new BookService();
 	
 	@GetMapping(
 			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML })
 	@Operation(
 			summary =  "Finds all books",
-			description = "Finds all books", 
+			description = "Finds all books; use count=false to skip the total (no page metadata, next/prev links only)", 
 			tags = {"Book"},
 			responses = {
 				@ApiResponse(description = "Success", responseCode = "200", 
@@ -61,13 +78,67 @@ public class BookController {
 	public ResponseEntity<PagedModel<EntityModel<BookVO>>> findAll(
 			@RequestParam(value = "page", defaultValue = "0") Integer page,
 			@RequestParam(value = "limit", defaultValue = "12") Integer limit,
-			@RequestParam(value = "direction", defaultValue = "asc") String direction) {
+			@RequestParam(value = "direction", defaultValue = "asc") String direction,
+			@RequestParam(value = "count", defaultValue = "true") Boolean count) {
 		
 		var sortDirection = "desc".equalsIgnoreCase(direction) ? Direction.DESC : Direction.ASC;
 		
 		Pageable pageable = PageRequest.of(page, limit, Sort.by(sortDirection, "title"));
 		
-		return ResponseEntity.ok(service.findAll(pageable));
+		return ResponseEntity.ok(service.findAll(pageable, count));
+	}
+	
+	@GetMapping(value = "/export")
+	@Operation(
+			summary =  "Exports all books",
+			description = "Streams the whole table as NDJSON (format=ndjson, default) or CSV (format=csv), read from a forward-only cursor without paging", 
+			tags = {"Book"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(mediaType = MediaType.APPLICATION_NDJSON),
+						@Content(mediaType = MediaType.TEXT_CSV)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public void exportAll(
+			@RequestParam(value = "format", defaultValue = "ndjson") String format,
+			HttpServletResponse response) throws IOException {
+		
+		exportService.exportBooks(format, response);
+	}
+	
+	@GetMapping(
+			value = "/keyset",
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML })
+	@Operation(
+			summary =  "Finds all books using keyset (cursor) pagination",
+			description = "Finds all books seeking from an opaque cursor instead of a page offset; follow the next/prev links to move between pages", 
+			tags = {"Book"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BookVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public ResponseEntity<CollectionModel<BookVO>> findAllByKeyset(
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "limit", defaultValue = "12") Integer limit,
+			@RequestParam(value = "direction", defaultValue = "asc") String direction ) {
+		
+		var sortDirection = "desc".equalsIgnoreCase(direction) ? Direction.DESC : Direction.ASC;
+		
+		return ResponseEntity.ok(service.findAllByKeyset(cursor, limit, sortDirection));
 	}
 	
 	@GetMapping(value = "/{id}", 
@@ -157,4 +228,154 @@ public class BookController {
 		service.delete(id);
 		return ResponseEntity.noContent().build();
 	}
+	
+	@PostMapping(
+			value = "/bulk",
+			consumes = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML },
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Creates books in bulk",
+			description = "Creates books in bulk by parsing in a JSON, XML, or YML array; persisted in chunks, returns one result per item in input order", 
+			tags = {"Book"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> createAll(@RequestBody List<BookVO> books) {
+		return service.createAll(books.iterator());
+	}
+	
+	@PostMapping(
+			value = "/bulk",
+			consumes = MediaType.APPLICATION_NDJSON,
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Creates books in bulk from an NDJSON stream",
+			description = "Creates books in bulk from an NDJSON stream (one book per line); read and persisted in chunks, returns one result per line in input order", 
+			tags = {"Book"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> createAllFromStream(HttpServletRequest request) throws IOException {
+		return service.createAll(new NdjsonIterator<>(request.getInputStream(), objectMapper.readerFor(BookVO.class)));
+	}
+	
+	@PutMapping(
+			value = "/bulk",
+			consumes = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML },
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Updates books in bulk",
+			description = "Updates books in bulk by parsing in a JSON, XML, or YML array; persisted in chunks, returns one result per item in input order", 
+			tags = {"Book"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> updateAll(@RequestBody List<BookVO> books) {
+		return service.updateAll(books.iterator());
+	}
+	
+	@PutMapping(
+			value = "/bulk",
+			consumes = MediaType.APPLICATION_NDJSON,
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Updates books in bulk from an NDJSON stream",
+			description = "Updates books in bulk from an NDJSON stream (one book per line); read and persisted in chunks, returns one result per line in input order", 
+			tags = {"Book"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> updateAllFromStream(HttpServletRequest request) throws IOException {
+		return service.updateAll(new NdjsonIterator<>(request.getInputStream(), objectMapper.readerFor(BookVO.class)));
+	}
+	
+	@DeleteMapping(
+			value = "/bulk",
+			consumes = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML },
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Deletes books in bulk",
+			description = "Deletes books in bulk by parsing in a JSON, XML, or YML array of ids; persisted in chunks, returns one result per item in input order", 
+			tags = {"Book"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> deleteAll(@RequestBody List<Long> ids) {
+		return service.deleteAll(ids.iterator());
+	}
+	
+	@DeleteMapping(
+			value = "/bulk",
+			consumes = MediaType.APPLICATION_NDJSON,
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Deletes books in bulk from an NDJSON stream",
+			description = "Deletes books in bulk from an NDJSON stream (one id per line); read and persisted in chunks, returns one result per line in input order", 
+			tags = {"Book"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> deleteAllFromStream(HttpServletRequest request) throws IOException {
+		return service.deleteAll(new NdjsonIterator<>(request.getInputStream(), objectMapper.readerFor(Long.class)));
+	}
 }
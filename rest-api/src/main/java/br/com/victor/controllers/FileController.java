@@ -1,15 +1,11 @@
 package br.com.victor.controllers;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -20,9 +16,11 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import br.com.victor.data.vo.v1.UploadFileResponseVO;
+import br.com.victor.services.FileDownloadService;
 import br.com.victor.services.FileStorageService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Tag(name = "File Endpoint")
 @RestController
@@ -34,51 +32,52 @@ public class FileController {
 	@Autowired
 	private FileStorageService service;
 	
+	@Autowired
+	private FileDownloadService downloadService;
+	
 	@PostMapping("/uploadFile")
 	public UploadFileResponseVO uploadFile(@RequestParam("file") MultipartFile file) {
 		logger.info("Storing file to disk");
 		
 		var filename = service.storeFile(file);
 		
-		String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
-				.path("/api/file/v1/downloadFile/")
-				.path(filename)
-				.toUriString();
-		
-		return new UploadFileResponseVO(filename, fileDownloadUri, file.getContentType(), file.getSize());
+		return new UploadFileResponseVO(filename, downloadUri(filename), file.getContentType(), file.getSize());
 	}
 	
 	@PostMapping("/uploadMultipleFiles")
 	public List<UploadFileResponseVO>  uploadMultipleFiles(@RequestParam("files") MultipartFile[] files) {
 		logger.info("Storing files to disk");
 		
-		return Arrays.asList(files)
-				.stream()
-				.map(file -> uploadFile(file))
-				.collect(Collectors.toList());
+		// gravacao em paralelo (limitada); a ordem da resposta e a mesma dos arquivos enviados
+		List<UploadFileResponseVO> stored = service.storeFiles(Arrays.asList(files));
+		stored.stream()
+			.filter(file -> file.getError() == null)
+			.forEach(file -> file.setFileDownloadUri(downloadUri(file.getFileName())));
+		return stored;
+	}
+	
+	// multipart lido direto do request: cada arquivo e gravado uma vez, com checksum SHA-256
+	@PostMapping("/uploadFileStream")
+	public List<UploadFileResponseVO> uploadFileStream(HttpServletRequest request) {
+		logger.info("Streaming files to disk");
+		
+		List<UploadFileResponseVO> files = service.storeMultipartStream(request);
+		files.forEach(file -> file.setFileDownloadUri(downloadUri(file.getFileName())));
+		return files;
 	}
 	
+	// Range/If-Range, GET condicional e envio via sendfile: ver FileDownloadService
 	@GetMapping("/downloadFile/{filename:.+}")
-	public ResponseEntity<Resource> downloadFile(@PathVariable String filename, HttpServletRequest request) {
+	public void downloadFile(@PathVariable String filename, HttpServletRequest request, HttpServletResponse response) throws IOException {
 		logger.info("Reading a file to disk");
 		
-		Resource resource = service.loadFileAsResource(filename);
-		
-		String contentType = "";
-		
-		try {
-			contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-		} catch (Exception e) {
-			logger.info("Could not determine file type");
-		}
-		
-		if (contentType.isBlank()) {
-			contentType = "application/octet-stream";
-		}
-		
-		return ResponseEntity.ok()
-				.contentType(MediaType.parseMediaType(contentType))
-				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-				.body(resource);
+		downloadService.download(filename, request, response);
+	}
+	
+	private String downloadUri(String filename) {
+		return ServletUriComponentsBuilder.fromCurrentContextPath()
+				.path("/api/file/v1/downloadFile/")
+				.path(filename)
+				.toUriString();
 	}
 }
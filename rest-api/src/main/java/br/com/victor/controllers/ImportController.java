@@ -0,0 +1,109 @@
+package br.com.victor.controllers;
+
+import java.net.URI;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import br.com.victor.data.vo.v1.ImportJobVO;
+import br.com.victor.services.ImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Import", description = "Endpoints for importing stored CSV/NDJSON files")
+@RestController
+@RequestMapping("/api/import/v1")
+public class ImportController {
+	
+	private Logger logger = Logger.getLogger(ImportController.class.getName());
+	
+	@Autowired
+	private ImportService service;
+	
+	// importa um arquivo ja enviado pelo FileController; format (csv ou ndjson) e opcional quando a extensao ja diz.
+	// Responde 202 na hora, com o Location do status do job
+	@PostMapping("/people")
+	@Operation(
+			summary = "Imports people from a stored file",
+			description = "Starts an asynchronous import of a file already uploaded; format (csv or ndjson) is optional when the extension tells it",
+			tags = {"Import"},
+			responses = {
+				@ApiResponse(description = "Accepted", responseCode = "202",
+					content = @Content(schema = @Schema(implementation = ImportJobVO.class))),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+				@ApiResponse(description = "Too Many Requests", responseCode = "429", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public ResponseEntity<ImportJobVO> importPeople(
+			@RequestParam("fileName") String fileName,
+			@RequestParam(value = "format", required = false) String format) {
+		logger.info("Importing people from a stored file");
+		
+		return accepted(service.importPeople(fileName, format));
+	}
+	
+	@PostMapping("/books")
+	@Operation(
+			summary = "Imports books from a stored file",
+			description = "Starts an asynchronous import of a file already uploaded; format (csv or ndjson) is optional when the extension tells it",
+			tags = {"Import"},
+			responses = {
+				@ApiResponse(description = "Accepted", responseCode = "202",
+					content = @Content(schema = @Schema(implementation = ImportJobVO.class))),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+				@ApiResponse(description = "Too Many Requests", responseCode = "429", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public ResponseEntity<ImportJobVO> importBooks(
+			@RequestParam("fileName") String fileName,
+			@RequestParam(value = "format", required = false) String format) {
+		logger.info("Importing books from a stored file");
+		
+		return accepted(service.importBooks(fileName, format));
+	}
+	
+	// progresso, vazao e erros por linha
+	@GetMapping("/{id}")
+	@Operation(
+			summary = "Finds an import job",
+			description = "Progress, throughput and per-row errors of an import",
+			tags = {"Import"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200",
+					content = @Content(schema = @Schema(implementation = ImportJobVO.class))),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public ImportJobVO findJob(@PathVariable String id) {
+		logger.info("Reading an import status");
+		
+		return service.findJob(id);
+	}
+	
+	private static ResponseEntity<ImportJobVO> accepted(ImportJobVO job) {
+		URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+				.path("/api/import/v1/{id}")
+				.buildAndExpand(job.getId())
+				.toUri();
+		return ResponseEntity.accepted().location(location).body(job);
+	}
+}
@@ -1,10 +1,14 @@
 package br.com.victor.controllers;
 
+import java.io.IOException;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.http.ResponseEntity;
@@ -18,16 +22,23 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.victor.data.vo.v1.BulkItemResultVO;
 import br.com.victor.data.vo.v1.PersonVO;
 //import br.com.victor.data.vo.v2.PersonVOV2;
+import br.com.victor.services.ExportService;
 import br.com.victor.services.PersonServices;
 import br.com.victor.util.MediaType;
+import br.com.victor.util.NdjsonIterator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/person/v1")
@@ -36,13 +47,19 @@ public class PersonController {
 	
 	@Autowired
 	private PersonServices service;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	@Autowired
+	private ExportService exportService;
 	// private PersonServices service = new PersonService();
 	
 	@GetMapping(
 			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML })
 	@Operation(
 			summary =  "Finds all peoples",
-			description = "Finds all peoples", 
+			description = "Finds all peoples; use count=false to skip the total (no page metadata, next/prev links only)", 
 			tags = {"People"},
 			responses = {
 				@ApiResponse(description = "Success", responseCode = "200", 
@@ -61,12 +78,13 @@ public class PersonController {
 	public ResponseEntity<PagedModel<EntityModel<PersonVO>>> findAll(
 			@RequestParam(value = "page", defaultValue = "0") Integer page,
 			@RequestParam(value = "limit", defaultValue = "12") Integer limit,
-			@RequestParam(value = "direction", defaultValue = "asc") String direction ) {
+			@RequestParam(value = "direction", defaultValue = "asc") String direction,
+			@RequestParam(value = "count", defaultValue = "true") Boolean count ) {
 		// se for igual a desc recebendo direction como parametro entao ele vai retortar Direction.DESC, se não Direction.ASC;
 		var sortDirection = "desc".equalsIgnoreCase(direction) ? Direction.DESC : Direction.ASC;
 		
 		Pageable pageable = PageRequest.of(page, limit, Sort.by(sortDirection, "firstName"));
-		return ResponseEntity.ok(service.findAll(pageable));
+		return ResponseEntity.ok(service.findAll(pageable, count));
 	}
 	
 	@GetMapping(
@@ -74,7 +92,7 @@ public class PersonController {
 			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML })
 	@Operation(
 			summary =  "Finds peoples by name",
-			description = "Finds peoples by name", 
+			description = "Finds peoples by name; use count=false to skip the total (no page metadata, next/prev links only)", 
 			tags = {"People"},
 			responses = {
 					@ApiResponse(description = "Success", responseCode = "200", 
@@ -94,15 +112,69 @@ public class PersonController {
 			@PathVariable(value = "firstName") String firstName,
 			@RequestParam(value = "page", defaultValue = "0") Integer page,
 			@RequestParam(value = "limit", defaultValue = "12") Integer limit,
-			@RequestParam(value = "direction", defaultValue = "asc") String direction ) {
+			@RequestParam(value = "direction", defaultValue = "asc") String direction,
+			@RequestParam(value = "count", defaultValue = "true") Boolean count ) {
 		// se for igual a desc recebendo direction como parametro entao ele vai retortar Direction.DESC, se não Direction.ASC;
 		var sortDirection = "desc".equalsIgnoreCase(direction) ? Direction.DESC : Direction.ASC;
 		
 		Pageable pageable = PageRequest.of(page, limit, Sort.by(sortDirection, "firstName"));
-		return ResponseEntity.ok(service.findPersonByName(firstName, pageable));
+		return ResponseEntity.ok(service.findPersonByName(firstName, pageable, count));
 	}
 	
 	
+	@GetMapping(value = "/export")
+	@Operation(
+			summary =  "Exports all people",
+			description = "Streams the whole table as NDJSON (format=ndjson, default) or CSV (format=csv), read from a forward-only cursor without paging", 
+			tags = {"People"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(mediaType = MediaType.APPLICATION_NDJSON),
+						@Content(mediaType = MediaType.TEXT_CSV)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public void exportAll(
+			@RequestParam(value = "format", defaultValue = "ndjson") String format,
+			HttpServletResponse response) throws IOException {
+		
+		exportService.exportPeople(format, response);
+	}
+	
+	@GetMapping(
+			value = "/keyset",
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML })
+	@Operation(
+			summary =  "Finds all peoples using keyset (cursor) pagination",
+			description = "Finds all peoples seeking from an opaque cursor instead of a page offset; follow the next/prev links to move between pages", 
+			tags = {"People"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = PersonVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public ResponseEntity<CollectionModel<PersonVO>> findAllByKeyset(
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "limit", defaultValue = "12") Integer limit,
+			@RequestParam(value = "direction", defaultValue = "asc") String direction ) {
+		
+		var sortDirection = "desc".equalsIgnoreCase(direction) ? Direction.DESC : Direction.ASC;
+		
+		return ResponseEntity.ok(service.findAllByKeyset(cursor, limit, sortDirection));
+	}
+	
 	@GetMapping(value = "/{id}", 
 			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML })
 	@Operation(
@@ -190,4 +262,154 @@ public class PersonController {
 		service.delete(id);
 		return ResponseEntity.noContent().build();
 	}
+	
+	@PostMapping(
+			value = "/bulk",
+			consumes = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML },
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Creates people in bulk",
+			description = "Creates people in bulk by parsing in a JSON, XML, or YML array; persisted in chunks, returns one result per item in input order", 
+			tags = {"People"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> createAll(@RequestBody List<PersonVO> people) {
+		return service.createAll(people.iterator());
+	}
+	
+	@PostMapping(
+			value = "/bulk",
+			consumes = MediaType.APPLICATION_NDJSON,
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Creates people in bulk from an NDJSON stream",
+			description = "Creates people in bulk from an NDJSON stream (one person per line); read and persisted in chunks, returns one result per line in input order", 
+			tags = {"People"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> createAllFromStream(HttpServletRequest request) throws IOException {
+		return service.createAll(new NdjsonIterator<>(request.getInputStream(), objectMapper.readerFor(PersonVO.class)));
+	}
+	
+	@PutMapping(
+			value = "/bulk",
+			consumes = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML },
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Updates people in bulk",
+			description = "Updates people in bulk by parsing in a JSON, XML, or YML array; persisted in chunks, returns one result per item in input order", 
+			tags = {"People"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> updateAll(@RequestBody List<PersonVO> people) {
+		return service.updateAll(people.iterator());
+	}
+	
+	@PutMapping(
+			value = "/bulk",
+			consumes = MediaType.APPLICATION_NDJSON,
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Updates people in bulk from an NDJSON stream",
+			description = "Updates people in bulk from an NDJSON stream (one person per line); read and persisted in chunks, returns one result per line in input order", 
+			tags = {"People"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> updateAllFromStream(HttpServletRequest request) throws IOException {
+		return service.updateAll(new NdjsonIterator<>(request.getInputStream(), objectMapper.readerFor(PersonVO.class)));
+	}
+	
+	@DeleteMapping(
+			value = "/bulk",
+			consumes = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML },
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Deletes people in bulk",
+			description = "Deletes people in bulk by parsing in a JSON, XML, or YML array of ids; persisted in chunks, returns one result per item in input order", 
+			tags = {"People"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> deleteAll(@RequestBody List<Long> ids) {
+		return service.deleteAll(ids.iterator());
+	}
+	
+	@DeleteMapping(
+			value = "/bulk",
+			consumes = MediaType.APPLICATION_NDJSON,
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	@Operation(
+			summary =  "Deletes people in bulk from an NDJSON stream",
+			description = "Deletes people in bulk from an NDJSON stream (one id per line); read and persisted in chunks, returns one result per line in input order", 
+			tags = {"People"},
+			responses = {
+				@ApiResponse(description = "Success", responseCode = "200", 
+					content = {
+						@Content(
+							mediaType =  "application/json",
+							array = @ArraySchema(schema = @Schema(implementation = BulkItemResultVO.class))
+						)
+					}),
+				@ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+				@ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+				@ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+			}
+		)
+	public List<BulkItemResultVO> deleteAllFromStream(HttpServletRequest request) throws IOException {
+		return service.deleteAll(new NdjsonIterator<>(request.getInputStream(), objectMapper.readerFor(Long.class)));
+	}
 }
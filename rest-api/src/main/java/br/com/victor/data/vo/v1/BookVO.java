@@ -5,9 +5,10 @@ import java.util.Date;
 
 import org.springframework.hateoas.RepresentationModel;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
-@JsonPropertyOrder({"id", "author", "launchDate", "price", "title"})
+@JsonPropertyOrder({"id", "author", "launchDate", "price", "title", "version"})
 public class BookVO extends RepresentationModel<BookVO> implements Serializable {
 
 	private static final long serialVersionUID = 1L;
@@ -18,9 +19,22 @@ public class BookVO extends RepresentationModel<BookVO> implements Serializable
 	private Date launchDate;
 	private Double price;
 	private String title;
+	// opcional no update: quando enviada, o update so acontece se a versao ainda for a mesma
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private Long version;
 	
 
 	public BookVO() {}
+	
+	// projecao de construtor das leituras do BookRepository (SELECT new ...): sem entidade gerenciada nem ModelMapper
+	public BookVO(Long id, String author, Date launchDate, Double price, String title, Long version) {
+		this.id = id;
+		this.author = author;
+		this.launchDate = launchDate;
+		this.price = price;
+		this.title = title;
+		this.version = version;
+	}
 
 
 	public Long getId() {
@@ -73,6 +87,14 @@ public class BookVO extends RepresentationModel<BookVO> implements Serializable
 	}
 
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -82,6 +104,7 @@ public class BookVO extends RepresentationModel<BookVO> implements Serializable
 		result = prime * result + ((launchDate == null) ? 0 : launchDate.hashCode());
 		result = prime * result + ((price == null) ? 0 : price.hashCode());
 		result = prime * result + ((title == null) ? 0 : title.hashCode());
+		result = prime * result + ((version == null) ? 0 : version.hashCode());
 		return result;
 	}
 
@@ -120,6 +143,11 @@ public class BookVO extends RepresentationModel<BookVO> implements Serializable
 				return false;
 		} else if (!title.equals(other.title))
 			return false;
+		if (version == null) {
+			if (other.version != null)
+				return false;
+		} else if (!version.equals(other.version))
+			return false;
 		return true;
 	}
 	
@@ -0,0 +1,138 @@
+package br.com.victor.data.vo.v1;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// estado de uma importacao de arquivo: contadores de linhas, vazao e os erros por linha (index = linha de dados, a partir de 1)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportJobVO implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private String id;
+	private String target;
+	private String fileName;
+	private String format;
+	// QUEUED, RUNNING, COMPLETED ou FAILED
+	private String status;
+	private long rowsRead;
+	private long rowsImported;
+	private long rowsFailed;
+	private Long rowsPerSecond;
+	private Date startedAt;
+	private Date finishedAt;
+	// preenchido so quando o job inteiro falhou (arquivo ilegivel, cabecalho invalido...)
+	private String error;
+	// limitado a import.max-errors; rowsFailed tem o total
+	private List<BulkItemResultVO> errors;
+	
+	public ImportJobVO() {}
+	
+	public String getId() {
+		return id;
+	}
+	
+	public void setId(String id) {
+		this.id = id;
+	}
+	
+	public String getTarget() {
+		return target;
+	}
+	
+	public void setTarget(String target) {
+		this.target = target;
+	}
+	
+	public String getFileName() {
+		return fileName;
+	}
+	
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+	
+	public String getFormat() {
+		return format;
+	}
+	
+	public void setFormat(String format) {
+		this.format = format;
+	}
+	
+	public String getStatus() {
+		return status;
+	}
+	
+	public void setStatus(String status) {
+		this.status = status;
+	}
+	
+	public long getRowsRead() {
+		return rowsRead;
+	}
+	
+	public void setRowsRead(long rowsRead) {
+		this.rowsRead = rowsRead;
+	}
+	
+	public long getRowsImported() {
+		return rowsImported;
+	}
+	
+	public void setRowsImported(long rowsImported) {
+		this.rowsImported = rowsImported;
+	}
+	
+	public long getRowsFailed() {
+		return rowsFailed;
+	}
+	
+	public void setRowsFailed(long rowsFailed) {
+		this.rowsFailed = rowsFailed;
+	}
+	
+	public Long getRowsPerSecond() {
+		return rowsPerSecond;
+	}
+	
+	public void setRowsPerSecond(Long rowsPerSecond) {
+		this.rowsPerSecond = rowsPerSecond;
+	}
+	
+	public Date getStartedAt() {
+		return startedAt;
+	}
+	
+	public void setStartedAt(Date startedAt) {
+		this.startedAt = startedAt;
+	}
+	
+	public Date getFinishedAt() {
+		return finishedAt;
+	}
+	
+	public void setFinishedAt(Date finishedAt) {
+		this.finishedAt = finishedAt;
+	}
+	
+	public String getError() {
+		return error;
+	}
+	
+	public void setError(String error) {
+		this.error = error;
+	}
+	
+	public List<BulkItemResultVO> getErrors() {
+		return errors;
+	}
+	
+	public void setErrors(List<BulkItemResultVO> errors) {
+		this.errors = errors;
+	}
+
+}
@@ -4,6 +4,8 @@ import java.io.Serializable;
 
 import org.springframework.hateoas.RepresentationModel;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 
 public class PersonVO extends RepresentationModel<PersonVO> implements Serializable {
 
@@ -14,10 +16,23 @@ public class PersonVO extends RepresentationModel<PersonVO> implements Serializa
 	private String lastName;	
 	private String address;
 	private String gender;
+	// opcional no update: quando enviada, o update so acontece se a versao ainda for a mesma
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private Long version;
 	
 
 	public PersonVO() {}
 	
+	// projecao de construtor das leituras do PersonRepository (SELECT new ...): sem entidade gerenciada nem ModelMapper
+	public PersonVO(Long id, String firstName, String lastName, String address, String gender, Long version) {
+		this.id = id;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.address = address;
+		this.gender = gender;
+		this.version = version;
+	}
+	
 	
 	public Long getId() {
 		return id;
@@ -60,6 +75,14 @@ public class PersonVO extends RepresentationModel<PersonVO> implements Serializa
 	}
 
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -69,6 +92,7 @@ public class PersonVO extends RepresentationModel<PersonVO> implements Serializa
 		result = prime * result + ((gender == null) ? 0 : gender.hashCode());
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
 		result = prime * result + ((lastName == null) ? 0 : lastName.hashCode());
+		result = prime * result + ((version == null) ? 0 : version.hashCode());
 		return result;
 	}
 
@@ -107,6 +131,11 @@ public class PersonVO extends RepresentationModel<PersonVO> implements Serializa
 				return false;
 		} else if (!lastName.equals(other.lastName))
 			return false;
+		if (version == null) {
+			if (other.version != null)
+				return false;
+		} else if (!version.equals(other.version))
+			return false;
 		return true;
 	}
 
@@ -2,6 +2,8 @@ package br.com.victor.data.vo.v1;
 
 import java.io.Serializable;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class UploadFileResponseVO implements Serializable {
 
 	private static final long serialVersionUID = 1L;
@@ -10,6 +12,10 @@ public class UploadFileResponseVO implements Serializable {
 	private String fileDownloadUri;
 	private String fileType;
 	private long size;
+	private String checksum;
+	// preenchido so quando o arquivo falhou num upload em lote
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private String error;
 	
 	public UploadFileResponseVO() {}
 
@@ -52,4 +58,20 @@ public class UploadFileResponseVO implements Serializable {
 		this.size = size;
 	}
 
+	public String getChecksum() {
+		return checksum;
+	}
+
+	public void setChecksum(String checksum) {
+		this.checksum = checksum;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
 }
@@ -0,0 +1,18 @@
+package br.com.victor.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConcurrentUpdateException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	public ConcurrentUpdateException() {
+		super("The record was changed by another request, reload it and try again!");
+	}
+	
+	public ConcurrentUpdateException(String ex) {
+		super(ex);
+	}
+}
@@ -0,0 +1,18 @@
+package br.com.victor.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	public InvalidCursorException() {
+		super("Invalid or malformed page cursor!");
+	}
+	
+	public InvalidCursorException(String ex) {
+		super(ex);
+	}
+}
@@ -0,0 +1,18 @@
+package br.com.victor.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyImportsException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	public TooManyImportsException() {
+		super("Too many imports in progress, please try again later!");
+	}
+	
+	public TooManyImportsException(String ex) {
+		super(ex);
+	}
+}
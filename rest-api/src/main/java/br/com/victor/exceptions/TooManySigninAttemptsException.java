@@ -0,0 +1,18 @@
+package br.com.victor.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManySigninAttemptsException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	public TooManySigninAttemptsException() {
+		super("Too many sign-in attempts in progress, please try again later!");
+	}
+	
+	public TooManySigninAttemptsException(String ex) {
+		super(ex);
+	}
+}
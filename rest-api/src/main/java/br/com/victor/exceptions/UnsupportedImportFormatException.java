@@ -0,0 +1,14 @@
+package br.com.victor.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedImportFormatException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	public UnsupportedImportFormatException(String format) {
+		super("Unsupported import format " + format + ", use ndjson or csv!");
+	}
+}
@@ -10,10 +10,16 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import br.com.victor.exceptions.ConcurrentUpdateException;
 import br.com.victor.exceptions.ExceptionResponse;
+import br.com.victor.exceptions.InvalidCursorException;
 import br.com.victor.exceptions.InvalidJwtAuthenticationException;
 import br.com.victor.exceptions.RequiredObjectIsNullException;
 import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.exceptions.TooManyImportsException;
+import br.com.victor.exceptions.TooManySigninAttemptsException;
+import br.com.victor.exceptions.UnsupportedExportFormatException;
+import br.com.victor.exceptions.UnsupportedImportFormatException;
 
 @ControllerAdvice
 @RestController
@@ -43,7 +49,8 @@ public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExce
 		return new ResponseEntity<>(exceptionResponse, HttpStatus.NOT_FOUND);
 	}
 	
-	@ExceptionHandler(RequiredObjectIsNullException.class)
+	@ExceptionHandler({RequiredObjectIsNullException.class, InvalidCursorException.class, UnsupportedExportFormatException.class,
+		UnsupportedImportFormatException.class})
 	public final ResponseEntity<ExceptionResponse> handleBadRequestExceptions(
 			Exception ex, WebRequest request) {
 		
@@ -55,6 +62,18 @@ public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExce
 		return new ResponseEntity<>(exceptionResponse, HttpStatus.BAD_REQUEST);
 	}
 	
+	@ExceptionHandler(ConcurrentUpdateException.class)
+	public final ResponseEntity<ExceptionResponse> handleConflictExceptions(
+			Exception ex, WebRequest request) {
+		
+		ExceptionResponse exceptionResponse = new ExceptionResponse(
+				new Date(),
+				ex.getMessage(),
+				request.getDescription(false));
+		
+		return new ResponseEntity<>(exceptionResponse, HttpStatus.CONFLICT);
+	}
+	
 	@ExceptionHandler(InvalidJwtAuthenticationException.class)
 	public final ResponseEntity<ExceptionResponse> handleInvalidJwtAuthenticationException(
 			Exception ex, WebRequest request) {
@@ -66,4 +85,16 @@ public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExce
 		
 		return new ResponseEntity<>(exceptionResponse, HttpStatus.FORBIDDEN);
 	}
+	
+	@ExceptionHandler({TooManySigninAttemptsException.class, TooManyImportsException.class})
+	public final ResponseEntity<ExceptionResponse> handleTooManySigninAttemptsException(
+			Exception ex, WebRequest request) {
+		
+		ExceptionResponse exceptionResponse = new ExceptionResponse(
+				new Date(),
+				ex.getMessage(),
+				request.getDescription(false));
+		
+		return new ResponseEntity<>(exceptionResponse, HttpStatus.TOO_MANY_REQUESTS);
+	}
 }
@@ -0,0 +1,118 @@
+package br.com.victor.hateoas;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Monta os links HATEOAS de um controller sem o proxy de {@code methodOn(...)} por item.
+ * O template do {@code findById} e resolvido uma vez por controller, a URI base uma vez por
+ * request, e cada item so substitui o id.
+ */
+@Component
+public class SelfLinkFactory {
+
+	private static final String FIND_BY_ID = "findById";
+
+	private final Map<Class<?>, IdTemplate> templates = new ConcurrentHashMap<>();
+
+	public SelfLinks forController(Class<?> controller) {
+		String baseUri = linkTo(controller).withSelfRel().getHref();
+		IdTemplate template = templates.computeIfAbsent(controller, SelfLinkFactory::resolveIdTemplate);
+		return new SelfLinks(baseUri, template);
+	}
+
+	private static IdTemplate resolveIdTemplate(Class<?> controller) {
+		Method findById = null;
+		for (Method method : ReflectionUtils.getUniqueDeclaredMethods(controller)) {
+			if (FIND_BY_ID.equals(method.getName())) {
+				findById = method;
+				break;
+			}
+		}
+		if (findById == null) {
+			throw new IllegalStateException(controller.getName() + " has no " + FIND_BY_ID + " handler");
+		}
+		
+		RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(findById, RequestMapping.class);
+		String path = (mapping != null && mapping.path().length > 0) ? mapping.path()[0] : "";
+		
+		int start = path.indexOf('{');
+		int end = path.indexOf('}', start);
+		if (start < 0 || end < 0) {
+			throw new IllegalStateException(controller.getName() + "." + FIND_BY_ID + " mapping has no id variable: " + path);
+		}
+		return new IdTemplate(path.substring(0, start), path.substring(end + 1));
+	}
+
+	private static final class IdTemplate {
+		
+		private final String prefix;
+		private final String suffix;
+		
+		private IdTemplate(String prefix, String suffix) {
+			this.prefix = prefix;
+			this.suffix = suffix;
+		}
+	}
+
+	public static final class SelfLinks {
+		
+		private final String baseUri;
+		private final IdTemplate template;
+		
+		private SelfLinks(String baseUri, IdTemplate template) {
+			this.baseUri = baseUri;
+			this.template = template;
+		}
+		
+		public Link forId(Object id) {
+			return Link.of(baseUri + template.prefix + id + template.suffix, IanaLinkRelations.SELF);
+		}
+		
+		public Link forPage(Pageable pageable, String direction) {
+			String href = UriComponentsBuilder.fromUriString(baseUri)
+					.queryParam("page", pageable.getPageNumber())
+					.queryParam("limit", pageable.getPageSize())
+					.queryParam("direction", direction)
+					.build()
+					.toUriString();
+			return Link.of(href, IanaLinkRelations.SELF);
+		}
+		
+		// links de uma pagina sem total (count=false): o proximo request tambem pula o COUNT
+		public Link forSlice(String path, Pageable pageable, String direction, LinkRelation relation) {
+			String href = UriComponentsBuilder.fromUriString(baseUri + path)
+					.queryParam("page", pageable.getPageNumber())
+					.queryParam("limit", pageable.getPageSize())
+					.queryParam("direction", direction)
+					.queryParam("count", false)
+					.build()
+					.toUriString();
+			return Link.of(href, relation);
+		}
+		
+		public Link forCursor(String path, String cursor, int limit, String direction, LinkRelation relation) {
+			UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(baseUri + path);
+			if (cursor != null && !cursor.isBlank()) builder.queryParam("cursor", cursor);
+			String href = builder
+					.queryParam("limit", limit)
+					.queryParam("direction", direction)
+					.build()
+					.toUriString();
+			return Link.of(href, relation);
+		}
+	}
+}
@@ -2,23 +2,133 @@ package br.com.victor.mapper;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.modelmapper.ModelMapper;
 
+import br.com.victor.data.vo.v1.BookVO;
+import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.data.vo.v2.PersonVOV2;
+import br.com.victor.model.Book;
+import br.com.victor.model.Person;
+
 public class Mapper {
-	
+
 	private static ModelMapper mapper = new ModelMapper();
-	
+
+	// conversores diretos (copia campo a campo) registrados uma unica vez, sem reflexao por chamada.
+	// pares nao registrados continuam passando pelo ModelMapper
+	private static final Map<Class<?>, Map<Class<?>, Function<Object, Object>>> converters = new ConcurrentHashMap<>();
+
+	static {
+		register(Person.class, PersonVO.class, Mapper::toPersonVO);
+		register(PersonVO.class, Person.class, Mapper::toPerson);
+		register(Person.class, PersonVOV2.class, Mapper::toPersonVOV2);
+		register(PersonVOV2.class, Person.class, Mapper::toPersonFromV2);
+		register(Book.class, BookVO.class, Mapper::toBookVO);
+		register(BookVO.class, Book.class, Mapper::toBook);
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <O, D> void register(Class<O> origin, Class<D> destination, Function<O, D> converter) {
+		converters.computeIfAbsent(origin, key -> new ConcurrentHashMap<>())
+			.put(destination, (Function<Object, Object>) converter);
+	}
+
 	public static <O, D> D parseObject(O origin, Class<D> destination) {
-		return mapper.map(origin, destination);
+		if (origin == null) return mapper.map(origin, destination);
+		return converterFor(origin.getClass(), destination).apply(origin);
 	}
-	
+
 	public static <O, D> List<D> parseListObjects(List<O> origin, Class<D> destination ){
-		List<D> destinationObjects = new ArrayList<D>();
+		List<D> destinationObjects = new ArrayList<D>(origin.size());
+		Function<Object, D> converter = null;
+		Class<?> originClass = null;
 		for (O o : origin) {
-			destinationObjects.add(mapper.map(o, destination));
+			// resolve o conversor uma vez por tipo de origem, nao uma vez por item
+			if (converter == null || o.getClass() != originClass) {
+				originClass = o.getClass();
+				converter = converterFor(originClass, destination);
+			}
+			destinationObjects.add(converter.apply(o));
 		}
 		return destinationObjects;
 	}
 
+	@SuppressWarnings("unchecked")
+	private static <D> Function<Object, D> converterFor(Class<?> origin, Class<D> destination) {
+		Map<Class<?>, Function<Object, Object>> byDestination = converters.get(origin);
+		if (byDestination != null) {
+			Function<Object, Object> converter = byDestination.get(destination);
+			if (converter != null) return (Function<Object, D>) converter;
+		}
+		return o -> mapper.map(o, destination);
+	}
+
+	private static PersonVO toPersonVO(Person entity) {
+		PersonVO vo = new PersonVO();
+		vo.setId(entity.getId());
+		vo.setFirstName(entity.getFirstName());
+		vo.setLastName(entity.getLastName());
+		vo.setAddress(entity.getAddress());
+		vo.setGender(entity.getGender());
+		vo.setVersion(entity.getVersion());
+		return vo;
+	}
+
+	private static Person toPerson(PersonVO vo) {
+		Person entity = new Person();
+		entity.setId(vo.getId());
+		entity.setFirstName(vo.getFirstName());
+		entity.setLastName(vo.getLastName());
+		entity.setAddress(vo.getAddress());
+		entity.setGender(vo.getGender());
+		entity.setVersion(vo.getVersion());
+		return entity;
+	}
+
+	private static PersonVOV2 toPersonVOV2(Person entity) {
+		PersonVOV2 vo = new PersonVOV2();
+		vo.setId(entity.getId());
+		vo.setFirstName(entity.getFirstName());
+		vo.setLastName(entity.getLastName());
+		vo.setAddress(entity.getAddress());
+		vo.setGender(entity.getGender());
+		return vo;
+	}
+
+	private static Person toPersonFromV2(PersonVOV2 vo) {
+		Person entity = new Person();
+		entity.setId(vo.getId());
+		entity.setFirstName(vo.getFirstName());
+		entity.setLastName(vo.getLastName());
+		entity.setAddress(vo.getAddress());
+		entity.setGender(vo.getGender());
+		return entity;
+	}
+
+	private static BookVO toBookVO(Book entity) {
+		BookVO vo = new BookVO();
+		vo.setId(entity.getId());
+		vo.setAuthor(entity.getAuthor());
+		vo.setLaunchDate(entity.getLaunchDate());
+		vo.setPrice(entity.getPrice());
+		vo.setTitle(entity.getTitle());
+		vo.setVersion(entity.getVersion());
+		return vo;
+	}
+
+	private static Book toBook(BookVO vo) {
+		Book entity = new Book();
+		entity.setId(vo.getId());
+		entity.setAuthor(vo.getAuthor());
+		entity.setLaunchDate(vo.getLaunchDate());
+		entity.setPrice(vo.getPrice());
+		entity.setTitle(vo.getTitle());
+		entity.setVersion(vo.getVersion());
+		return entity;
+	}
+
 }
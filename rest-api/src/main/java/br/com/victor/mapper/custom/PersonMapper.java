@@ -5,6 +5,7 @@ import java.util.Date;
 import org.springframework.stereotype.Service;
 
 import br.com.victor.data.vo.v2.PersonVOV2;
+import br.com.victor.mapper.Mapper;
 import br.com.victor.model.Person;
 
 @Service
@@ -12,28 +13,16 @@ public class PersonMapper {
 
 	public PersonVOV2 convertEntityToVo(Person person) {
 		
-		PersonVOV2 vo = new PersonVOV2();
-		
-		vo.setId(person.getId());
-		vo.setAddress(person.getAddress());
+		PersonVOV2 vo = Mapper.parseObject(person, PersonVOV2.class);
 		vo.setBirthday(new Date());
-		vo.setFirstName(person.getFirstName());
-		vo.setLastName(person.getLastName());
-		vo.setGender(person.getGender());
 		
 		return vo;
 	}
 	
-public Person convertVoToEntity(PersonVOV2 person) {
-		
-		Person entity = new Person();
+	public Person convertVoToEntity(PersonVOV2 person) {
 		
-		entity.setId(person.getId());
-		entity.setAddress(person.getAddress());
+		Person entity = Mapper.parseObject(person, Person.class);
 		//entity.setBirthday(new Date());
-		entity.setFirstName(person.getFirstName());
-		entity.setLastName(person.getLastName());
-		entity.setGender(person.getGender());
 		
 		return entity;
 	}
@@ -3,6 +3,9 @@ package br.com.victor.model;
 import java.io.Serializable;
 import java.util.Date;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -11,6 +14,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "books")
@@ -18,8 +22,14 @@ public class Book implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 	
+	// ids em blocos de 100 da tabela books_seq (V16), com o optimizer pooled-lo: o id existe antes do
+	// INSERT, entao o Hibernate agrupa os inserts em batch (IDENTITY forca um INSERT imediato por entidade)
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+	@GenericGenerator(name = "books_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "books_seq"),
+			@Parameter(name = "increment_size", value = "100"),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	private Long id;
 	
 	@Column(nullable = false, length = 180)
@@ -35,6 +45,11 @@ public class Book implements Serializable {
 	@Column(nullable = false, length = 250)
 	private String title;
 	
+	// versao para o controle otimista (V17): conferida no update quando o cliente envia a versao que leu
+	@Version
+	@Column(nullable = false)
+	private Long version;
+	
 
 	public Book() {}
 
@@ -89,6 +104,14 @@ public class Book implements Serializable {
 	}
 
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -98,6 +121,7 @@ public class Book implements Serializable {
 		result = prime * result + ((launchDate == null) ? 0 : launchDate.hashCode());
 		result = prime * result + ((price == null) ? 0 : price.hashCode());
 		result = prime * result + ((title == null) ? 0 : title.hashCode());
+		result = prime * result + ((version == null) ? 0 : version.hashCode());
 		return result;
 	}
 
@@ -136,6 +160,11 @@ public class Book implements Serializable {
 				return false;
 		} else if (!title.equals(other.title))
 			return false;
+		if (version == null) {
+			if (other.version != null)
+				return false;
+		} else if (!version.equals(other.version))
+			return false;
 		return true;
 	}
 	
@@ -0,0 +1,92 @@
+package br.com.victor.model;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "file_blob")
+public class FileBlob implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	// SHA-256 do conteudo em hexadecimal
+	@Id
+	@Column(length = 64)
+	private String hash;
+	
+	@Column(nullable = false)
+	private Long size;
+	
+	// quantos nomes do indice (stored_file) apontam para este conteudo
+	@Column(name = "ref_count", nullable = false)
+	private Long refCount;
+	
+
+	public FileBlob() {}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public void setHash(String hash) {
+		this.hash = hash;
+	}
+
+	public Long getSize() {
+		return size;
+	}
+
+	public void setSize(Long size) {
+		this.size = size;
+	}
+
+	public Long getRefCount() {
+		return refCount;
+	}
+
+	public void setRefCount(Long refCount) {
+		this.refCount = refCount;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((hash == null) ? 0 : hash.hashCode());
+		result = prime * result + ((refCount == null) ? 0 : refCount.hashCode());
+		result = prime * result + ((size == null) ? 0 : size.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		FileBlob other = (FileBlob) obj;
+		if (hash == null) {
+			if (other.hash != null)
+				return false;
+		} else if (!hash.equals(other.hash))
+			return false;
+		if (refCount == null) {
+			if (other.refCount != null)
+				return false;
+		} else if (!refCount.equals(other.refCount))
+			return false;
+		if (size == null) {
+			if (other.size != null)
+				return false;
+		} else if (!size.equals(other.size))
+			return false;
+		return true;
+	}
+	
+}
@@ -2,12 +2,16 @@ package br.com.victor.model;
 
 import java.io.Serializable;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "person")
@@ -15,8 +19,14 @@ public class Person implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 	
+	// ids em blocos de 100 da tabela person_seq (V16), com o optimizer pooled-lo: o id existe antes do
+	// INSERT, entao o Hibernate agrupa os inserts em batch (IDENTITY forca um INSERT imediato por entidade)
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+	@GenericGenerator(name = "person_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "person_seq"),
+			@Parameter(name = "increment_size", value = "100"),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	private Long id;
 	
 	@Column(name = "first_name", nullable = false, length = 80)
@@ -31,6 +41,11 @@ public class Person implements Serializable {
 	@Column(nullable = false, length = 6)
 	private String gender;
 	
+	// versao para o controle otimista (V17): conferida no update quando o cliente envia a versao que leu
+	@Version
+	@Column(nullable = false)
+	private Long version;
+	
 
 	public Person() {}
 	
@@ -74,6 +89,14 @@ public class Person implements Serializable {
 		this.gender = gender;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -83,6 +106,7 @@ public class Person implements Serializable {
 		result = prime * result + ((gender == null) ? 0 : gender.hashCode());
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
 		result = prime * result + ((lastName == null) ? 0 : lastName.hashCode());
+		result = prime * result + ((version == null) ? 0 : version.hashCode());
 		return result;
 	}
 
@@ -120,6 +144,11 @@ public class Person implements Serializable {
 				return false;
 		} else if (!lastName.equals(other.lastName))
 			return false;
+		if (version == null) {
+			if (other.version != null)
+				return false;
+		} else if (!version.equals(other.version))
+			return false;
 		return true;
 	}
 }
@@ -0,0 +1,53 @@
+package br.com.victor.reactive;
+
+import java.util.Arrays;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+
+/**
+ * Variante reativa das APIs de pessoas e livros: WebFlux sobre Netty e R2DBC MySQL, com os mesmos
+ * recursos, a mesma negociacao JSON/XML/YAML e a mesma paginacao do {@code Startup}.
+ *
+ * Sobe num processo proprio (perfil {@code reactive}, porta 8081), lado a lado com a API servlet ou
+ * sozinha. Nenhum thread fica preso a uma conexao lenta: os poucos event loops do Netty atendem todas
+ * e o banco responde pelo driver R2DBC, sem DataSource, JPA nem Flyway (as migrations sao da API servlet).
+ * So os beans de br.com.victor.reactive sobem aqui, e todos eles ficam fora do contexto servlet.
+ */
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@SpringBootApplication(exclude = { DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+		HibernateJpaAutoConfiguration.class, FlywayAutoConfiguration.class })
+public class ReactiveStartup {
+
+	public static final String PROFILE = "reactive";
+
+	private static final String PROFILES_PROPERTY = "spring.profiles.active";
+
+	public static void main(String[] args) {
+		SpringApplication application = new SpringApplication(ReactiveStartup.class);
+		application.setWebApplicationType(WebApplicationType.REACTIVE);
+		application.setAdditionalProfiles(PROFILE);
+		application.run(args);
+	}
+
+	// o perfil pode vir da linha de comando, de -Dspring.profiles.active ou de SPRING_PROFILES_ACTIVE
+	public static boolean isRequested(String[] args) {
+		for (String arg : args) {
+			if (arg.startsWith("--" + PROFILES_PROPERTY + "=") && hasProfile(arg.substring(PROFILES_PROPERTY.length() + 3))) {
+				return true;
+			}
+		}
+		return hasProfile(System.getProperty(PROFILES_PROPERTY)) || hasProfile(System.getenv("SPRING_PROFILES_ACTIVE"));
+	}
+
+	private static boolean hasProfile(String profiles) {
+		return profiles != null && Arrays.stream(profiles.split(",")).map(String::trim).anyMatch(PROFILE::equals);
+	}
+}
@@ -0,0 +1,17 @@
+package br.com.victor.reactive.codec;
+
+import org.springframework.http.codec.json.AbstractJackson2Decoder;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Decoder WebFlux para os corpos XML e YAML dos POST/PUT. Os corpos sao objetos unicos: o decoder base
+ * junta os buffers do request (ate o limite de max-in-memory-size) e le com o mapper do formato.
+ */
+public class Jackson2FormatDecoder extends AbstractJackson2Decoder {
+	
+	public Jackson2FormatDecoder(ObjectMapper mapper, MimeType... mimeTypes) {
+		super(mapper, mimeTypes);
+	}
+}
@@ -0,0 +1,39 @@
+package br.com.victor.reactive.codec;
+
+import java.util.List;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Encoder WebFlux para os formatos Jackson que nao sao JSON (XML e YAML), o par reativo do
+ * {@code YamlJackson2HttpMessageConverter}. Um Flux vira uma lista antes de escrever: o encoder base
+ * junta os elementos com os separadores de array JSON, que nao servem para XML nem YAML.
+ */
+public class Jackson2FormatEncoder extends AbstractJackson2Encoder {
+	
+	public Jackson2FormatEncoder(ObjectMapper mapper, MimeType... mimeTypes) {
+		super(mapper, mimeTypes);
+	}
+	
+	@Override
+	public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+			ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+		
+		if (inputStream instanceof Mono) {
+			return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+		}
+		return super.encode(Flux.from(inputStream).collectList(), bufferFactory,
+				ResolvableType.forClassWithGenerics(List.class, elementType), mimeType, hints);
+	}
+}
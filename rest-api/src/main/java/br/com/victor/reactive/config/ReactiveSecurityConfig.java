@@ -0,0 +1,110 @@
+package br.com.victor.reactive.config;
+
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Seguranca da variante reativa: as mesmas regras do SecurityConfig para /api/** e /actuator/**, com
+ * os tokens emitidos pelo /auth/signin da API servlet (mesma chave). A Authentication sai so do subject
+ * e do claim roles do token verificado (como security.jwt.claims-only-authentication=true): o
+ * UserDetailsService e JPA bloqueante e nao roda no event loop. A lista de revogacao e em memoria no
+ * processo servlet, entao um token revogado la continua valido aqui ate expirar.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+	private static final String BEARER = "Bearer ";
+
+	@Value("${security.jwt.token.secret-key:secret}")
+	private String secretKey = "secret";
+
+	@Bean
+	ReactiveAuthenticationManager jwtAuthenticationManager() {
+		// mesma derivacao do JwtTokenProvider.init: HMAC256 sobre a chave em Base64
+		String encodedKey = Base64.getEncoder().encodeToString(secretKey.getBytes());
+		JWTVerifier verifier = JWT.require(Algorithm.HMAC256(encodedKey.getBytes())).build();
+
+		return authentication -> Mono.fromCallable(() -> {
+			DecodedJWT decodedJWT;
+			try {
+				// a verificacao ja recusa token expirado
+				decodedJWT = verifier.verify((String) authentication.getCredentials());
+			} catch (JWTVerificationException e) {
+				throw new BadCredentialsException("Expired or Invalid JWT token!", e);
+			}
+			List<String> roles = decodedJWT.getClaim("roles").asList(String.class);
+			UserDetails user = User.withUsername(decodedJWT.getSubject())
+					.password("")
+					.authorities(roles == null ? AuthorityUtils.NO_AUTHORITIES : AuthorityUtils.createAuthorityList(roles.toArray(new String[0])))
+					.build();
+			return new UsernamePasswordAuthenticationToken(user, "", user.getAuthorities());
+		});
+	}
+
+	@Bean
+	SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, ReactiveAuthenticationManager jwtAuthenticationManager) {
+		// sem token ou com token invalido: 403, como o entry point padrao da API servlet
+		HttpStatusServerEntryPoint entryPoint = new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN);
+
+		AuthenticationWebFilter jwtFilter = new AuthenticationWebFilter(jwtAuthenticationManager);
+		jwtFilter.setServerAuthenticationConverter(exchange -> {
+			String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+			if (header == null || !header.startsWith(BEARER)) return Mono.empty();
+			String token = header.substring(BEARER.length());
+			return Mono.just(UsernamePasswordAuthenticationToken.unauthenticated(token, token));
+		});
+		jwtFilter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(entryPoint));
+		// stateless: nada de WebSession, cada request traz o proprio token
+		jwtFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+		return http
+				.httpBasic().disable()
+				.formLogin().disable()
+				.csrf().disable()
+				.logout().disable()
+				.securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+				.exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(entryPoint))
+				.authorizeExchange(exchanges -> exchanges
+						// preflight CORS sem token: quem responde e o mapeamento do ReactiveWebConfig
+						.pathMatchers(HttpMethod.OPTIONS).permitAll()
+						.pathMatchers("/api/**").authenticated()
+						.pathMatchers("/actuator/**").authenticated()
+						.pathMatchers("/users").denyAll()
+						.anyExchange().permitAll())
+				.addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+				.build();
+	}
+}
@@ -0,0 +1,70 @@
+package br.com.victor.reactive.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+
+import br.com.victor.reactive.codec.Jackson2FormatDecoder;
+import br.com.victor.reactive.codec.Jackson2FormatEncoder;
+
+// mesma negociacao do WebConfig: pelo header Accept, JSON como padrao, XML e YAML pelos mesmos media types
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+	private static final MediaType MEDIA_TYPE_APPLICATION_YML = MediaType.valueOf("application/x-yaml");
+
+	@Value("${cors.originPatterns:default}")
+	private String corsOriginPatterns = "";
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	Jackson2ObjectMapperBuilder mapperBuilder;
+
+	@Override
+	public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+		// JSON no formato HAL (_embedded/_links), como a API servlet devolve as paginas e os VOs
+		ObjectMapper halMapper = objectMapper.copy().registerModule(new Jackson2HalModule());
+		halMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+				new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+		configurer.customCodecs().register(new Jackson2JsonEncoder(halMapper, MediaType.APPLICATION_JSON, MediaTypes.HAL_JSON));
+		configurer.customCodecs().register(new Jackson2JsonDecoder(objectMapper, MediaType.APPLICATION_JSON));
+
+		ObjectMapper xmlMapper = mapperBuilder.createXmlMapper(true).build();
+		configurer.customCodecs().register(new Jackson2FormatEncoder(xmlMapper, MediaType.APPLICATION_XML));
+		configurer.customCodecs().register(new Jackson2FormatDecoder(xmlMapper, MediaType.APPLICATION_XML));
+
+		ObjectMapper yamlMapper = new YAMLMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+		configurer.customCodecs().register(new Jackson2FormatEncoder(yamlMapper, MEDIA_TYPE_APPLICATION_YML));
+		configurer.customCodecs().register(new Jackson2FormatDecoder(yamlMapper, MEDIA_TYPE_APPLICATION_YML));
+	}
+
+	@Override
+	public void addCorsMappings(CorsRegistry registry) {
+		var allowedOrigins = corsOriginPatterns.split(",");
+		registry.addMapping("/**")
+			.allowedMethods("*")
+			.allowedOrigins(allowedOrigins)
+			.allowCredentials(true);
+	}
+}
@@ -0,0 +1,101 @@
+package br.com.victor.reactive.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.reactive.hateoas.ReactiveSelfLinks;
+import br.com.victor.reactive.services.ReactivePersonServices;
+import br.com.victor.util.MediaType;
+import reactor.core.publisher.Mono;
+
+// mesmos caminhos, parametros e formatos do PersonController, sem os endpoints /bulk, /keyset e /export
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping(ReactivePersonController.BASE_PATH)
+public class ReactivePersonController {
+	
+	static final String BASE_PATH = "/api/person/v1";
+	
+	@Autowired
+	private ReactivePersonServices service;
+	
+	@GetMapping(
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML })
+	public Mono<ResponseEntity<PagedModel<EntityModel<PersonVO>>>> findAll(
+			@RequestParam(value = "page", defaultValue = "0") Integer page,
+			@RequestParam(value = "limit", defaultValue = "12") Integer limit,
+			@RequestParam(value = "direction", defaultValue = "asc") String direction,
+			@RequestParam(value = "count", defaultValue = "true") Boolean count,
+			ServerHttpRequest request ) {
+		
+		var sortDirection = "desc".equalsIgnoreCase(direction) ? Direction.DESC : Direction.ASC;
+		
+		Pageable pageable = PageRequest.of(page, limit, Sort.by(sortDirection, "firstName"));
+		return service.findAll(pageable, count, links(request)).map(ResponseEntity::ok);
+	}
+	
+	@GetMapping(
+			value = "/findPersonByName/{firstName}",
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML })
+	public Mono<ResponseEntity<PagedModel<EntityModel<PersonVO>>>> findPersonByName(
+			@PathVariable(value = "firstName") String firstName,
+			@RequestParam(value = "page", defaultValue = "0") Integer page,
+			@RequestParam(value = "limit", defaultValue = "12") Integer limit,
+			@RequestParam(value = "direction", defaultValue = "asc") String direction,
+			@RequestParam(value = "count", defaultValue = "true") Boolean count,
+			ServerHttpRequest request ) {
+		
+		var sortDirection = "desc".equalsIgnoreCase(direction) ? Direction.DESC : Direction.ASC;
+		
+		Pageable pageable = PageRequest.of(page, limit, Sort.by(sortDirection, "firstName"));
+		return service.findPersonByName(firstName, pageable, count, links(request)).map(ResponseEntity::ok);
+	}
+	
+	@GetMapping(value = "/{id}",
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML })
+	public Mono<PersonVO> findById(@PathVariable(value = "id") Long id, ServerHttpRequest request ) {
+		return service.findById(id, links(request));
+	}
+	
+	@PostMapping(
+			consumes = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML },
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	public Mono<PersonVO> create(@RequestBody PersonVO person, ServerHttpRequest request ) {
+		return service.create(person, links(request));
+	}
+	
+	@PutMapping(
+			consumes = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML },
+			produces = { MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML } )
+	public Mono<PersonVO> update(@RequestBody PersonVO person, ServerHttpRequest request ) {
+		return service.update(person, links(request));
+	}
+	
+	@DeleteMapping(value = "/{id}")
+	public Mono<ResponseEntity<Void>> delete(@PathVariable(value = "id") Long id ) {
+		return service.delete(id).then(Mono.just(ResponseEntity.noContent().<Void>build()));
+	}
+	
+	private static ReactiveSelfLinks links(ServerHttpRequest request) {
+		return ReactiveSelfLinks.forRequest(request, BASE_PATH);
+	}
+}
@@ -0,0 +1,63 @@
+package br.com.victor.reactive.exceptions.handler;
+
+import java.util.Date;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+
+import br.com.victor.exceptions.ConcurrentUpdateException;
+import br.com.victor.exceptions.ExceptionResponse;
+import br.com.victor.exceptions.RequiredObjectIsNullException;
+import br.com.victor.exceptions.ResourceNotFoundException;
+
+// o mesmo corpo de erro do CustomizedResponseEntityExceptionHandler para as excecoes que a variante reativa lanca
+@ControllerAdvice
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
+	
+	@ExceptionHandler(Exception.class)
+	public final ResponseEntity<ExceptionResponse> handleAllException(
+			Exception ex, ServerWebExchange exchange) {
+		
+		return response(ex, exchange, HttpStatus.INTERNAL_SERVER_ERROR);
+	}
+	
+	@ExceptionHandler(ResourceNotFoundException.class)
+	public final ResponseEntity<ExceptionResponse> handleNoFoundExceptions(
+			Exception ex, ServerWebExchange exchange) {
+		
+		return response(ex, exchange, HttpStatus.NOT_FOUND);
+	}
+	
+	@ExceptionHandler(RequiredObjectIsNullException.class)
+	public final ResponseEntity<ExceptionResponse> handleBadRequestExceptions(
+			Exception ex, ServerWebExchange exchange) {
+		
+		return response(ex, exchange, HttpStatus.BAD_REQUEST);
+	}
+	
+	@ExceptionHandler(ConcurrentUpdateException.class)
+	public final ResponseEntity<ExceptionResponse> handleConflictExceptions(
+			Exception ex, ServerWebExchange exchange) {
+		
+		return response(ex, exchange, HttpStatus.CONFLICT);
+	}
+	
+	// details no mesmo formato do WebRequest.getDescription(false) da API servlet
+	private static ResponseEntity<ExceptionResponse> response(Exception ex, ServerWebExchange exchange, HttpStatus status) {
+		ExceptionResponse exceptionResponse = new ExceptionResponse(
+				new Date(),
+				ex.getMessage(),
+				"uri=" + exchange.getRequest().getPath().value());
+		
+		return new ResponseEntity<>(exceptionResponse, status);
+	}
+}
@@ -0,0 +1,83 @@
+package br.com.victor.reactive.hateoas;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Links HATEOAS da variante reativa, no lugar do {@code SelfLinkFactory} (que depende do request
+ * servlet via {@code WebMvcLinkBuilder}). A URI base sai do proprio request uma vez, e cada item so
+ * acrescenta o id; as paginas usam os mesmos parametros page/limit/direction/count da API servlet.
+ */
+public final class ReactiveSelfLinks {
+	
+	private final String baseUri;
+	
+	private ReactiveSelfLinks(String baseUri) {
+		this.baseUri = baseUri;
+	}
+	
+	// basePath: o @RequestMapping do controller (ex.: /api/person/v1)
+	public static ReactiveSelfLinks forRequest(ServerHttpRequest request, String basePath) {
+		String baseUri = UriComponentsBuilder.fromUri(request.getURI())
+				.replacePath(basePath)
+				.replaceQuery(null)
+				.fragment(null)
+				.build()
+				.toUriString();
+		return new ReactiveSelfLinks(baseUri);
+	}
+	
+	public Link forId(Object id) {
+		return Link.of(baseUri + "/" + id, IanaLinkRelations.SELF);
+	}
+	
+	public Link forPage(String path, int page, int limit, String direction, boolean withCount, LinkRelation relation) {
+		UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(baseUri + path)
+				.queryParam("page", page)
+				.queryParam("limit", limit)
+				.queryParam("direction", direction);
+		// pagina sem total: o proximo request tambem pula o COUNT
+		if (!withCount) builder.queryParam("count", false);
+		return Link.of(builder.build().toUriString(), relation);
+	}
+	
+	/**
+	 * Monta a pagina como a API servlet: com total ha PageMetadata e links first/prev/self/next/last;
+	 * sem total (total nulo) nao ha metadata, e o next sai de {@code hasNext} (a consulta busca limit + 1).
+	 */
+	public <T> PagedModel<EntityModel<T>> toPagedModel(List<T> content, String path, int page, int limit,
+			String direction, Long total, boolean hasNext) {
+		
+		List<EntityModel<T>> models = content.stream().map(EntityModel::of).collect(Collectors.toList());
+		boolean withCount = total != null;
+		
+		List<Link> links = new ArrayList<>();
+		if (!withCount) {
+			links.add(forPage(path, page, limit, direction, false, IanaLinkRelations.SELF));
+			if (hasNext) links.add(forPage(path, page + 1, limit, direction, false, IanaLinkRelations.NEXT));
+			if (page > 0) links.add(forPage(path, page - 1, limit, direction, false, IanaLinkRelations.PREV));
+			return PagedModel.of(models, (PagedModel.PageMetadata) null, links);
+		}
+		
+		long totalPages = limit == 0 ? 0 : (total + limit - 1) / limit;
+		if (page > 0) {
+			links.add(forPage(path, 0, limit, direction, true, IanaLinkRelations.FIRST));
+			links.add(forPage(path, page - 1, limit, direction, true, IanaLinkRelations.PREV));
+		}
+		links.add(forPage(path, page, limit, direction, true, IanaLinkRelations.SELF));
+		if (page + 1 < totalPages) {
+			links.add(forPage(path, page + 1, limit, direction, true, IanaLinkRelations.NEXT));
+			links.add(forPage(path, (int) totalPages - 1, limit, direction, true, IanaLinkRelations.LAST));
+		}
+		return PagedModel.of(models, new PagedModel.PageMetadata(limit, page, total, totalPages), links);
+	}
+}
@@ -0,0 +1,126 @@
+package br.com.victor.reactive.repositories;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import br.com.victor.data.vo.v1.BookVO;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Acesso reativo a tabela books, no mesmo formato do {@link ReactivePersonRepository}. As datas sao
+ * lidas e gravadas em UTC, como a URL JDBC da API servlet (serverTimezone=UTC).
+ */
+@Repository
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveBookRepository {
+	
+	private static final String SELECT = "SELECT id, author, launch_date, price, title, version FROM books";
+	
+	@Autowired
+	DatabaseClient client;
+	
+	@Autowired
+	TransactionalOperator transactionalOperator;
+	
+	public Mono<BookVO> findById(Long id) {
+		return client.sql(SELECT + " WHERE id = :id")
+				.bind("id", id)
+				.map(ReactiveBookRepository::toVO)
+				.one();
+	}
+	
+	// limit + 1 linhas: a linha extra so diz se existe proxima pagina, sem COUNT
+	public Flux<BookVO> findBooks(int page, int limit, boolean ascending) {
+		String direction = ascending ? "ASC" : "DESC";
+		return client.sql(SELECT + " ORDER BY title " + direction + ", id " + direction + " LIMIT :limit OFFSET :offset")
+				.bind("limit", limit + 1)
+				.bind("offset", (long) page * limit)
+				.map(ReactiveBookRepository::toVO)
+				.all();
+	}
+	
+	public Mono<Long> count() {
+		return client.sql("SELECT COUNT(*) FROM books")
+				.map(row -> ReactivePersonRepository.toLong(row.get(0)))
+				.one();
+	}
+	
+	public Mono<BookVO> insert(BookVO book) {
+		return allocateId().flatMap(id -> client.sql("INSERT INTO books (id, author, launch_date, price, title, version) "
+					+ "VALUES (:id, :author, :launchDate, :price, :title, 0)")
+				.bind("id", id)
+				.bind("author", book.getAuthor())
+				.bind("launchDate", toDateTime(book.getLaunchDate()))
+				.bind("price", book.getPrice())
+				.bind("title", book.getTitle())
+				.fetch()
+				.rowsUpdated()
+				.thenReturn(new BookVO(id, book.getAuthor(), book.getLaunchDate(), book.getPrice(), book.getTitle(), 0L)));
+	}
+	
+	// a versao so e conferida quando informada (null = ultima escrita vence) e sempre incrementa
+	public Mono<Long> update(BookVO book) {
+		String sql = "UPDATE books SET author = :author, launch_date = :launchDate, price = :price, title = :title, "
+				+ "version = version + 1 WHERE id = :id" + (book.getVersion() != null ? " AND version = :version" : "");
+		DatabaseClient.GenericExecuteSpec spec = client.sql(sql)
+				.bind("author", book.getAuthor())
+				.bind("launchDate", toDateTime(book.getLaunchDate()))
+				.bind("price", book.getPrice())
+				.bind("title", book.getTitle())
+				.bind("id", book.getId());
+		if (book.getVersion() != null) spec = spec.bind("version", book.getVersion());
+		return spec.fetch().rowsUpdated();
+	}
+	
+	public Mono<Boolean> existsById(Long id) {
+		return client.sql("SELECT 1 FROM books WHERE id = :id")
+				.bind("id", id)
+				.map(row -> Boolean.TRUE)
+				.first()
+				.defaultIfEmpty(Boolean.FALSE);
+	}
+	
+	public Mono<Long> deleteById(Long id) {
+		return client.sql("DELETE FROM books WHERE id = :id")
+				.bind("id", id)
+				.fetch()
+				.rowsUpdated();
+	}
+	
+	// mesmo protocolo do optimizer pooled-lo: next_val e o primeiro id livre
+	private Mono<Long> allocateId() {
+		return client.sql("SELECT next_val FROM books_seq FOR UPDATE")
+				.map(row -> ReactivePersonRepository.toLong(row.get(0)))
+				.one()
+				.flatMap(next -> client.sql("UPDATE books_seq SET next_val = :next")
+						.bind("next", next + 1)
+						.fetch()
+						.rowsUpdated()
+						.thenReturn(next))
+				.as(transactionalOperator::transactional);
+	}
+	
+	private static BookVO toVO(Row row, RowMetadata metadata) {
+		LocalDateTime launchDate = row.get("launch_date", LocalDateTime.class);
+		Object price = row.get("price");
+		return new BookVO(ReactivePersonRepository.toLong(row.get("id")), row.get("author", String.class),
+				launchDate == null ? null : Date.from(launchDate.toInstant(ZoneOffset.UTC)),
+				price == null ? null : ((Number) price).doubleValue(),
+				row.get("title", String.class), ReactivePersonRepository.toLong(row.get("version")));
+	}
+	
+	private static LocalDateTime toDateTime(Date date) {
+		return LocalDateTime.ofInstant(date.toInstant(), ZoneOffset.UTC);
+	}
+}
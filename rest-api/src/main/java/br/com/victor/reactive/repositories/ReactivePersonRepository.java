@@ -0,0 +1,160 @@
+package br.com.victor.reactive.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import br.com.victor.data.vo.v1.PersonVO;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Acesso reativo a tabela person, com o mesmo SQL que o PersonRepository gera: leituras direto no VO,
+ * update/delete num unico comando e ids da tabela person_seq (V16), entao os inserts daqui nao colidem
+ * com os blocos que o Hibernate reserva na API servlet.
+ */
+@Repository
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactivePersonRepository {
+	
+	// tamanho do token do parser ngram, como no PersonRepository
+	private static final int NGRAM_TOKEN_SIZE = 2;
+	
+	private static final String SELECT = "SELECT id, first_name, last_name, address, gender, version FROM person";
+	
+	@Autowired
+	DatabaseClient client;
+	
+	@Autowired
+	TransactionalOperator transactionalOperator;
+	
+	public Mono<PersonVO> findById(Long id) {
+		return client.sql(SELECT + " WHERE id = :id")
+				.bind("id", id)
+				.map(ReactivePersonRepository::toVO)
+				.one();
+	}
+	
+	// limit + 1 linhas: a linha extra so diz se existe proxima pagina, sem COUNT
+	public Flux<PersonVO> findPeople(int page, int limit, boolean ascending) {
+		return client.sql(SELECT + " ORDER BY " + orderBy(ascending) + " LIMIT :limit OFFSET :offset")
+				.bind("limit", limit + 1)
+				.bind("offset", (long) page * limit)
+				.map(ReactivePersonRepository::toVO)
+				.all();
+	}
+	
+	public Mono<Long> count() {
+		return client.sql("SELECT COUNT(*) FROM person")
+				.map(row -> toLong(row.get(0)))
+				.one();
+	}
+	
+	// FULLTEXT ngram (V14) para termos do tamanho do token ou maiores; os menores usam o LIKE '%termo%' de sempre
+	public Flux<PersonVO> findPersonsByName(String firstName, int page, int limit, boolean ascending) {
+		String term = firstName.trim();
+		String where = term.length() < NGRAM_TOKEN_SIZE
+				? " WHERE first_name LIKE CONCAT('%', :term, '%')"
+				: " WHERE MATCH(first_name) AGAINST (:term IN BOOLEAN MODE)";
+		return client.sql(SELECT + where + " ORDER BY " + orderBy(ascending) + " LIMIT :limit OFFSET :offset")
+				.bind("term", toSearchTerm(term))
+				.bind("limit", limit + 1)
+				.bind("offset", (long) page * limit)
+				.map(ReactivePersonRepository::toVO)
+				.all();
+	}
+	
+	public Mono<Long> countPersonsByName(String firstName) {
+		String term = firstName.trim();
+		String where = term.length() < NGRAM_TOKEN_SIZE
+				? " WHERE first_name LIKE CONCAT('%', :term, '%')"
+				: " WHERE MATCH(first_name) AGAINST (:term IN BOOLEAN MODE)";
+		return client.sql("SELECT COUNT(*) FROM person" + where)
+				.bind("term", toSearchTerm(term))
+				.map(row -> toLong(row.get(0)))
+				.one();
+	}
+	
+	// o id sai de uma transacao curta e separada, como no ImportService; o INSERT ja leva a versao 0
+	public Mono<PersonVO> insert(PersonVO person) {
+		return allocateId().flatMap(id -> client.sql("INSERT INTO person (id, first_name, last_name, address, gender, version) "
+					+ "VALUES (:id, :firstName, :lastName, :address, :gender, 0)")
+				.bind("id", id)
+				.bind("firstName", person.getFirstName())
+				.bind("lastName", person.getLastName())
+				.bind("address", person.getAddress())
+				.bind("gender", person.getGender())
+				.fetch()
+				.rowsUpdated()
+				.thenReturn(new PersonVO(id, person.getFirstName(), person.getLastName(), person.getAddress(), person.getGender(), 0L)));
+	}
+	
+	// a versao so e conferida quando informada (null = ultima escrita vence) e sempre incrementa
+	public Mono<Long> update(PersonVO person) {
+		String sql = "UPDATE person SET first_name = :firstName, last_name = :lastName, address = :address, gender = :gender, "
+				+ "version = version + 1 WHERE id = :id" + (person.getVersion() != null ? " AND version = :version" : "");
+		DatabaseClient.GenericExecuteSpec spec = client.sql(sql)
+				.bind("firstName", person.getFirstName())
+				.bind("lastName", person.getLastName())
+				.bind("address", person.getAddress())
+				.bind("gender", person.getGender())
+				.bind("id", person.getId());
+		if (person.getVersion() != null) spec = spec.bind("version", person.getVersion());
+		return spec.fetch().rowsUpdated();
+	}
+	
+	public Mono<Boolean> existsById(Long id) {
+		return client.sql("SELECT 1 FROM person WHERE id = :id")
+				.bind("id", id)
+				.map(row -> Boolean.TRUE)
+				.first()
+				.defaultIfEmpty(Boolean.FALSE);
+	}
+	
+	public Mono<Long> deleteById(Long id) {
+		return client.sql("DELETE FROM person WHERE id = :id")
+				.bind("id", id)
+				.fetch()
+				.rowsUpdated();
+	}
+	
+	// mesmo protocolo do optimizer pooled-lo: next_val e o primeiro id livre
+	private Mono<Long> allocateId() {
+		return client.sql("SELECT next_val FROM person_seq FOR UPDATE")
+				.map(row -> toLong(row.get(0)))
+				.one()
+				.flatMap(next -> client.sql("UPDATE person_seq SET next_val = :next")
+						.bind("next", next + 1)
+						.fetch()
+						.rowsUpdated()
+						.thenReturn(next))
+				.as(transactionalOperator::transactional);
+	}
+	
+	// mesma ordem da API servlet (firstName), com o id de desempate para as paginas nao repetirem linhas
+	private static String orderBy(boolean ascending) {
+		String direction = ascending ? "ASC" : "DESC";
+		return "first_name " + direction + ", id " + direction;
+	}
+	
+	// frase entre aspas no BOOLEAN MODE: os operadores do termo viram texto literal
+	private static String toSearchTerm(String term) {
+		if (term.length() < NGRAM_TOKEN_SIZE) return term;
+		return '"' + term.replace("\"", " ") + '"';
+	}
+	
+	private static PersonVO toVO(Row row, RowMetadata metadata) {
+		return new PersonVO(toLong(row.get("id")), row.get("first_name", String.class), row.get("last_name", String.class),
+				row.get("address", String.class), row.get("gender", String.class), toLong(row.get("version")));
+	}
+	
+	// o driver devolve Integer ou Long conforme o tipo da coluna
+	static Long toLong(Object value) {
+		return value == null ? null : ((Number) value).longValue();
+	}
+}
@@ -0,0 +1,128 @@
+package br.com.victor.reactive.services;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.stereotype.Service;
+
+import br.com.victor.data.vo.v1.BookVO;
+import br.com.victor.exceptions.ConcurrentUpdateException;
+import br.com.victor.exceptions.RequiredObjectIsNullException;
+import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.reactive.hateoas.ReactiveSelfLinks;
+import br.com.victor.reactive.repositories.ReactiveBookRepository;
+import br.com.victor.services.BookServices;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// mesmas respostas do BookServices, montadas sobre o ReactiveBookRepository sem bloquear o event loop
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveBookServices {
+	
+	private Logger logger = Logger.getLogger(ReactiveBookServices.class.getName());
+	
+	@Autowired
+	ReactiveBookRepository repository;
+	
+	public Mono<PagedModel<EntityModel<BookVO>>> findAll(Pageable pageable, boolean withCount, ReactiveSelfLinks links) {
+		
+		logger.info("Finding all books");
+		
+		boolean ascending = isAscending(pageable);
+		Flux<BookVO> books = repository.findBooks(pageable.getPageNumber(), pageable.getPageSize(), ascending);
+		Mono<Long> total = withCount ? repository.count() : null;
+		
+		return toPagedModel(books, total, pageable, ascending, links, "");
+	}
+	
+	public Mono<BookVO> findById(Long id, ReactiveSelfLinks links) {
+		
+		logger.info("Finding one book");
+		
+		return repository.findById(id)
+				.switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("No records found this ID")))
+				.map(vo -> withSelfLink(vo, links));
+	}
+	
+	public Mono<BookVO> create(BookVO book, ReactiveSelfLinks links) {
+		
+		if (book == null) return Mono.error(new RequiredObjectIsNullException());
+		
+		logger.info("Create one book");
+		
+		// o INSERT direto nao tem as restricoes da entidade: valida antes, com as regras dos endpoints /bulk
+		String error = BookServices.validate(book);
+		if (error != null) return Mono.error(new RequiredObjectIsNullException(error));
+		
+		return repository.insert(book).map(vo -> withSelfLink(vo, links));
+	}
+	
+	public Mono<BookVO> update(BookVO book, ReactiveSelfLinks links) {
+		
+		if (book == null) return Mono.error(new RequiredObjectIsNullException());
+		
+		logger.info("Update one book");
+		
+		String error = BookServices.validate(book);
+		if (error == null && book.getId() == null) error = "Id is required";
+		if (error != null) return Mono.error(new RequiredObjectIsNullException(error));
+		
+		return repository.update(book).flatMap(updated -> {
+			if (updated > 0) return Mono.just(book);
+			// com versao, nenhuma linha afetada pode ser o id existindo numa versao mais nova
+			Mono<Boolean> exists = book.getVersion() != null ? repository.existsById(book.getId()) : Mono.just(false);
+			return exists.flatMap(found -> Mono.<BookVO>error(found
+					? new ConcurrentUpdateException()
+					: new ResourceNotFoundException("No records found this ID")));
+		}).map(updated -> {
+			BookVO vo = new BookVO(updated.getId(), updated.getAuthor(), updated.getLaunchDate(),
+					updated.getPrice(), updated.getTitle(), null);
+			// a versao nova so e conhecida quando o cliente mandou a anterior
+			if (updated.getVersion() != null) vo.setVersion(updated.getVersion() + 1);
+			return withSelfLink(vo, links);
+		});
+	}
+	
+	public Mono<Void> delete(Long id) {
+		
+		logger.info("Delete one book");
+		
+		return repository.deleteById(id)
+				.flatMap(deleted -> deleted > 0
+						? Mono.<Void>empty()
+						: Mono.<Void>error(new ResourceNotFoundException("No records found this ID")));
+	}
+	
+	// conteudo e total em paralelo, em conexoes diferentes do pool; sem total (count=false) so o conteudo
+	private Mono<PagedModel<EntityModel<BookVO>>> toPagedModel(Flux<BookVO> books, Mono<Long> total, Pageable pageable,
+			boolean ascending, ReactiveSelfLinks links, String path) {
+		
+		int limit = pageable.getPageSize();
+		Mono<List<BookVO>> content = books.map(vo -> withSelfLink(vo, links)).collectList();
+		Mono<Optional<Long>> optionalTotal = total == null ? Mono.just(Optional.empty()) : total.map(Optional::of);
+		
+		return Mono.zip(content, optionalTotal).map(result -> {
+			List<BookVO> rows = result.getT1();
+			boolean hasNext = rows.size() > limit;
+			return links.toPagedModel(hasNext ? rows.subList(0, limit) : rows, path, pageable.getPageNumber(), limit,
+					ascending ? "asc" : "desc", result.getT2().orElse(null), hasNext);
+		});
+	}
+	
+	private static boolean isAscending(Pageable pageable) {
+		return pageable.getSort().stream().allMatch(order -> order.isAscending());
+	}
+	
+	private BookVO withSelfLink(BookVO vo, ReactiveSelfLinks links) {
+		vo.add(links.forId(vo.getId()));
+		return vo;
+	}
+}
@@ -0,0 +1,143 @@
+package br.com.victor.reactive.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.exceptions.ConcurrentUpdateException;
+import br.com.victor.exceptions.RequiredObjectIsNullException;
+import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.reactive.hateoas.ReactiveSelfLinks;
+import br.com.victor.reactive.repositories.ReactivePersonRepository;
+import br.com.victor.services.PersonServices;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// mesmas respostas do PersonServices, montadas sobre o ReactivePersonRepository sem bloquear o event loop
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactivePersonServices {
+	
+	private Logger logger = Logger.getLogger(ReactivePersonServices.class.getName());
+	
+	@Autowired
+	ReactivePersonRepository repository;
+	
+	public Mono<PagedModel<EntityModel<PersonVO>>> findAll(Pageable pageable, boolean withCount, ReactiveSelfLinks links) {
+		
+		logger.info("Finding all persons");
+		
+		boolean ascending = isAscending(pageable);
+		Flux<PersonVO> people = repository.findPeople(pageable.getPageNumber(), pageable.getPageSize(), ascending);
+		Mono<Long> total = withCount ? repository.count() : null;
+		
+		return toPagedModel(people, total, pageable, ascending, links, "");
+	}
+	
+	public Mono<PagedModel<EntityModel<PersonVO>>> findPersonByName(String firstName, Pageable pageable, boolean withCount,
+			ReactiveSelfLinks links) {
+		
+		logger.info("Finding persons by name");
+		
+		boolean ascending = isAscending(pageable);
+		Flux<PersonVO> people = repository.findPersonsByName(firstName, pageable.getPageNumber(), pageable.getPageSize(), ascending);
+		Mono<Long> total = withCount ? repository.countPersonsByName(firstName) : null;
+		String path = "/findPersonByName/" + UriUtils.encodePathSegment(firstName, StandardCharsets.UTF_8);
+		
+		return toPagedModel(people, total, pageable, ascending, links, path);
+	}
+	
+	public Mono<PersonVO> findById(Long id, ReactiveSelfLinks links) {
+		
+		logger.info("Finding one person");
+		
+		return repository.findById(id)
+				.switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("No records found this ID")))
+				.map(vo -> withSelfLink(vo, links));
+	}
+	
+	public Mono<PersonVO> create(PersonVO person, ReactiveSelfLinks links) {
+		
+		if (person == null) return Mono.error(new RequiredObjectIsNullException());
+		
+		logger.info("Create one person");
+		
+		// o INSERT direto nao tem as restricoes da entidade: valida antes, com as regras dos endpoints /bulk
+		String error = PersonServices.validate(person);
+		if (error != null) return Mono.error(new RequiredObjectIsNullException(error));
+		
+		return repository.insert(person).map(vo -> withSelfLink(vo, links));
+	}
+	
+	public Mono<PersonVO> update(PersonVO person, ReactiveSelfLinks links) {
+		
+		if (person == null) return Mono.error(new RequiredObjectIsNullException());
+		
+		logger.info("Update one person");
+		
+		String error = PersonServices.validate(person);
+		if (error == null && person.getId() == null) error = "Id is required";
+		if (error != null) return Mono.error(new RequiredObjectIsNullException(error));
+		
+		return repository.update(person).flatMap(updated -> {
+			if (updated > 0) return Mono.just(person);
+			// com versao, nenhuma linha afetada pode ser o id existindo numa versao mais nova
+			Mono<Boolean> exists = person.getVersion() != null ? repository.existsById(person.getId()) : Mono.just(false);
+			return exists.flatMap(found -> Mono.<PersonVO>error(found
+					? new ConcurrentUpdateException()
+					: new ResourceNotFoundException("No records found this ID")));
+		}).map(updated -> {
+			PersonVO vo = new PersonVO(updated.getId(), updated.getFirstName(), updated.getLastName(),
+					updated.getAddress(), updated.getGender(), null);
+			// a versao nova so e conhecida quando o cliente mandou a anterior
+			if (updated.getVersion() != null) vo.setVersion(updated.getVersion() + 1);
+			return withSelfLink(vo, links);
+		});
+	}
+	
+	public Mono<Void> delete(Long id) {
+		
+		logger.info("Delete one person");
+		
+		return repository.deleteById(id)
+				.flatMap(deleted -> deleted > 0
+						? Mono.<Void>empty()
+						: Mono.<Void>error(new ResourceNotFoundException("No records found this ID")));
+	}
+	
+	// conteudo e total em paralelo, em conexoes diferentes do pool; sem total (count=false) so o conteudo
+	private Mono<PagedModel<EntityModel<PersonVO>>> toPagedModel(Flux<PersonVO> people, Mono<Long> total, Pageable pageable,
+			boolean ascending, ReactiveSelfLinks links, String path) {
+		
+		int limit = pageable.getPageSize();
+		Mono<List<PersonVO>> content = people.map(vo -> withSelfLink(vo, links)).collectList();
+		Mono<Optional<Long>> optionalTotal = total == null ? Mono.just(Optional.empty()) : total.map(Optional::of);
+		
+		return Mono.zip(content, optionalTotal).map(result -> {
+			List<PersonVO> rows = result.getT1();
+			boolean hasNext = rows.size() > limit;
+			return links.toPagedModel(hasNext ? rows.subList(0, limit) : rows, path, pageable.getPageNumber(), limit,
+					ascending ? "asc" : "desc", result.getT2().orElse(null), hasNext);
+		});
+	}
+	
+	private static boolean isAscending(Pageable pageable) {
+		return pageable.getSort().stream().allMatch(order -> order.isAscending());
+	}
+	
+	private PersonVO withSelfLink(PersonVO vo, ReactiveSelfLinks links) {
+		vo.add(links.forId(vo.getId()));
+		return vo;
+	}
+}
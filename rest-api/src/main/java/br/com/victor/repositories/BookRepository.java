@@ -1,9 +1,52 @@
 package br.com.victor.repositories;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import br.com.victor.data.vo.v1.BookVO;
 import br.com.victor.model.Book;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+	// update/delete num unico comando, sem carregar a entidade; o numero de linhas afetadas diz se o id
+	// existia. A versao so e conferida quando informada (null = ultima escrita vence) e sempre incrementa
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE Book b SET b.author = :author, b.launchDate = :launchDate, b.price = :price, b.title = :title, "
+			+ "b.version = b.version + 1 WHERE b.id = :id AND (:version IS NULL OR b.version = :version)")
+	int updateBook(@Param("id") Long id, @Param("author") String author, @Param("launchDate") Date launchDate,
+			@Param("price") Double price, @Param("title") String title, @Param("version") Long version);
+	
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("DELETE FROM Book b WHERE b.id = :id")
+	int deleteBookById(@Param("id") Long id);
+	
+	// ids que existem entre os pedidos (delete em lote: o que nao existe vira 404 no resultado)
+	@Query("SELECT b.id FROM Book b WHERE b.id IN :ids")
+	List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+	
+	// leituras (GET) direto no VO: o Hibernate nao gerencia entidades nem guarda snapshot para dirty checking
+	@Query("SELECT new br.com.victor.data.vo.v1.BookVO(b.id, b.author, b.launchDate, b.price, b.title, b.version) FROM Book b WHERE b.id = :id")
+	Optional<BookVO> findVOById(@Param("id") Long id);
+	
+	// paginacao por keyset em (title, id): Slice busca limit + 1 linhas e nao dispara COUNT
+	@Query("SELECT new br.com.victor.data.vo.v1.BookVO(b.id, b.author, b.launchDate, b.price, b.title, b.version) FROM Book b")
+	Slice<BookVO> findBooksSlice(Pageable pageable);
+	
+	@Query("SELECT new br.com.victor.data.vo.v1.BookVO(b.id, b.author, b.launchDate, b.price, b.title, b.version) FROM Book b WHERE b.title > :title OR (b.title = :title AND b.id > :id) ORDER BY b.title ASC, b.id ASC")
+	Slice<BookVO> findBooksAfter(@Param("title") String title, @Param("id") Long id, Pageable pageable);
+	
+	@Query("SELECT new br.com.victor.data.vo.v1.BookVO(b.id, b.author, b.launchDate, b.price, b.title, b.version) FROM Book b WHERE b.title < :title OR (b.title = :title AND b.id < :id) ORDER BY b.title DESC, b.id DESC")
+	Slice<BookVO> findBooksBefore(@Param("title") String title, @Param("id") Long id, Pageable pageable);
 }
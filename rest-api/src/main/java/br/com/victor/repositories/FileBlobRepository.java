@@ -0,0 +1,31 @@
+package br.com.victor.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import br.com.victor.model.FileBlob;
+import jakarta.persistence.LockModeType;
+
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+	
+	// cria o blob com uma referencia ou soma mais uma; o lock da linha serializa uploads e remocoes do mesmo hash
+	@Modifying
+	@Query(value = "INSERT INTO file_blob (hash, size, ref_count) VALUES (:hash, :size, 1) ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+	int acquire(@Param("hash") String hash, @Param("size") long size);
+	
+	@Modifying
+	@Query("UPDATE FileBlob b SET b.refCount = b.refCount - 1 WHERE b.hash = :hash")
+	int release(@Param("hash") String hash);
+	
+	@Modifying
+	@Query("DELETE FROM FileBlob b WHERE b.hash = :hash AND b.refCount <= 0")
+	int deleteUnreferenced(@Param("hash") String hash);
+	
+	// trava a linha ou, quando ela nao existe, o intervalo do indice: um acquire do mesmo hash espera o fim da transacao
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT b FROM FileBlob b WHERE b.hash = :hash")
+	FileBlob findByHashForUpdate(@Param("hash") String hash);
+}
@@ -1,15 +1,125 @@
 package br.com.victor.repositories;
 
-import org.springframework.data.domain.Page;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import br.com.victor.data.vo.v1.PersonVO;
 import br.com.victor.model.Person;
 
 public interface PersonRepository extends JpaRepository<Person, Long> {
 	
-	@Query("SELECT p FROM Person p WHERE p.firstName LIKE LOWER(CONCAT ('%',:firstName,'%'))")
-	Page<Person> findPersonsByName(@Param("firstName") String firstName, Pageable pageable);
+	// tamanho do token do parser ngram (ngram_token_size); termos menores nao aparecem no indice FULLTEXT
+	int NGRAM_TOKEN_SIZE = 2;
+	
+	// busca por substring usando o indice FULLTEXT ngram (V14); termos curtos demais para o indice
+	// continuam no LIKE '%termo%' original (mesmo resultado, sem indice).
+	// conteudo e total em consultas separadas: o total pode vir do cache ou nem ser calculado
+	default Slice<PersonVO> findPersonsByName(String firstName, Pageable pageable) {
+		String term = firstName.trim();
+		if (term.length() < NGRAM_TOKEN_SIZE) return findPersonsByNameContaining(term, pageable);
+		return searchPersonsByName(toPhrase(term), toColumns(pageable))
+				.map(row -> new PersonVO(row.getId(), row.getFirstName(), row.getLastName(), row.getAddress(), row.getGender(), row.getVersion()));
+	}
+	
+	default long countPersonsByName(String firstName) {
+		String term = firstName.trim();
+		if (term.length() < NGRAM_TOKEN_SIZE) return countPersonsByNameContaining(term);
+		return countSearchPersonsByName(toPhrase(term));
+	}
+	
+	// consulta nativa nao aceita SELECT new: projecao por interface, com os aliases iguais aos getters
+	@Query(value = "SELECT id, first_name AS firstName, last_name AS lastName, address, gender, version FROM person "
+			+ "WHERE MATCH(first_name) AGAINST (:term IN BOOLEAN MODE)", nativeQuery = true)
+	Slice<PersonRow> searchPersonsByName(@Param("term") String term, Pageable pageable);
+	
+	@Query(value = "SELECT COUNT(*) FROM person WHERE MATCH(first_name) AGAINST (:term IN BOOLEAN MODE)", nativeQuery = true)
+	long countSearchPersonsByName(@Param("term") String term);
+	
+	// a collation da coluna ja e case-insensitive: sem o LOWER de um lado so
+	@Query("SELECT new br.com.victor.data.vo.v1.PersonVO(p.id, p.firstName, p.lastName, p.address, p.gender, p.version) FROM Person p WHERE p.firstName LIKE CONCAT('%', :firstName, '%')")
+	Slice<PersonVO> findPersonsByNameContaining(@Param("firstName") String firstName, Pageable pageable);
+	
+	@Query("SELECT COUNT(p) FROM Person p WHERE p.firstName LIKE CONCAT('%', :firstName, '%')")
+	long countPersonsByNameContaining(@Param("firstName") String firstName);
+	
+	// update/delete num unico comando, sem carregar a entidade; o numero de linhas afetadas diz se o id
+	// existia. A versao so e conferida quando informada (null = ultima escrita vence) e sempre incrementa
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE Person p SET p.firstName = :firstName, p.lastName = :lastName, p.address = :address, p.gender = :gender, "
+			+ "p.version = p.version + 1 WHERE p.id = :id AND (:version IS NULL OR p.version = :version)")
+	int updatePerson(@Param("id") Long id, @Param("firstName") String firstName, @Param("lastName") String lastName,
+			@Param("address") String address, @Param("gender") String gender, @Param("version") Long version);
+	
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("DELETE FROM Person p WHERE p.id = :id")
+	int deletePersonById(@Param("id") Long id);
+	
+	// ids que existem entre os pedidos (delete em lote: o que nao existe vira 404 no resultado)
+	@Query("SELECT p.id FROM Person p WHERE p.id IN :ids")
+	List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+	
+	// leituras (GET) direto no VO: o Hibernate nao gerencia entidades nem guarda snapshot para dirty checking
+	@Query("SELECT new br.com.victor.data.vo.v1.PersonVO(p.id, p.firstName, p.lastName, p.address, p.gender, p.version) FROM Person p WHERE p.id = :id")
+	Optional<PersonVO> findVOById(@Param("id") Long id);
+	
+	// paginacao por keyset em (firstName, id): Slice busca limit + 1 linhas e nao dispara COUNT
+	@Query("SELECT new br.com.victor.data.vo.v1.PersonVO(p.id, p.firstName, p.lastName, p.address, p.gender, p.version) FROM Person p")
+	Slice<PersonVO> findPeopleSlice(Pageable pageable);
+	
+	@Query("SELECT new br.com.victor.data.vo.v1.PersonVO(p.id, p.firstName, p.lastName, p.address, p.gender, p.version) FROM Person p WHERE p.firstName > :firstName OR (p.firstName = :firstName AND p.id > :id) ORDER BY p.firstName ASC, p.id ASC")
+	Slice<PersonVO> findPeopleAfter(@Param("firstName") String firstName, @Param("id") Long id, Pageable pageable);
+	
+	@Query("SELECT new br.com.victor.data.vo.v1.PersonVO(p.id, p.firstName, p.lastName, p.address, p.gender, p.version) FROM Person p WHERE p.firstName < :firstName OR (p.firstName = :firstName AND p.id < :id) ORDER BY p.firstName DESC, p.id DESC")
+	Slice<PersonVO> findPeopleBefore(@Param("firstName") String firstName, @Param("id") Long id, Pageable pageable);
+	
+	// linha da busca FULLTEXT nativa
+	interface PersonRow {
+		
+		Long getId();
+		
+		String getFirstName();
+		
+		String getLastName();
+		
+		String getAddress();
+		
+		String getGender();
+		
+		Long getVersion();
+	}
+	
+	// frase entre aspas no BOOLEAN MODE: os operadores (+ - * " ...) do termo viram texto literal
+	private static String toPhrase(String term) {
+		return '"' + term.replace("\"", " ") + '"';
+	}
+	
+	// a consulta nativa ordena pelas colunas da tabela, nao pelos atributos da entidade
+	private static Pageable toColumns(Pageable pageable) {
+		Sort sort = Sort.by(pageable.getSort().stream()
+				.map(order -> order.withProperty(toColumn(order.getProperty())))
+				.collect(Collectors.toList()));
+		return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+	}
+	
+	private static String toColumn(String property) {
+		switch (property) {
+			case "firstName": return "first_name";
+			case "lastName": return "last_name";
+			default: return property;
+		}
+	}
 }
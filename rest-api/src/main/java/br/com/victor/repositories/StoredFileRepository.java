@@ -0,0 +1,20 @@
+package br.com.victor.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import br.com.victor.model.StoredFile;
+import jakarta.persistence.LockModeType;
+
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+	
+	@Query("SELECT f FROM StoredFile f WHERE f.fileName = :fileName")
+	StoredFile findByFileName(@Param("fileName") String fileName);
+	
+	// trava o nome enquanto ele passa a apontar para outro blob
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT f FROM StoredFile f WHERE f.fileName = :fileName")
+	StoredFile findByFileNameForUpdate(@Param("fileName") String fileName);
+}
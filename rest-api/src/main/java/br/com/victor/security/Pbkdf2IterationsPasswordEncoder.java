@@ -0,0 +1,74 @@
+package br.com.victor.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm;
+
+/**
+ * PBKDF2 que grava o numero de iteracoes junto do hash ({@code <iteracoes>$<salt+hash em hex>}).
+ * O {@link Pbkdf2PasswordEncoder} nao guarda o custo e o seu {@code upgradeEncoding} sempre devolve
+ * false; aqui um hash com custo diferente do configurado e regravado no proximo login valido.
+ * Hashes sem o prefixo de iteracoes sao os antigos, feitos com {@link #LEGACY_ITERATIONS}.
+ */
+public class Pbkdf2IterationsPasswordEncoder implements PasswordEncoder {
+
+	// custo usado pelo encoder original da aplicacao (hashes sem o prefixo de iteracoes)
+	public static final int LEGACY_ITERATIONS = 185000;
+
+	private static final int SALT_LENGTH = 8;
+
+	private static final char SEPARATOR = '$';
+
+	private final int iterations;
+
+	private final Map<Integer, Pbkdf2PasswordEncoder> encoders = new ConcurrentHashMap<>();
+
+	public Pbkdf2IterationsPasswordEncoder(int iterations) {
+		if (iterations <= 0) throw new IllegalArgumentException("PBKDF2 iterations must be positive");
+		this.iterations = iterations;
+	}
+
+	public static Pbkdf2PasswordEncoder withIterations(int iterations) {
+		return new Pbkdf2PasswordEncoder("", SALT_LENGTH, iterations, SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return iterations + String.valueOf(SEPARATOR) + encoder(iterations).encode(rawPassword);
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		if (encodedPassword == null) return false;
+		int stored = iterationsOf(encodedPassword);
+		if (stored <= 0) return false;
+		return encoder(stored).matches(rawPassword, hashOf(encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return encodedPassword != null && iterationsOf(encodedPassword) != iterations;
+	}
+
+	private Pbkdf2PasswordEncoder encoder(int iterations) {
+		return encoders.computeIfAbsent(iterations, Pbkdf2IterationsPasswordEncoder::withIterations);
+	}
+
+	// -1 quando o prefixo nao e um numero valido
+	private static int iterationsOf(String encodedPassword) {
+		int separator = encodedPassword.indexOf(SEPARATOR);
+		if (separator < 0) return LEGACY_ITERATIONS;
+		try {
+			return Integer.parseInt(encodedPassword.substring(0, separator));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static String hashOf(String encodedPassword) {
+		return encodedPassword.substring(encodedPassword.indexOf(SEPARATOR) + 1);
+	}
+}
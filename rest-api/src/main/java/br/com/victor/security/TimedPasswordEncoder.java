@@ -0,0 +1,56 @@
+package br.com.victor.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mede o tempo de cada hash de senha (encode/matches) do encoder real.
+ * Publicado como {@code auth.password.hash}, com a tag {@code operation}.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+	private final PasswordEncoder delegate;
+	private final Timer encodeTimer;
+	private final Timer matchesTimer;
+
+	public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry registry) {
+		this.delegate = delegate;
+		this.encodeTimer = Timer.builder("auth.password.hash")
+				.description("Password hashing latency")
+				.tag("operation", "encode")
+				.register(registry);
+		this.matchesTimer = Timer.builder("auth.password.hash")
+				.description("Password hashing latency")
+				.tag("operation", "matches")
+				.register(registry);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		long start = System.nanoTime();
+		try {
+			return delegate.encode(rawPassword);
+		} finally {
+			encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		long start = System.nanoTime();
+		try {
+			return delegate.matches(rawPassword, encodedPassword);
+		} finally {
+			matchesTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+}
@@ -0,0 +1,97 @@
+package br.com.victor.security.jwt;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Tokens ja verificados e a {@link Authentication} montada para eles. Cada entrada vive no
+ * maximo ate o {@code exp} do proprio token, entao um token expirado nunca e servido do cache.
+ * A revogacao e conferida de novo a cada leitura: um request que verificou o token antes do
+ * revoke e so gravou depois nao deixa o token revogado valendo ate o {@code exp}.
+ */
+@Component
+public class JwtAuthenticationCache {
+
+	private final Cache<String, CachedAuthentication> cache;
+
+	private final TokenRevocationList revocationList;
+
+	public JwtAuthenticationCache(@Value("${security.jwt.cache.maximum-size:10000}") long maximumSize,
+			TokenRevocationList revocationList) {
+		this.revocationList = revocationList;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new Expiry<String, CachedAuthentication>() {
+					@Override
+					public long expireAfterCreate(String token, CachedAuthentication value, long currentTime) {
+						return value.remainingNanos();
+					}
+
+					@Override
+					public long expireAfterUpdate(String token, CachedAuthentication value, long currentTime,
+							long currentDuration) {
+						return value.remainingNanos();
+					}
+
+					@Override
+					public long expireAfterRead(String token, CachedAuthentication value, long currentTime,
+							long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.build();
+	}
+
+	public Authentication get(String token) {
+		CachedAuthentication cached = cache.getIfPresent(token);
+		if (cached == null) return null;
+		if (revocationList.isRevoked(cached.authentication.getName(), cached.issuedAt)) {
+			cache.invalidate(token);
+			return null;
+		}
+		return cached.authentication;
+	}
+
+	public void put(String token, Authentication authentication, Date issuedAt, Date expiresAt) {
+		if (expiresAt == null || !expiresAt.after(new Date())) return;
+		cache.put(token, new CachedAuthentication(authentication, issuedAt, expiresAt.getTime()));
+	}
+
+	public void invalidate(String token) {
+		cache.invalidate(token);
+	}
+
+	// usado no refresh do token e quando o usuario e bloqueado/desabilitado
+	public void invalidateUser(String username) {
+		cache.asMap().values().removeIf(cached -> username.equals(cached.authentication.getName()));
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	private static final class CachedAuthentication {
+
+		private final Authentication authentication;
+		private final Date issuedAt;
+		private final long expiresAtMillis;
+
+		private CachedAuthentication(Authentication authentication, Date issuedAt, long expiresAtMillis) {
+			this.authentication = authentication;
+			this.issuedAt = issuedAt;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+
+		private long remainingNanos() {
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAtMillis - System.currentTimeMillis()));
+		}
+	}
+}
@@ -7,6 +7,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.GenericFilterBean;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
@@ -18,16 +20,31 @@ public class JwtTokenFilter extends GenericFilterBean {
 	@Autowired
 	private JwtTokenProvider tokenProvider;
 
-	public JwtTokenFilter(JwtTokenProvider tokenProvider) {
+	@Autowired
+	private JwtAuthenticationCache authenticationCache;
+
+	public JwtTokenFilter(JwtTokenProvider tokenProvider, JwtAuthenticationCache authenticationCache) {
 		this.tokenProvider = tokenProvider;
+		this.authenticationCache = authenticationCache;
 	}
 
 	@Override
 	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
 			throws IOException, ServletException {
 		String token = tokenProvider.resolveToken((HttpServletRequest) request);
-		if (token != null && tokenProvider.validateToken(token)) {
-			Authentication auth = tokenProvider.getAuthentication(token);
+		if (token != null) {
+			// token ja verificado: evita checar a assinatura e consultar users/permissions de novo
+			Authentication auth = authenticationCache.get(token);
+			if (auth == null) {
+				// uma unica verificacao/decodificacao por request
+				DecodedJWT decodedJWT = tokenProvider.decodedToken(token);
+				if (tokenProvider.validateToken(decodedJWT)) {
+					auth = tokenProvider.getAuthentication(decodedJWT);
+					if (auth != null) {
+						authenticationCache.put(token, auth, decodedJWT.getIssuedAt(), decodedJWT.getExpiresAt());
+					}
+				}
+			}
 			if (auth != null) {
 				SecurityContextHolder.getContext().setAuthentication(auth);
 			}
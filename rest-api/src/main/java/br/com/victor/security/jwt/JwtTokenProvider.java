@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
 
@@ -32,15 +34,26 @@ public class JwtTokenProvider {
 	@Value("${security.jwt.token.expire-length:3600000}")
 	private long validityInMilliseconds = 3600000; // 1 hora
 
+	// quando true a Authentication vem so do subject e do claim roles do token verificado, sem ir ao banco
+	@Value("${security.jwt.claims-only-authentication:false}")
+	private boolean claimsOnlyAuthentication = false;
+
 	@Autowired
 	private UserDetailsService userDetailsService;
 
+	@Autowired
+	private TokenRevocationList revocationList;
+
 	Algorithm algorithm = null;
 
+	// JWTVerifier e thread-safe: criado uma vez e compartilhado por todos os requests
+	private JWTVerifier verifier = null;
+
 	@PostConstruct
 	protected void init() {
 		secretKey = Base64.getEncoder().encodeToString(secretKey.getBytes());
 		algorithm = Algorithm.HMAC256(secretKey.getBytes());
+		verifier = JWT.require(algorithm).build();
 	}
 
 	public TokenVO createAccessToken(String username, List<String> roles) {
@@ -55,10 +68,13 @@ public class JwtTokenProvider {
 	public TokenVO refreshToken(String refreshToken) {
 		if (refreshToken.contains("Bearer ")) refreshToken = refreshToken.substring("Bearer ".length());
 		
-		JWTVerifier verifier = JWT.require(algorithm).build();
-		DecodedJWT decodedJWT = verifier.verify(refreshToken);
+		DecodedJWT decodedJWT = decodedToken(refreshToken);
 		
 		String username = decodedJWT.getSubject();
+		// mesma regra do getAuthentication: um refresh emitido ate a revogacao nao gera token novo
+		if (revocationList.isRevoked(username, decodedJWT.getIssuedAt())) {
+			throw new InvalidJwtAuthenticationException("Revoked JWT token!");
+		}
 		List<String> roles = decodedJWT.getClaim("roles").asList(String.class);
 		
 		return createAccessToken(username, roles);
@@ -76,17 +92,32 @@ public class JwtTokenProvider {
 				.withSubject(username).sign(algorithm).strip();
 	}
 
-	public Authentication getAuthentication(String token) {
-		DecodedJWT decodeJWT = decodedToken(token);
-		UserDetails userDetails = this.userDetailsService.loadUserByUsername(decodeJWT.getSubject());
+	public Authentication getAuthentication(DecodedJWT decodedJWT) {
+		String username = decodedJWT.getSubject();
+		if (revocationList.isRevoked(username, decodedJWT.getIssuedAt())) {
+			throw new InvalidJwtAuthenticationException("Revoked JWT token!");
+		}
+		UserDetails userDetails = claimsOnlyAuthentication
+				? userDetailsFromClaims(decodedJWT)
+				: this.userDetailsService.loadUserByUsername(username);
 		return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
 	}
 
-	private DecodedJWT decodedToken(String token) {
-		Algorithm alg = Algorithm.HMAC256(secretKey.getBytes());
-		JWTVerifier verifier = JWT.require(alg).build();
-		DecodedJWT decodedJWT = verifier.verify(token);
-		return decodedJWT;
+	private UserDetails userDetailsFromClaims(DecodedJWT decodedJWT) {
+		List<String> roles = decodedJWT.getClaim("roles").asList(String.class);
+		return User.withUsername(decodedJWT.getSubject())
+				.password("")
+				.authorities(roles == null ? new String[0] : roles.toArray(new String[0]))
+				.build();
+	}
+
+	// verifica a assinatura e decodifica uma unica vez; o resultado alimenta validateToken e getAuthentication
+	public DecodedJWT decodedToken(String token) {
+		try {
+			return verifier.verify(token);
+		} catch (JWTVerificationException e) {
+			throw new InvalidJwtAuthenticationException("Expired or Invalid JWT token!");
+		}
 	}
 
 	public String resolveToken(HttpServletRequest req) {
@@ -100,8 +131,7 @@ public class JwtTokenProvider {
 		return null;
 	}
 
-	public boolean validateToken(String token) {
-		DecodedJWT decodedJWT = decodedToken(token);
+	public boolean validateToken(DecodedJWT decodedJWT) {
 		try {
 			if (decodedJWT.getExpiresAt().before(new Date())) {
 				return false;
@@ -0,0 +1,38 @@
+package br.com.victor.security.jwt;
+
+import java.time.Duration;
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Lista de curta duracao de usuarios revogados (bloqueio, troca de permissoes...). Tokens
+ * emitidos ate o momento da revogacao sao recusados; a entrada expira junto com o refresh
+ * token mais longo que poderia ter sido emitido antes dela. O {@link JwtAuthenticationCache}
+ * consulta esta lista a cada leitura.
+ */
+@Component
+public class TokenRevocationList {
+
+	private final Cache<String, Long> revokedAt;
+
+	public TokenRevocationList(@Value("${security.jwt.token.expire-length:3600000}") long validityInMilliseconds) {
+		this.revokedAt = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofMillis(validityInMilliseconds * 3))
+				.build();
+	}
+
+	public void revoke(String username) {
+		revokedAt.put(username, System.currentTimeMillis());
+	}
+
+	public boolean isRevoked(String username, Date issuedAt) {
+		Long revokedAtMillis = revokedAt.getIfPresent(username);
+		if (revokedAtMillis == null) return false;
+		return issuedAt == null || issuedAt.getTime() <= revokedAtMillis;
+	}
+}
@@ -1,17 +1,31 @@
 package br.com.victor.services;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import br.com.victor.data.vo.v1.security.AccountCredentialsVO;
 import br.com.victor.data.vo.v1.security.TokenVO;
+import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.exceptions.TooManySigninAttemptsException;
 import br.com.victor.repositories.UserRepository;
+import br.com.victor.security.jwt.JwtAuthenticationCache;
 import br.com.victor.security.jwt.JwtTokenProvider;
+import br.com.victor.security.jwt.TokenRevocationList;
 
 @Service
 public class AuthServices {
@@ -25,13 +39,26 @@ public class AuthServices {
 	@Autowired
 	private UserRepository repository;
 
+	@Autowired
+	private JwtAuthenticationCache authenticationCache;
+
+	@Autowired
+	private TokenRevocationList revocationList;
+
+	@Autowired
+	@Qualifier("credentialVerificationExecutor")
+	private ExecutorService credentialVerificationExecutor;
+
+	@Value("${security.signin.timeout-ms:5000}")
+	private long signinTimeoutMillis = 5000;
+
 	@SuppressWarnings("rawtypes")
 	public ResponseEntity signin(AccountCredentialsVO data) {
+		var username = data.getUsername();
+		var password = data.getPassword();
+		verifyCredentials(username, password);
+		
 		try {
-			var username = data.getUsername();
-			var password = data.getPassword();
-			authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
-
 			var user = repository.findByUserName(username);
 
 			var tokenResponse = new TokenVO();
@@ -47,6 +74,29 @@ public class AuthServices {
 			throw new BadCredentialsException("Invalid username/password supplied!");
 		}
 	}
+
+	// o hash da senha roda no pool dedicado; pool e fila cheios ou espera acima do timeout viram 429
+	private void verifyCredentials(String username, String password) {
+		Future<Authentication> verification;
+		try {
+			verification = credentialVerificationExecutor.submit(
+					() -> authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password)));
+		} catch (RejectedExecutionException e) {
+			throw new TooManySigninAttemptsException();
+		}
+		
+		try {
+			verification.get(signinTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			verification.cancel(true);
+			throw new TooManySigninAttemptsException();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BadCredentialsException("Invalid username/password supplied!");
+		} catch (ExecutionException e) {
+			throw new BadCredentialsException("Invalid username/password supplied!");
+		}
+	}
 	
 	@SuppressWarnings("rawtypes")
 	public ResponseEntity refreshToken(String username, String refreshToken) {
@@ -56,10 +106,21 @@ public class AuthServices {
 		
 		if (user != null) {
 			tokenResponse = tokenProvider.refreshToken(refreshToken);
+			authenticationCache.invalidateUser(username);
 		} else {
 			throw new UsernameNotFoundException("Username " + username + " not found!");
 		}
 		
 		return ResponseEntity.ok(tokenResponse);
 	}
+	
+	// invalida todos os tokens (acesso e refresh) ja emitidos para o usuario; um novo signin volta a funcionar
+	public void revoke(String username) {
+		if (repository.findByUserName(username) == null) {
+			throw new ResourceNotFoundException("Username " + username + " not found!");
+		}
+		revocationList.revoke(username);
+		// o cache ja recusa os tokens revogados; aqui so libera as entradas
+		authenticationCache.invalidateUser(username);
+	}
 }
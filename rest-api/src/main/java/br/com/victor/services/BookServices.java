@@ -1,26 +1,53 @@
 package br.com.victor.services;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import br.com.victor.config.CacheConfig;
 import br.com.victor.controllers.BookController;
+import br.com.victor.data.vo.v1.BulkItemResultVO;
+import br.com.victor.exceptions.ConcurrentUpdateException;
 import br.com.victor.data.vo.v1.BookVO;
 import br.com.victor.exceptions.RequiredObjectIsNullException;
 //import br.com.victor.data.vo.v2.BookVOV2;
 import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.hateoas.SelfLinkFactory;
 import br.com.victor.mapper.Mapper;
 import br.com.victor.model.Book;
 import br.com.victor.repositories.BookRepository;
+import br.com.victor.util.AfterCommit;
+import br.com.victor.util.KeysetCursor;
+import br.com.victor.util.KeysetPage;
 
 @Service
 public class BookServices {
@@ -33,19 +60,28 @@ public class BookServices {
 	@Autowired
 	PagedResourcesAssembler<BookVO> assembler;
 	
+	@Autowired
+	SelfLinkFactory linkFactory;
+
+	@Autowired
+	CacheManager cacheManager;
+	
+	@Autowired
+	BulkWriter bulkWriter;
+	
 	
-	public PagedModel<EntityModel<BookVO>> findAll(Pageable pageable){
+	// leitura em transacao somente leitura: sem flush no commit e sem snapshot de entidades
+	@Transactional(readOnly = true)
+	public PagedModel<EntityModel<BookVO>> findAll(Pageable pageable, boolean withCount){
 		
 		logger.info("Finding all books");
 		
-		var bookPage = repository.findAll(pageable);
-		
-		var bookVosPage = bookPage.map(b -> Mapper.parseObject(b, BookVO.class));
+		// conteudo sem o SELECT COUNT(*); o total vem do cache de contagens ou e omitido (count=false)
+		var bookSlice = repository.findBooksSlice(pageable);
 		
-		bookVosPage.map(b -> b.add(linkTo(methodOn(BookController.class).findById(b.getId())).withSelfRel()));
+		var links = linkFactory.forController(BookController.class);
 		
-		
-		Link link = linkTo(methodOn(BookController.class).findAll(pageable.getPageNumber(), pageable.getPageSize(), "asc")).withSelfRel();
+		var bookVosSlice = bookSlice.map(b -> withSelfLink(b, links));
 		
 		/*
 		List<BookVO> books = Mapper.parseListObjects(repository.findAll(), BookVO.class);
@@ -54,19 +90,72 @@ public class BookServices {
 			.stream()
 			.forEach(p -> p.add(linkTo(methodOn(BookController.class).findById(p.getId())).withSelfRel()));
 		*/
-		return assembler.toModel(bookVosPage, link);
+		if (!withCount) return toSliceModel(bookVosSlice, links);
+		
+		long total = count("all", () -> repository.count());
+		Link link = links.forPage(pageable, sortDirection(pageable));
+		
+		return assembler.toModel(new PageImpl<>(bookVosSlice.getContent(), pageable, total), link);
+	}
+	
+	@Transactional(readOnly = true)
+	public CollectionModel<BookVO> findAllByKeyset(String cursor, Integer limit, Direction direction) {
+		
+		logger.info("Finding books by keyset");
+		
+		// paginacao por keyset: busca a partir de (title, id) do cursor, sem OFFSET e sem COUNT
+		KeysetCursor position = (cursor == null || cursor.isBlank()) ? null : KeysetCursor.decode(cursor);
+		Slice<BookVO> slice;
+		if (position == null) {
+			slice = repository.findBooksSlice(PageRequest.of(0, limit, Sort.by(direction, "title", "id")));
+		} else if (direction.isAscending() != position.isBackward()) {
+			slice = repository.findBooksAfter(position.getKey(), position.getId(), PageRequest.of(0, limit));
+		} else {
+			slice = repository.findBooksBefore(position.getKey(), position.getId(), PageRequest.of(0, limit));
+		}
+		KeysetPage<BookVO> page = KeysetPage.of(slice, position);
+		
+		var links = linkFactory.forController(BookController.class);
+		List<BookVO> books = page.getContent().stream().map(e -> withSelfLink(e, links)).collect(Collectors.toList());
+		
+		String sortDirection = direction.isAscending() ? "asc" : "desc";
+		List<Link> pageLinks = new ArrayList<>();
+		pageLinks.add(links.forCursor("/keyset", cursor, limit, sortDirection, IanaLinkRelations.SELF));
+		if (page.hasNext()) {
+			BookVO last = page.getLast();
+			String next = KeysetCursor.after(last.getTitle(), last.getId()).encode();
+			pageLinks.add(links.forCursor("/keyset", next, limit, sortDirection, IanaLinkRelations.NEXT));
+		}
+		if (page.hasPrevious()) {
+			BookVO first = page.getFirst();
+			String prev = KeysetCursor.before(first.getTitle(), first.getId()).encode();
+			pageLinks.add(links.forCursor("/keyset", prev, limit, sortDirection, IanaLinkRelations.PREV));
+		}
+		
+		return CollectionModel.of(books, pageLinks);
 	}
 
+	@Transactional(readOnly = true)
 	public BookVO findById(Long id) {
 		
 		logger.info("Finding one book");
 		
-		Book entity = repository.findById(id)
-				.orElseThrow(() -> new ResourceNotFoundException("No records found this ID"));
+		// read-through: so vai ao banco quando o id nao esta no cache; o cache guarda o VO sem links.
+		// O load roda dentro do compute do cache: um evict do mesmo id espera o load e descarta o valor,
+		// entao uma linha lida antes do commit de uma escrita nao volta para o cache depois do evict
+		BookVO cached;
+		try {
+			cached = cache().get(id, () -> repository.findVOById(id)
+					.orElseThrow(() -> new ResourceNotFoundException("No records found this ID")));
+		} catch (Cache.ValueRetrievalException e) {
+			if (e.getCause() instanceof RuntimeException cause) throw cause;
+			throw e;
+		}
 		
-		BookVO vo = Mapper.parseObject(entity, BookVO.class);
+		// copia: o link do request nao pode ir parar na instancia compartilhada pelo cache
+		BookVO vo = copy(cached);
 		//HATEOAS
-		vo.add(linkTo(methodOn(BookController.class).findById(id)).withSelfRel());
+		vo.add(linkFactory.forController(BookController.class).forId(id));
 		
 		return vo;
 	}
@@ -78,10 +167,14 @@ public class BookServices {
 		logger.info("Create one book");
 		
 		Book entity = Mapper.parseObject(book, Book.class);
+		// insert: a versao comeca no @Version do Hibernate, nao na enviada pelo cliente
+		entity.setVersion(null);
 		
 		BookVO vo = Mapper.parseObject(repository.save(entity), BookVO.class);
+		evictAfterCommit(vo.getId());
+		clearCountsAfterCommit();
 		//HATEOAS
-		vo.add(linkTo(methodOn(BookController.class).findById(vo.getId())).withSelfRel());
+		vo.add(linkFactory.forController(BookController.class).forId(vo.getId()));
 				
 		return vo;	
 	}
@@ -104,17 +197,28 @@ public class BookServices {
 		
 		logger.info("Update one book");
 		
-		Book entity = repository.findById(book.getId())
-				.orElseThrow(() -> new ResourceNotFoundException("No records found this ID"));
+		// UPDATE ... WHERE id direto no banco: sem SELECT antes e sem entidade gerenciada
+		int updated = repository.updateBook(book.getId(), book.getAuthor(), book.getLaunchDate(),
+				book.getPrice(), book.getTitle(), book.getVersion());
+		if (updated == 0) {
+			// com versao, nenhuma linha afetada pode ser o id existindo numa versao mais nova
+			if (book.getId() != null && book.getVersion() != null && repository.existsById(book.getId())) {
+				throw new ConcurrentUpdateException();
+			}
+			throw new ResourceNotFoundException("No records found this ID");
+		}
+		evictAfterCommit(book.getId());
 		
-		entity.setAuthor(book.getAuthor());
-		entity.setLaunchDate(book.getLaunchDate());
-		entity.setPrice(book.getPrice());
-		entity.setTitle(book.getTitle());
-		
-		BookVO vo = Mapper.parseObject(repository.save(entity), BookVO.class);
+		BookVO vo = new BookVO();
+		vo.setId(book.getId());
+		vo.setAuthor(book.getAuthor());
+		vo.setLaunchDate(book.getLaunchDate());
+		vo.setPrice(book.getPrice());
+		vo.setTitle(book.getTitle());
+		// a versao nova so e conhecida quando o cliente mandou a anterior
+		if (book.getVersion() != null) vo.setVersion(book.getVersion() + 1);
 		//HATEOAS
-		vo.add(linkTo(methodOn(BookController.class).findById(vo.getId())).withSelfRel());
+		vo.add(linkFactory.forController(BookController.class).forId(vo.getId()));
 				
 		return vo;
 	}
@@ -123,11 +227,199 @@ public class BookServices {
 		
 		logger.info("Delete one book");
 		
-		Book entity = repository.findById(id)
-				.orElseThrow(() -> new ResourceNotFoundException("No records found this ID"));
+		// DELETE ... WHERE id direto: sem carregar a entidade antes
+		if (repository.deleteBookById(id) == 0) {
+			throw new ResourceNotFoundException("No records found this ID");
+		}
+		evictAfterCommit(id);
+		clearCountsAfterCommit();
+		
+	}
+	
+	// cria em lote: itens invalidos voltam com 400 sem impedir os demais
+	public List<BulkItemResultVO> createAll(Iterator<BookVO> books) {
+		
+		logger.info("Create books in bulk");
 		
-		repository.delete(entity);
+		List<BulkItemResultVO> results = bulkWriter.write(books, (chunk, firstIndex) -> {
+			BulkItemResultVO[] chunkResults = new BulkItemResultVO[chunk.size()];
+			List<Book> entities = new ArrayList<>(chunk.size());
+			List<Integer> positions = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				String error = validate(chunk.get(i));
+				if (error != null) {
+					chunkResults[i] = new BulkItemResultVO(firstIndex + i, null, HttpStatus.BAD_REQUEST.value(), error);
+					continue;
+				}
+				Book entity = Mapper.parseObject(chunk.get(i), Book.class);
+				entity.setId(null);
+				entity.setVersion(null);
+				entities.add(entity);
+				positions.add(i);
+			}
+			repository.saveAll(entities);
+			for (int j = 0; j < entities.size(); j++) {
+				int i = positions.get(j);
+				chunkResults[i] = new BulkItemResultVO(firstIndex + i, entities.get(j).getId(), HttpStatus.CREATED.value(), null);
+			}
+			return Arrays.asList(chunkResults);
+		});
+		clearCountsAfterCommit();
 		
+		return results;
 	}
 	
+	public List<BulkItemResultVO> updateAll(Iterator<BookVO> books) {
+		
+		logger.info("Update books in bulk");
+		
+		List<BulkItemResultVO> results = bulkWriter.write(books, (chunk, firstIndex) -> {
+			BulkItemResultVO[] chunkResults = new BulkItemResultVO[chunk.size()];
+			List<Long> ids = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				BookVO book = chunk.get(i);
+				String error = validate(book);
+				if (error == null && book.getId() == null) error = "Id is required";
+				if (error != null) {
+					chunkResults[i] = new BulkItemResultVO(firstIndex + i, null, HttpStatus.BAD_REQUEST.value(), error);
+				} else {
+					ids.add(book.getId());
+				}
+			}
+			// um SELECT ... IN por bloco no lugar de um findById por item; o flush do bloco manda os UPDATE em batch
+			Map<Long, Book> found = repository.findAllById(ids).stream()
+					.collect(Collectors.toMap(Book::getId, Function.identity()));
+			for (int i = 0; i < chunk.size(); i++) {
+				if (chunkResults[i] != null) continue;
+				BookVO book = chunk.get(i);
+				Book entity = found.get(book.getId());
+				if (entity == null) {
+					chunkResults[i] = new BulkItemResultVO(firstIndex + i, book.getId(), HttpStatus.NOT_FOUND.value(), "No records found this ID");
+					continue;
+				}
+				if (book.getVersion() != null && !book.getVersion().equals(entity.getVersion())) {
+					chunkResults[i] = new BulkItemResultVO(firstIndex + i, book.getId(), HttpStatus.CONFLICT.value(), new ConcurrentUpdateException().getMessage());
+					continue;
+				}
+				entity.setAuthor(book.getAuthor());
+				entity.setLaunchDate(book.getLaunchDate());
+				entity.setPrice(book.getPrice());
+				entity.setTitle(book.getTitle());
+				chunkResults[i] = new BulkItemResultVO(firstIndex + i, book.getId(), HttpStatus.OK.value(), null);
+			}
+			return Arrays.asList(chunkResults);
+		});
+		evict(results);
+		
+		return results;
+	}
+	
+	public List<BulkItemResultVO> deleteAll(Iterator<Long> ids) {
+		
+		logger.info("Delete books in bulk");
+		
+		List<BulkItemResultVO> results = bulkWriter.write(ids, (chunk, firstIndex) -> {
+			List<Long> requested = chunk.stream().filter(Objects::nonNull).collect(Collectors.toList());
+			Set<Long> existing = requested.isEmpty() ? Set.of() : new HashSet<>(repository.findExistingIds(requested));
+			// um DELETE ... WHERE id IN por bloco
+			if (!existing.isEmpty()) repository.deleteAllByIdInBatch(existing);
+			
+			List<BulkItemResultVO> chunkResults = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				Long id = chunk.get(i);
+				if (id == null) {
+					chunkResults.add(new BulkItemResultVO(firstIndex + i, null, HttpStatus.BAD_REQUEST.value(), "Id is required"));
+				} else if (existing.contains(id)) {
+					chunkResults.add(new BulkItemResultVO(firstIndex + i, id, HttpStatus.NO_CONTENT.value(), null));
+				} else {
+					chunkResults.add(new BulkItemResultVO(firstIndex + i, id, HttpStatus.NOT_FOUND.value(), "No records found this ID"));
+				}
+			}
+			return chunkResults;
+		});
+		evict(results);
+		clearCountsAfterCommit();
+		
+		return results;
+	}
+	
+	private static BookVO copy(BookVO book) {
+		return new BookVO(book.getId(), book.getAuthor(), book.getLaunchDate(), book.getPrice(), book.getTitle(), book.getVersion());
+	}
+	
+	private BookVO withSelfLink(BookVO vo, SelfLinkFactory.SelfLinks links) {
+		vo.add(links.forId(vo.getId()));
+		return vo;
+	}
+
+	// pagina sem total: PageMetadata nulo e links next/prev a partir do Slice
+	private PagedModel<EntityModel<BookVO>> toSliceModel(Slice<BookVO> slice, SelfLinkFactory.SelfLinks links) {
+		List<EntityModel<BookVO>> content = slice.getContent().stream()
+				.map(vo -> EntityModel.of(vo))
+				.collect(Collectors.toList());
+		
+		String sortDirection = sortDirection(slice.getPageable());
+		List<Link> pageLinks = new ArrayList<>();
+		pageLinks.add(links.forSlice("", slice.getPageable(), sortDirection, IanaLinkRelations.SELF));
+		if (slice.hasNext()) pageLinks.add(links.forSlice("", slice.nextPageable(), sortDirection, IanaLinkRelations.NEXT));
+		if (slice.hasPrevious()) pageLinks.add(links.forSlice("", slice.previousPageable(), sortDirection, IanaLinkRelations.PREV));
+		
+		return PagedModel.of(content, (PagedModel.PageMetadata) null, pageLinks);
+	}
+
+	// os links repetem a direcao pedida no request; o Sort do Pageable so tem a propriedade title
+	private static String sortDirection(Pageable pageable) {
+		Sort.Order order = pageable.getSort().getOrderFor("title");
+		return order != null && order.isDescending() ? "desc" : "asc";
+	}
+	
+	// o total so muda com create/delete; cache de TTL curto (CacheConfig.BOOK_COUNTS)
+	private long count(String key, Supplier<Long> counter) {
+		Long total = countCache().get(key, Long.class);
+		if (total == null) {
+			total = counter.get();
+			countCache().put(key, total);
+		}
+		return total;
+	}
+
+	// invalidacoes so depois do commit: antes dele um leitor ainda pode carregar a linha antiga
+	private void evictAfterCommit(Long id) {
+		AfterCommit.run(() -> cache().evict(id));
+	}
+
+	private void clearCountsAfterCommit() {
+		AfterCommit.run(() -> countCache().clear());
+	}
+
+	private void evict(List<BulkItemResultVO> results) {
+		AfterCommit.run(() -> {
+			for (BulkItemResultVO result : results) {
+				if (result.getId() != null) cache().evict(result.getId());
+			}
+		});
+	}
+	
+	// mesmas restricoes das colunas de books: o item invalido volta com 400 em vez de derrubar o bloco
+	public static String validate(BookVO book) {
+		if (book == null) return "Item is empty or could not be parsed";
+		if (!fits(book.getAuthor(), 180)) return "author is required (up to 180 characters)";
+		if (book.getLaunchDate() == null) return "launchDate is required";
+		if (book.getPrice() == null) return "price is required";
+		if (!fits(book.getTitle(), 250)) return "title is required (up to 250 characters)";
+		return null;
+	}
+	
+	private static boolean fits(String value, int maxLength) {
+		return StringUtils.hasText(value) && value.length() <= maxLength;
+	}
+	
+	private Cache cache() {
+		return cacheManager.getCache(CacheConfig.BOOKS);
+	}
+
+	private Cache countCache() {
+		return cacheManager.getCache(CacheConfig.BOOK_COUNTS);
+	}
+
 }
@@ -0,0 +1,85 @@
+package br.com.victor.services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.victor.data.vo.v1.BulkItemResultVO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Escrita em lote por blocos de {@code bulk.chunk-size} itens, cada bloco numa transacao propria.
+ *
+ * No fim do bloco o flush manda os INSERT/UPDATE pendentes em batches JDBC
+ * ({@code hibernate.jdbc.batch_size}) e o clear solta as entidades, entao a memoria nao cresce com o
+ * tamanho da entrada. Um bloco que falha no banco volta inteiro com erro; os blocos anteriores ficam gravados.
+ */
+@Component
+public class BulkWriter {
+	
+	private Logger logger = Logger.getLogger(BulkWriter.class.getName());
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	@PersistenceContext
+	EntityManager entityManager;
+	
+	@Value("${bulk.chunk-size:500}")
+	int chunkSize = 500;
+	
+	// consome items bloco a bloco (a entrada pode ser um stream NDJSON); os resultados seguem a ordem de entrada
+	public <T> List<BulkItemResultVO> write(Iterator<T> items, ChunkWriter<T> writer) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		List<BulkItemResultVO> results = new ArrayList<>();
+		List<T> chunk = new ArrayList<>(chunkSize);
+		
+		while (items.hasNext()) {
+			chunk.add(items.next());
+			if (chunk.size() == chunkSize) {
+				results.addAll(writeChunk(transaction, chunk, results.size(), writer));
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) results.addAll(writeChunk(transaction, chunk, results.size(), writer));
+		
+		return results;
+	}
+	
+	private <T> List<BulkItemResultVO> writeChunk(TransactionTemplate transaction, List<T> chunk, int firstIndex, ChunkWriter<T> writer) {
+		try {
+			return transaction.execute(status -> {
+				List<BulkItemResultVO> results = writer.write(chunk, firstIndex);
+				entityManager.flush();
+				entityManager.clear();
+				return results;
+			});
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Bulk chunk starting at item " + firstIndex + " failed", e);
+			
+			List<BulkItemResultVO> failed = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				failed.add(new BulkItemResultVO(firstIndex + i, null, HttpStatus.INTERNAL_SERVER_ERROR.value(),
+						"Could not persist the chunk starting at item " + firstIndex + ". Please try again!"));
+			}
+			return failed;
+		}
+	}
+	
+	// grava um bloco dentro da transacao e devolve um resultado por item, na ordem do bloco
+	@FunctionalInterface
+	public interface ChunkWriter<T> {
+		
+		List<BulkItemResultVO> write(List<T> chunk, int firstIndex);
+	}
+}
@@ -0,0 +1,206 @@
+package br.com.victor.services;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.victor.exceptions.UnsupportedExportFormatException;
+import br.com.victor.util.MediaType;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Exportacao da tabela inteira direto do JDBC para a resposta, sem entidades, ModelMapper nem HATEOAS.
+ *
+ * A consulta usa um result set somente leitura e para frente com fetch size {@code Integer.MIN_VALUE},
+ * o modo streaming do Connector/J: as linhas chegam uma a uma, entao a memoria nao depende do tamanho
+ * da tabela. O streaming vale so para este statement, sem flag na URL compartilhada do pool.
+ * Cada linha sai como NDJSON ou CSV assim que chega do banco.
+ */
+@Service
+public class ExportService {
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	// sinal do Connector/J para ler o result set em streaming, sem carregar tudo na memoria
+	private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+	
+	private static final Table PEOPLE = new Table("people",
+			"SELECT id, first_name, last_name, address, gender, version FROM person ORDER BY id",
+			Set.of(), "id", "firstName", "lastName", "address", "gender", "version");
+	
+	// launchDate e @Temporal(DATE) no Book: sai como java.sql.Date, igual ao VO da API, e nao como o LocalDateTime do driver
+	private static final Table BOOKS = new Table("books",
+			"SELECT id, author, launch_date, price, title, version FROM books ORDER BY id",
+			Set.of("launchDate"), "id", "author", "launchDate", "price", "title", "version");
+	
+	private Logger logger = Logger.getLogger(ExportService.class.getName());
+	
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	ObjectMapper objectMapper;
+	
+	public void exportPeople(String format, HttpServletResponse response) throws IOException {
+		export(PEOPLE, format, response);
+	}
+	
+	public void exportBooks(String format, HttpServletResponse response) throws IOException {
+		export(BOOKS, format, response);
+	}
+	
+	private void export(Table table, String format, HttpServletResponse response) throws IOException {
+		boolean csv = "csv".equalsIgnoreCase(format);
+		if (!csv && !"ndjson".equalsIgnoreCase(format)) throw new UnsupportedExportFormatException(format);
+		
+		logger.info("Exporting all " + table.name + " as " + format);
+		
+		response.setContentType(csv ? MediaType.TEXT_CSV : MediaType.APPLICATION_NDJSON);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				ContentDisposition.attachment().filename(table.name + (csv ? ".csv" : ".ndjson")).build().toString());
+		
+		OutputStream out = new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE);
+		RowWriter writer = csv ? new CsvRowWriter(out, table) : new NdjsonRowWriter(objectMapper, out, table);
+		
+		Long rows = jdbcTemplate.query(connection -> {
+			PreparedStatement statement = connection.prepareStatement(table.sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(STREAMING_FETCH_SIZE);
+			return statement;
+		}, (ResultSetExtractor<Long>) rs -> {
+			long count = 0;
+			try {
+				while (rs.next()) {
+					writer.write(rs);
+					count++;
+				}
+			} catch (IOException e) {
+				// cliente desconectou no meio: para de ler e libera o cursor
+				throw new UncheckedIOException(e);
+			}
+			return count;
+		});
+		writer.finish();
+		
+		logger.info("Exported " + rows + " " + table.name);
+	}
+	
+	private static final class Table {
+		
+		private final String name;
+		private final String sql;
+		private final String[] fields;
+		private final boolean[] dates;
+		
+		private Table(String name, String sql, Set<String> dateFields, String... fields) {
+			this.name = name;
+			this.sql = sql;
+			this.fields = fields;
+			this.dates = new boolean[fields.length];
+			for (int i = 0; i < fields.length; i++) {
+				this.dates[i] = dateFields.contains(fields[i]);
+			}
+		}
+		
+		// valor da coluna com o mesmo tipo que o Hibernate entrega para o campo da entidade
+		private Object value(ResultSet rs, int index) throws SQLException {
+			return dates[index] ? rs.getDate(index + 1) : rs.getObject(index + 1);
+		}
+	}
+	
+	private interface RowWriter {
+		
+		void write(ResultSet rs) throws SQLException, IOException;
+		
+		void finish() throws IOException;
+	}
+	
+	// um objeto JSON por linha, com os mesmos nomes de campo dos VOs
+	private static final class NdjsonRowWriter implements RowWriter {
+		
+		private final JsonGenerator generator;
+		private final Table table;
+		
+		private NdjsonRowWriter(ObjectMapper objectMapper, OutputStream out, Table table) throws IOException {
+			this.generator = objectMapper.getFactory().createGenerator(out);
+			// sem o espaco que o Jackson poe entre valores de raiz: o separador e a quebra de linha
+			this.generator.setRootValueSeparator(null);
+			this.table = table;
+		}
+		
+		@Override
+		public void write(ResultSet rs) throws SQLException, IOException {
+			generator.writeStartObject();
+			for (int i = 0; i < table.fields.length; i++) {
+				generator.writeFieldName(table.fields[i]);
+				generator.writeObject(table.value(rs, i));
+			}
+			generator.writeEndObject();
+			generator.writeRaw('\n');
+		}
+		
+		@Override
+		public void finish() throws IOException {
+			generator.flush();
+		}
+	}
+	
+	// RFC 4180: cabecalho com os nomes dos campos; aspas so quando o valor tem separador, aspas ou quebra de linha
+	private static final class CsvRowWriter implements RowWriter {
+		
+		private final Writer writer;
+		private final Table table;
+		
+		private CsvRowWriter(OutputStream out, Table table) throws IOException {
+			this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+			this.table = table;
+			writer.write(String.join(",", table.fields));
+			writer.write("\r\n");
+		}
+		
+		@Override
+		public void write(ResultSet rs) throws SQLException, IOException {
+			for (int i = 0; i < table.fields.length; i++) {
+				if (i > 0) writer.write(',');
+				Object value = table.value(rs, i);
+				if (value != null) writer.write(escape(value.toString()));
+			}
+			writer.write("\r\n");
+		}
+		
+		@Override
+		public void finish() throws IOException {
+			writer.flush();
+		}
+		
+		private static String escape(String value) {
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+					return '"' + value.replace("\"", "\"\"") + '"';
+				}
+			}
+			return value;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package br.com.victor.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.victor.model.StoredFile;
+import br.com.victor.repositories.FileBlobRepository;
+import br.com.victor.repositories.StoredFileRepository;
+import br.com.victor.storage.FileStore;
+import br.com.victor.storage.GzipVariants;
+import br.com.victor.storage.StoredObject;
+import br.com.victor.util.AfterCommit;
+
+/**
+ * Armazenamento por conteudo: cada conteudo distinto vira um unico blob no {@link FileStore}
+ * (chave = sha256), e o indice {@code stored_file} liga cada nome ao seu blob. {@code file_blob.ref_count} conta os
+ * nomes que apontam para o blob; quando chega a zero a linha e o arquivo sao removidos.
+ * A variante gzip ({@link GzipVariants}), quando existe, acompanha o blob: e gravada e removida junto.
+ *
+ * Ordem de locks: primeiro o nome ({@code stored_file}), depois as linhas de blob em ordem de hash,
+ * entao trocas cruzadas (X: A->B, Y: B->A) nao se travam. O put no store acontece dentro da transacao,
+ * com a linha do blob travada; um put desfeito por rollback vira um blob sem linha, que o proximo upload
+ * do mesmo conteudo reaproveita. Descartes e remocoes no store so rodam depois do commit.
+ */
+@Service
+public class FileBlobService {
+	
+	// duas tentativas bastam: na segunda o nome ja existe e a linha e travada pelo SELECT ... FOR UPDATE
+	private static final int LINK_ATTEMPTS = 2;
+	
+	private Logger logger = Logger.getLogger(FileBlobService.class.getName());
+	
+	@Autowired
+	FileBlobRepository blobRepository;
+	
+	@Autowired
+	StoredFileRepository fileRepository;
+	
+	@Autowired
+	FileStore fileStore;
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	// liga o nome ao conteudo ja gravado em temp; se o hash ja existe o temp e descartado (sem disco extra).
+	// gzip e a variante comprimida de temp (ou null) e segue o mesmo destino.
+	// Dois primeiros uploads do mesmo nome disputam o INSERT no indice unico: o perdedor repete e cai no UPDATE
+	public StoredFile link(String filename, String contentType, String hash, long size, Path temp, Path gzip) throws IOException {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return transaction.execute(status -> linkInTransaction(filename, contentType, hash, size, temp, gzip));
+			} catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+				if (attempt == LINK_ATTEMPTS) throw e;
+				logger.info("Concurrent upload of " + filename + ", retrying");
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+	}
+	
+	private StoredFile linkInTransaction(String filename, String contentType, String hash, long size, Path temp, Path gzip) {
+		StoredFile file = fileRepository.findByFileNameForUpdate(filename);
+		String previousHash = null;
+		if (file == null) {
+			file = new StoredFile();
+			file.setFileName(filename);
+		} else {
+			previousHash = file.getBlobHash();
+		}
+		
+		// mesmo conteudo: o nome continua no blob, so o temp sobra
+		if (hash.equals(previousHash)) {
+			discardAfterCommit(temp, gzip);
+		} else if (previousHash != null && previousHash.compareTo(hash) < 0) {
+			// linhas de blob sempre na ordem do hash
+			release(previousHash);
+			acquire(hash, size, temp, gzip);
+		} else {
+			acquire(hash, size, temp, gzip);
+			if (previousHash != null) release(previousHash);
+		}
+		
+		file.setBlobHash(hash);
+		file.setContentType(contentType);
+		file.setSize(size);
+		return fileRepository.saveAndFlush(file);
+	}
+	
+	@Transactional(readOnly = true)
+	public Optional<StoredObject> findBlob(String filename) throws IOException {
+		StoredFile file = fileRepository.findByFileName(filename);
+		if (file == null) return Optional.empty();
+		return Optional.of(fileStore.stat(file.getBlobHash()));
+	}
+	
+	// variante gzip de um blob do store; arquivos do layout antigo nao tem
+	public Optional<StoredObject> findGzipVariant(StoredObject blob) throws IOException {
+		if (blob.getKey() == null) return Optional.empty();
+		
+		String key = GzipVariants.keyOf(blob.getKey());
+		if (!fileStore.exists(key)) return Optional.empty();
+		return Optional.of(fileStore.stat(key));
+	}
+	
+	@Transactional(readOnly = true)
+	public boolean isIndexed(String filename) {
+		return fileRepository.findByFileName(filename) != null;
+	}
+	
+	// trava a linha do blob (cria com uma referencia ou soma mais uma) e garante o conteudo no store
+	private void acquire(String hash, long size, Path temp, Path gzip) {
+		blobRepository.acquire(hash, size);
+		try {
+			if (fileStore.exists(hash)) {
+				logger.info("Content already stored, reusing blob " + hash);
+				discardAfterCommit(temp, gzip);
+			} else {
+				// variante antes do original: um blob visivel nunca fica sem a variante que deveria ter
+				if (gzip != null) fileStore.put(GzipVariants.keyOf(hash), gzip);
+				fileStore.put(hash, temp);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	// o nome deixou de apontar para o conteudo; sem referencias a linha sai agora e o arquivo so apos o commit
+	private void release(String hash) {
+		blobRepository.release(hash);
+		if (blobRepository.deleteUnreferenced(hash) > 0) {
+			AfterCommit.run(() -> deleteIfUnreferenced(hash));
+		}
+	}
+	
+	// roda numa transacao propria depois do commit: com a linha (ou o gap dela) travada, um upload do mesmo
+	// conteudo que chegou nesse meio tempo ja recriou o blob e o arquivo fica; senao ele e removido
+	private void deleteIfUnreferenced(String hash) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		try {
+			transaction.executeWithoutResult(status -> {
+				if (blobRepository.findByHashForUpdate(hash) != null) return;
+				logger.info("Removing unreferenced blob " + hash);
+				try {
+					fileStore.delete(hash);
+					fileStore.delete(GzipVariants.keyOf(hash));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (RuntimeException e) {
+			// o commit do nome ja aconteceu: o arquivo fica orfao no store em vez de derrubar o request
+			logger.log(Level.WARNING, "Could not remove unreferenced blob " + hash, e);
+		}
+	}
+	
+	private static void discardAfterCommit(Path temp, Path gzip) {
+		AfterCommit.run(() -> {
+			deleteQuietly(temp);
+			deleteQuietly(gzip);
+		});
+	}
+	
+	private static void deleteQuietly(Path path) {
+		if (path == null) return;
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			// temporario que sobrar e so lixo no diretorio de upload
+		}
+	}
+}
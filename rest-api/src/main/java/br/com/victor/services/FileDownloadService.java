@@ -0,0 +1,328 @@
+package br.com.victor.services;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import br.com.victor.storage.GzipVariants;
+import br.com.victor.storage.HotFileCache;
+import br.com.victor.storage.StoredObject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Download dos arquivos guardados: GET condicional (ETag/Last-Modified), Range/If-Range
+ * com respostas 206 de um ou varios intervalos (multipart/byteranges) e envio sem copia.
+ *
+ * Para arquivos no disco, respostas de um unico intervalo usam o sendfile do Tomcat quando o conector
+ * suporta; caso contrario (e nas respostas multipart) o conteudo sai via {@link FileChannel#transferTo}.
+ * Blobs fora do disco (S3) sao lidos por intervalo direto do store.
+ *
+ * Com {@code Accept-Encoding: gzip} e sem Range, arquivos que tem variante gzip (gravada no upload)
+ * saem comprimidos, com ETag proprio e {@code Vary: Accept-Encoding}. Range e sempre sobre o original.
+ * A compressao do Tomcat ({@code server.compression}) nao atua aqui: respostas com ETag forte nao sao comprimidas.
+ */
+@Service
+public class FileDownloadService {
+	
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+	
+	private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+	
+	private Logger logger = Logger.getLogger(FileDownloadService.class.getName());
+	
+	@Autowired
+	private FileStorageService storageService;
+	
+	@Autowired
+	private HotFileCache hotFileCache;
+	
+	public void download(String filename, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		StoredObject file;
+		StoredObject gzip;
+		String contentType;
+		String etag;
+		
+		// arquivo pequeno e quente: conteudo, tipo e ETag vem da memoria, sem indice nem disco
+		HotFileCache.Entry cached = hotFileCache.get(filename);
+		if (cached != null) {
+			file = cached.getObject();
+			gzip = cached.getGzip();
+			contentType = cached.getContentType();
+			etag = cached.getEtag();
+		} else {
+			long loadStamp = hotFileCache.beginLoad();
+			file = storageService.resolve(filename);
+			gzip = storageService.resolveGzipVariant(file);
+			// o blob nao tem extensao: o tipo e o nome do download vem do nome pedido
+			contentType = contentType(request, filename);
+			etag = etag(file.getSize(), file.getLastModified());
+			if (hotFileCache.isCacheable(file.getSize())) {
+				cached = hotFileCache.load(file, gzip, contentType, etag);
+				hotFileCache.put(filename, cached, loadStamp);
+				file = cached.getObject();
+				gzip = cached.getGzip();
+			}
+		}
+		long length = file.getSize();
+		long lastModified = file.getLastModified();
+		
+		String range = request.getHeader(HttpHeaders.RANGE);
+		List<HttpRange> ranges = parseRanges(range);
+		boolean gzipped = gzip != null && ranges == null && GzipVariants.acceptsGzip(request);
+		// a resposta depende do Accept-Encoding (inclusive o 304) quando existe variante
+		if (gzip != null) response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		
+		// If-None-Match/If-Modified-Since (304) e If-Match/If-Unmodified-Since (412); tambem escreve ETag e Last-Modified
+		if (new ServletWebRequest(request, response).checkNotModified(gzipped ? gzipEtag(etag) : etag, lastModified)) return;
+		
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString());
+		
+		if (gzipped) {
+			response.setContentType(contentType);
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, GzipVariants.ENCODING);
+			send(request, response, gzip, 0, gzip.getSize());
+			return;
+		}
+		
+		// If-Range que nao bate com a versao atual: ignora o Range e devolve o arquivo inteiro
+		if (ranges == null || !ifRangeMatches(request, etag, lastModified)) {
+			response.setContentType(contentType);
+			send(request, response, file, 0, length);
+			return;
+		}
+		
+		List<Region> regions;
+		try {
+			regions = toRegions(ranges, length);
+		} catch (IllegalArgumentException e) {
+			logger.info("Unsatisfiable range " + range + " for " + filename);
+			response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+			response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+			return;
+		}
+		
+		response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+		if (regions.size() == 1) {
+			Region region = regions.get(0);
+			response.setContentType(contentType);
+			response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(region, length));
+			send(request, response, file, region.getPosition(), region.getCount());
+		} else {
+			sendMultipart(request, response, file, regions, contentType, length);
+		}
+	}
+	
+	private void send(HttpServletRequest request, HttpServletResponse response, StoredObject file, long position, long count) throws IOException {
+		response.setContentLengthLong(count);
+		if (isHead(request)) return;
+		
+		ByteBuffer content = file.getContent();
+		if (content != null) {
+			write(content, position, count, Channels.newChannel(response.getOutputStream()));
+			return;
+		}
+		
+		Path path = file.getLocalPath();
+		// blob fora do disco (S3): stream do intervalo vindo do store
+		if (path == null) {
+			try (InputStream in = file.open(position, count)) {
+				in.transferTo(response.getOutputStream());
+			}
+			return;
+		}
+		
+		// sendfile: o Tomcat copia do arquivo para o socket no kernel, depois que o handler retorna
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START, position);
+			request.setAttribute(SENDFILE_END, position + count);
+			return;
+		}
+		
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			transfer(channel, position, count, Channels.newChannel(response.getOutputStream()));
+		}
+	}
+	
+	private void sendMultipart(HttpServletRequest request, HttpServletResponse response, StoredObject file,
+			List<Region> regions, String contentType, long length) throws IOException {
+		
+		String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+		
+		// cabecalhos das partes montados antes para o Content-Length sair exato
+		List<byte[]> partHeaders = new ArrayList<>(regions.size());
+		long contentLength = 0;
+		for (Region region : regions) {
+			String header = "\r\n--" + boundary + "\r\n"
+					+ HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+					+ HttpHeaders.CONTENT_RANGE + ": " + contentRange(region, length) + "\r\n\r\n";
+			byte[] bytes = header.getBytes(StandardCharsets.US_ASCII);
+			partHeaders.add(bytes);
+			contentLength += bytes.length + region.getCount();
+		}
+		byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+		contentLength += end.length;
+		
+		response.setContentType("multipart/byteranges; boundary=" + boundary);
+		response.setContentLengthLong(contentLength);
+		if (isHead(request)) return;
+		
+		OutputStream out = response.getOutputStream();
+		ByteBuffer content = file.getContent();
+		if (content != null) {
+			WritableByteChannel target = Channels.newChannel(out);
+			for (int i = 0; i < regions.size(); i++) {
+				out.write(partHeaders.get(i));
+				write(content, regions.get(i).getPosition(), regions.get(i).getCount(), target);
+			}
+		} else if (file.getLocalPath() == null) {
+			for (int i = 0; i < regions.size(); i++) {
+				out.write(partHeaders.get(i));
+				try (InputStream in = file.open(regions.get(i).getPosition(), regions.get(i).getCount())) {
+					in.transferTo(out);
+				}
+			}
+		} else {
+			WritableByteChannel target = Channels.newChannel(out);
+			try (FileChannel channel = FileChannel.open(file.getLocalPath(), StandardOpenOption.READ)) {
+				for (int i = 0; i < regions.size(); i++) {
+					out.write(partHeaders.get(i));
+					transfer(channel, regions.get(i).getPosition(), regions.get(i).getCount(), target);
+				}
+			}
+		}
+		out.write(end);
+	}
+	
+	// Range malformado (sintaxe, unidade que nao e bytes, fim antes do inicio) e ignorado, como manda a
+	// RFC 9110 (14.2): null e a resposta sai inteira; o 416 fica para intervalos validos fora do arquivo
+	private static List<HttpRange> parseRanges(String range) {
+		if (range == null) return null;
+		try {
+			List<HttpRange> ranges = HttpRange.parseRanges(range);
+			return ranges.isEmpty() ? null : ranges;
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+	
+	// mesmas regras do HttpRange.toResourceRegions: inicio dentro do arquivo e, com varios intervalos,
+	// soma menor que o arquivo (evita respostas maiores que o proprio arquivo)
+	private static List<Region> toRegions(List<HttpRange> ranges, long length) {
+		List<Region> regions = new ArrayList<>(ranges.size());
+		long total = 0;
+		for (HttpRange range : ranges) {
+			long start = range.getRangeStart(length);
+			long end = range.getRangeEnd(length);
+			if (start >= length || end < start) {
+				throw new IllegalArgumentException("Range " + range + " outside of length " + length);
+			}
+			regions.add(new Region(start, end - start + 1));
+			total += end - start + 1;
+		}
+		if (regions.isEmpty() || (regions.size() > 1 && total >= length)) {
+			throw new IllegalArgumentException("Invalid ranges for length " + length);
+		}
+		return regions;
+	}
+	
+	private static void transfer(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+		long end = position + count;
+		while (position < end) {
+			long transferred = channel.transferTo(position, end - position, target);
+			// arquivo truncado durante o envio
+			if (transferred <= 0) throw new EOFException("File ended at byte " + position + " of " + end);
+			position += transferred;
+		}
+	}
+	
+	private static void write(ByteBuffer content, long position, long count, WritableByteChannel target) throws IOException {
+		content.limit((int) (position + count)).position((int) position);
+		while (content.hasRemaining()) {
+			target.write(content);
+		}
+	}
+	
+	private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (ifRange == null) return true;
+		
+		// validador ETag: so vale comparacao forte, W/"..." nunca casa
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) return etag.equals(ifRange.trim());
+		
+		try {
+			// HTTP-date tem precisao de segundos
+			return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+	
+	private static String etag(long length, long lastModified) {
+		return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+	}
+	
+	// representacao diferente, ETag diferente: o cache do cliente nao mistura gzip com o original
+	private static String gzipEtag(String etag) {
+		return etag.substring(0, etag.length() - 1) + "-" + GzipVariants.ENCODING + "\"";
+	}
+	
+	private static String contentRange(Region region, long length) {
+		long start = region.getPosition();
+		return "bytes " + start + "-" + (start + region.getCount() - 1) + "/" + length;
+	}
+	
+	private static String contentType(HttpServletRequest request, String filename) {
+		String contentType = request.getServletContext().getMimeType(filename);
+		return (contentType == null || contentType.isBlank()) ? DEFAULT_CONTENT_TYPE : contentType;
+	}
+	
+	private static boolean isHead(HttpServletRequest request) {
+		return HttpMethod.HEAD.matches(request.getMethod());
+	}
+	
+	private static final class Region {
+		
+		private final long position;
+		private final long count;
+		
+		private Region(long position, long count) {
+			this.position = position;
+			this.count = count;
+		}
+		
+		private long getPosition() {
+			return position;
+		}
+		
+		private long getCount() {
+			return count;
+		}
+	}
+}
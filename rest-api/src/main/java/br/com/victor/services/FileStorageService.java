@@ -1,10 +1,36 @@
 package br.com.victor.services;
 
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadBase;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
@@ -12,13 +38,41 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import br.com.victor.config.FileStorageConfig;
+import br.com.victor.data.vo.v1.UploadFileResponseVO;
 import br.com.victor.exceptions.FileStorageException;
 import br.com.victor.exceptions.MyFileNotFoundException;
+import br.com.victor.storage.GzipVariants;
+import br.com.victor.storage.HotFileCache;
+import br.com.victor.storage.StoredObject;
+import jakarta.servlet.http.HttpServletRequest;
 
 @Service
 public class FileStorageService {
 	
+	private static final String CHECKSUM_ALGORITHM = "SHA-256";
+	
+	private Logger logger = Logger.getLogger(FileStorageService.class.getName());
+	
 	private final Path fileStorageLocation;
+	
+	@Autowired
+	private MultipartProperties multipartProperties;
+	
+	@Autowired
+	private FileBlobService blobService;
+	
+	@Autowired
+	private HotFileCache hotFileCache;
+	
+	@Autowired
+	private GzipVariants gzipVariants;
+	
+	@Autowired
+	@Qualifier("fileUploadExecutor")
+	private ExecutorService uploadExecutor;
+	
+	@Value("${file.upload.parallelism-per-request:4}")
+	private int parallelismPerRequest = 4;
 
 	public FileStorageService(FileStorageConfig fileStorageConfig) {
 		Path path = Paths.get(fileStorageConfig.getUploadDir())
@@ -34,23 +88,131 @@ public class FileStorageService {
 	}
 	
 	public String storeFile(MultipartFile file) {
-		String filename = StringUtils.cleanPath(file.getOriginalFilename());
+		try {
+			return storeFile(file.getOriginalFilename(), file.getContentType(), file.getInputStream()).getFileName();
+		} catch (FileStorageException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new FileStorageException("Could not store file "+ file.getOriginalFilename() + ". Please try again!", e);
+		}
+	}
+	
+	// upload em lote: cada arquivo grava no pool compartilhado (limite global) e o semaforo limita
+	// quantos arquivos do mesmo request ficam em voo. A resposta segue a ordem de entrada e um arquivo
+	// com falha vira uma entrada com error, sem derrubar o lote
+	public List<UploadFileResponseVO> storeFiles(List<MultipartFile> files) {
+		Semaphore permits = new Semaphore(parallelismPerRequest);
+		
+		List<Future<UploadFileResponseVO>> pending = new ArrayList<>(files.size());
+		for (MultipartFile file : files) {
+			pending.add(submit(file, permits));
+		}
 		
+		List<UploadFileResponseVO> stored = new ArrayList<>(files.size());
+		for (int i = 0; i < files.size(); i++) {
+			stored.add(await(files.get(i), pending.get(i)));
+		}
+		return stored;
+	}
+	
+	// upload em streaming: le o corpo multipart direto do request (sem o spool do container)
+	// e grava cada arquivo uma unica vez no diretorio final. Depende de spring.servlet.multipart.resolve-lazily
+	public List<UploadFileResponseVO> storeMultipartStream(HttpServletRequest request) {
+		if (!isMultipart(request)) {
+			throw new FileStorageException("Sorry! request is not a multipart upload");
+		}
+		
+		FileUpload upload = new FileUpload();
+		upload.setFileSizeMax(multipartProperties.getMaxFileSize().toBytes());
+		upload.setSizeMax(multipartProperties.getMaxRequestSize().toBytes());
+		
+		List<UploadFileResponseVO> stored = new ArrayList<>();
 		try {
-			// filename..txt <- example
-			if(filename.contains("..")) {
-				throw new FileStorageException("Sorry! filename contians invalid path sequence " + filename);
+			FileItemIterator items = upload.getItemIterator(new ServletRequestContext(request));
+			while (items.hasNext()) {
+				FileItemStream item = items.next();
+				if (item.isFormField() || !StringUtils.hasText(item.getName())) continue;
+				
+				try (InputStream in = item.openStream()) {
+					stored.add(storeFile(item.getName(), item.getContentType(), in));
+				}
 			}
-			// para salvar na nuvem ou no banco de dados pesquisar mais e mudar essas duas linhas abaixo
-			Path targetLocation = this.fileStorageLocation.resolve(filename);
-			Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+		} catch (FileStorageException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new FileStorageException("Could not read the multipart upload. Please try again!", e);
+		}
+		return stored;
+	}
+	
+	// grava num nome temporario no mesmo diretorio calculando o SHA-256 na mesma passada; o temporario
+	// vira o blob (rename atomico) ou e descartado quando o conteudo ja existe. Tipos de texto ganham
+	// tambem a variante gzip, servida pronta no download
+	public UploadFileResponseVO storeFile(String originalFilename, String contentType, InputStream in) {
+		if (!StringUtils.hasText(originalFilename)) {
+			throw new FileStorageException("Sorry! file has no name");
+		}
+		String filename = StringUtils.getFilename(StringUtils.cleanPath(originalFilename));
+		
+		// filename..txt <- example
+		if(filename.contains("..")) {
+			throw new FileStorageException("Sorry! filename contians invalid path sequence " + filename);
+		}
+		
+		Path temp = null;
+		Path gzip = null;
+		try {
+			MessageDigest digest = MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+			// para salvar na nuvem ou no banco de dados pesquisar mais e mudar essas linhas abaixo
+			temp = Files.createTempFile(this.fileStorageLocation, ".upload-", ".tmp");
+			long size = Files.copy(new DigestInputStream(in, digest), temp, StandardCopyOption.REPLACE_EXISTING);
+			String checksum = HexFormat.of().formatHex(digest.digest());
+			gzip = gzipVariants.compress(temp, contentType, size);
+			// guarda por conteudo: o mesmo hash reaproveita o blob e o nome so passa a apontar para ele
+			blobService.link(filename, contentType, checksum, size, temp, gzip);
+			// o nome pode ter passado a apontar para outro conteudo
+			hotFileCache.invalidate(filename);
 			
-			return filename;
+			UploadFileResponseVO vo = new UploadFileResponseVO(filename, null, contentType, size);
+			vo.setChecksum(checksum);
+			return vo;
 		} catch (Exception e) {
+			deleteQuietly(temp);
+			deleteQuietly(gzip);
 			throw new FileStorageException("Could not store file "+ filename + ". Please try again!", e);
 		}
 	}
 	
+	// arquivo para download: pelo indice nome -> blob; uploads anteriores ao indice continuam soltos
+	// no diretorio de upload ate rodar a migracao (sem sair dele via ../)
+	public StoredObject resolve(String filename) {
+		try {
+			Optional<StoredObject> blob = blobService.findBlob(filename);
+			if (blob.isPresent()) return blob.get();
+			
+			Path filePath = this.fileStorageLocation.resolve(filename).normalize();
+			if (!filePath.startsWith(this.fileStorageLocation) || !Files.isRegularFile(filePath)) {
+				throw new MyFileNotFoundException("File not found " + filename);
+			}
+			BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+			return StoredObject.ofLocalFile(filePath, attributes.size(), attributes.lastModifiedTime().toMillis());
+		} catch (MyFileNotFoundException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new MyFileNotFoundException("File not found " + filename, e);
+		}
+	}
+	
+	// variante gzip do arquivo, ou null; sem a variante o download sai sem compressao
+	public StoredObject resolveGzipVariant(StoredObject file) {
+		try {
+			return blobService.findGzipVariant(file).orElse(null);
+		} catch (Exception e) {
+			logger.log(Level.WARNING, "Could not read the gzip variant of " + file.getKey(), e);
+			return null;
+		}
+	}
+	
 	public Resource loadFileAsResource(String filename) {
 		try {
 			
@@ -65,5 +227,62 @@ public class FileStorageService {
 		}
 	}
 	
+	private Future<UploadFileResponseVO> submit(MultipartFile file, Semaphore permits) {
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return CompletableFuture.failedFuture(e);
+		}
+		
+		try {
+			return uploadExecutor.submit(() -> {
+				try (InputStream in = file.getInputStream()) {
+					return storeFile(file.getOriginalFilename(), file.getContentType(), in);
+				} finally {
+					permits.release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			permits.release();
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+	
+	private static UploadFileResponseVO await(MultipartFile file, Future<UploadFileResponseVO> pending) {
+		try {
+			return pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return failed(file, "Upload interrupted. Please try again!");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof FileStorageException) return failed(file, cause.getMessage());
+			if (cause instanceof RejectedExecutionException) return failed(file, "Too many uploads in progress. Please try again!");
+			if (cause instanceof InterruptedException) return failed(file, "Upload interrupted. Please try again!");
+			return failed(file, "Could not store file " + file.getOriginalFilename() + ". Please try again!");
+		}
+	}
+	
+	private static UploadFileResponseVO failed(MultipartFile file, String error) {
+		UploadFileResponseVO vo = new UploadFileResponseVO(file.getOriginalFilename(), null, file.getContentType(), file.getSize());
+		vo.setError(error);
+		return vo;
+	}
+	
+	// o Tomcat 10.1 nao traz mais o ServletFileUpload.isMultipartContent; mesma regra: Content-Type multipart/*
+	private static boolean isMultipart(HttpServletRequest request) {
+		String contentType = request.getContentType();
+		return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(FileUploadBase.MULTIPART);
+	}
+	
+	private static void deleteQuietly(Path path) {
+		if (path == null) return;
+		try {
+			Files.deleteIfExists(path);
+		} catch (Exception e) {
+			// o arquivo temporario fica para tras; nao esconde o erro original
+		}
+	}
 	
 }
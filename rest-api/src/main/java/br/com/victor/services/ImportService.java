@@ -0,0 +1,444 @@
+package br.com.victor.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import br.com.victor.config.CacheConfig;
+import br.com.victor.data.vo.v1.BookVO;
+import br.com.victor.data.vo.v1.BulkItemResultVO;
+import br.com.victor.data.vo.v1.ImportJobVO;
+import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.exceptions.TooManyImportsException;
+import br.com.victor.exceptions.UnsupportedImportFormatException;
+import br.com.victor.storage.StoredObject;
+import br.com.victor.util.CsvRecords;
+
+/**
+ * Importacao de pessoas e livros a partir de um arquivo CSV ou NDJSON ja gravado pelo {@link FileStorageService}.
+ *
+ * O job le o arquivo em sequencia e so separa os registros; cada bloco de {@code import.chunk-size}
+ * registros vai para o pool de importacao, onde e feito o parse, a validacao (as mesmas regras dos
+ * endpoints /bulk) e um unico batch JDBC de INSERT, sem entidades nem persistence context. Os ids saem
+ * em bloco das tabelas de id do Hibernate (V16), entao nao colidem com os inserts feitos pelo JPA.
+ * O estado do job (contadores e erros por linha) fica em memoria por {@code import.retention-minutes}.
+ */
+@Service
+public class ImportService {
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private static final Target<PersonVO> PEOPLE = new Target<>("people", "person_seq", CacheConfig.PERSON_COUNTS,
+			"INSERT INTO person (id, first_name, last_name, address, gender, version) VALUES (?, ?, ?, ?, ?, 0)",
+			PersonVO.class, ImportService::toPerson, PersonServices::validate,
+			(id, person) -> new Object[] { id, person.getFirstName(), person.getLastName(), person.getAddress(), person.getGender() });
+	
+	private static final Target<BookVO> BOOKS = new Target<>("books", "books_seq", CacheConfig.BOOK_COUNTS,
+			"INSERT INTO books (id, author, launch_date, price, title, version) VALUES (?, ?, ?, ?, ?, 0)",
+			BookVO.class, ImportService::toBook, BookServices::validate,
+			(id, book) -> new Object[] { id, book.getAuthor(), new java.sql.Date(book.getLaunchDate().getTime()), book.getPrice(), book.getTitle() });
+	
+	private Logger logger = Logger.getLogger(ImportService.class.getName());
+	
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+	
+	@Autowired
+	FileStorageService fileStorageService;
+	
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	@Autowired
+	ObjectMapper objectMapper;
+	
+	@Autowired
+	CacheManager cacheManager;
+	
+	@Autowired
+	@Qualifier("importJobExecutor")
+	ExecutorService jobExecutor;
+	
+	@Autowired
+	@Qualifier("importChunkExecutor")
+	ExecutorService chunkExecutor;
+	
+	@Value("${import.chunk-size:5000}")
+	int chunkSize = 5000;
+	
+	@Value("${import.parallelism-per-job:4}")
+	int parallelismPerJob = 4;
+	
+	@Value("${import.max-errors:1000}")
+	int maxErrors = 1000;
+	
+	@Value("${import.retention-minutes:60}")
+	long retentionMinutes = 60;
+	
+	public ImportJobVO importPeople(String fileName, String format) {
+		return start(PEOPLE, fileName, format);
+	}
+	
+	public ImportJobVO importBooks(String fileName, String format) {
+		return start(BOOKS, fileName, format);
+	}
+	
+	public ImportJobVO findJob(String id) {
+		Job job = jobs.get(id);
+		if (job == null) throw new ResourceNotFoundException("No import found with this ID");
+		return job.toVO();
+	}
+	
+	private <T> ImportJobVO start(Target<T> target, String fileName, String format) {
+		String resolvedFormat = resolveFormat(fileName, format);
+		// arquivo inexistente responde 404 aqui, antes de aceitar o job
+		StoredObject file = fileStorageService.resolve(fileName);
+		
+		purgeFinishedJobs();
+		Job job = new Job(UUID.randomUUID().toString(), target.name, fileName, resolvedFormat, maxErrors);
+		jobs.put(job.id, job);
+		try {
+			jobExecutor.execute(() -> run(job, target, file));
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.id);
+			throw new TooManyImportsException();
+		}
+		
+		logger.info("Import " + job.id + " of " + target.name + " from " + fileName + " queued");
+		return job.toVO();
+	}
+	
+	private <T> void run(Job job, Target<T> target, StoredObject file) {
+		job.running();
+		Semaphore permits = new Semaphore(parallelismPerJob);
+		boolean csv = "csv".equals(job.format);
+		String error = null;
+		
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.openStream(), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			RowParser<T> parser = csv ? csvParser(target, CsvRecords.next(reader)) : ndjsonParser(target);
+			
+			long firstRow = 1;
+			List<String> chunk = new ArrayList<>(chunkSize);
+			String record;
+			while ((record = csv ? CsvRecords.next(reader) : nextLine(reader)) != null) {
+				chunk.add(record);
+				job.rowsRead.incrementAndGet();
+				if (chunk.size() == chunkSize) {
+					submit(job, target, parser, chunk, firstRow, permits);
+					firstRow += chunk.size();
+					chunk = new ArrayList<>(chunkSize);
+				}
+			}
+			if (!chunk.isEmpty()) submit(job, target, parser, chunk, firstRow, permits);
+		} catch (Exception e) {
+			logger.log(Level.WARNING, "Import " + job.id + " could not read " + job.fileName, e);
+			error = "Could not read the file " + job.fileName + ": " + e.getMessage();
+		}
+		
+		// espera os blocos que ainda estao gravando
+		permits.acquireUninterruptibly(parallelismPerJob);
+		cacheManager.getCache(target.countCache).clear();
+		job.finished(error);
+		
+		logger.info("Import " + job.id + " finished: " + job.rowsImported.get() + " imported, " + job.rowsFailed.get() + " failed");
+	}
+	
+	// no maximo parallelismPerJob blocos em voo por job; com o pool cheio o proprio job grava o bloco
+	private <T> void submit(Job job, Target<T> target, RowParser<T> parser, List<String> records, long firstRow, Semaphore permits) {
+		permits.acquireUninterruptibly();
+		Runnable task = () -> {
+			try {
+				writeChunk(job, target, parser, records, firstRow);
+			} finally {
+				permits.release();
+			}
+		};
+		try {
+			chunkExecutor.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.run();
+		}
+	}
+	
+	private <T> void writeChunk(Job job, Target<T> target, RowParser<T> parser, List<String> records, long firstRow) {
+		List<T> valid = new ArrayList<>(records.size());
+		List<Long> validRows = new ArrayList<>(records.size());
+		for (int i = 0; i < records.size(); i++) {
+			long row = firstRow + i;
+			String error;
+			T item = null;
+			try {
+				item = parser.parse(records.get(i));
+				error = target.validator.apply(item);
+			} catch (IllegalArgumentException e) {
+				error = e.getMessage();
+			}
+			if (error != null) {
+				job.failed(row, HttpStatus.BAD_REQUEST.value(), error);
+			} else {
+				valid.add(item);
+				validRows.add(row);
+			}
+		}
+		if (valid.isEmpty()) return;
+		
+		try {
+			long firstId = allocateIds(target, valid.size());
+			List<Object[]> batch = new ArrayList<>(valid.size());
+			for (int j = 0; j < valid.size(); j++) {
+				batch.add(target.parameters.apply(firstId + j, valid.get(j)));
+			}
+			// um batch JDBC por bloco; com rewriteBatchedStatements vira INSERTs multi-valores
+			new TransactionTemplate(transactionManager)
+				.executeWithoutResult(status -> jdbcTemplate.batchUpdate(target.insertSql, batch));
+			job.rowsImported.addAndGet(valid.size());
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Import " + job.id + " chunk starting at row " + firstRow + " failed", e);
+			for (Long row : validRows) {
+				job.failed(row, HttpStatus.INTERNAL_SERVER_ERROR.value(),
+						"Could not persist the chunk starting at row " + firstRow + ". Please try again!");
+			}
+		}
+	}
+	
+	// reserva count ids na tabela de id do Hibernate, com o mesmo protocolo do optimizer pooled-lo
+	// (next_val e o primeiro id livre); transacao curta e separada para nao segurar a linha durante o INSERT
+	private long allocateIds(Target<?> target, int count) {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			Long next = jdbcTemplate.queryForObject("SELECT next_val FROM " + target.sequenceTable + " FOR UPDATE", Long.class);
+			jdbcTemplate.update("UPDATE " + target.sequenceTable + " SET next_val = ?", next + count);
+			return next;
+		});
+	}
+	
+	private <T> RowParser<T> ndjsonParser(Target<T> target) {
+		ObjectReader reader = objectMapper.readerFor(target.type);
+		return record -> {
+			try {
+				return reader.readValue(record);
+			} catch (JsonProcessingException e) {
+				throw new IllegalArgumentException("Row is not valid JSON");
+			}
+		};
+	}
+	
+	// colunas pelo nome do cabecalho: aceita o nome do campo (firstName) ou da coluna (first_name)
+	private static <T> RowParser<T> csvParser(Target<T> target, String header) {
+		if (header == null) return record -> null;
+		List<String> columns = new ArrayList<>();
+		for (String column : CsvRecords.parse(header)) {
+			columns.add(column.trim().replace("_", "").toLowerCase(Locale.ROOT));
+		}
+		return record -> {
+			List<String> fields = CsvRecords.parse(record);
+			if (fields.size() != columns.size()) {
+				throw new IllegalArgumentException("Row has " + fields.size() + " fields but the header has " + columns.size());
+			}
+			Map<String, String> values = new HashMap<>();
+			for (int i = 0; i < fields.size(); i++) {
+				if (!fields.get(i).isEmpty()) values.put(columns.get(i), fields.get(i));
+			}
+			return target.fromCsv.apply(values);
+		};
+	}
+	
+	private static PersonVO toPerson(Map<String, String> values) {
+		PersonVO person = new PersonVO();
+		person.setFirstName(values.get("firstname"));
+		person.setLastName(values.get("lastname"));
+		person.setAddress(values.get("address"));
+		person.setGender(values.get("gender"));
+		return person;
+	}
+	
+	private static BookVO toBook(Map<String, String> values) {
+		BookVO book = new BookVO();
+		book.setAuthor(values.get("author"));
+		book.setLaunchDate(parseDate(values.get("launchdate")));
+		book.setTitle(values.get("title"));
+		String price = values.get("price");
+		if (price != null) {
+			try {
+				book.setPrice(Double.valueOf(price));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("price is not a number");
+			}
+		}
+		return book;
+	}
+	
+	// epoch em milissegundos, yyyy-MM-dd (formato da exportacao) ou data e hora ISO
+	private static Date parseDate(String value) {
+		if (value == null) return null;
+		try {
+			if (value.chars().allMatch(Character::isDigit)) return new Date(Long.parseLong(value));
+			if (value.length() == 10) return java.sql.Date.valueOf(value);
+			return Timestamp.valueOf(value.replace('T', ' '));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("launchDate is not a valid date");
+		}
+	}
+	
+	private static String nextLine(BufferedReader reader) throws IOException {
+		String line;
+		do {
+			line = reader.readLine();
+		} while (line != null && line.isBlank());
+		return line;
+	}
+	
+	// formato pelo parametro ou, sem ele, pela extensao do arquivo (.csv, .ndjson ou .jsonl)
+	private static String resolveFormat(String fileName, String format) {
+		String resolved = StringUtils.hasText(format) ? format : StringUtils.getFilenameExtension(fileName);
+		if (resolved != null) resolved = resolved.toLowerCase(Locale.ROOT);
+		if ("jsonl".equals(resolved)) resolved = "ndjson";
+		if (!"csv".equals(resolved) && !"ndjson".equals(resolved)) throw new UnsupportedImportFormatException(String.valueOf(resolved));
+		return resolved;
+	}
+	
+	private void purgeFinishedJobs() {
+		long expiredBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+		jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.getTime() < expiredBefore);
+	}
+	
+	@FunctionalInterface
+	private interface RowParser<T> {
+		
+		// IllegalArgumentException vira erro da linha
+		T parse(String record);
+	}
+	
+	private static final class Target<T> {
+		
+		private final String name;
+		private final String sequenceTable;
+		private final String countCache;
+		private final String insertSql;
+		private final Class<T> type;
+		private final Function<Map<String, String>, T> fromCsv;
+		private final Function<T, String> validator;
+		private final BiFunction<Long, T, Object[]> parameters;
+		
+		private Target(String name, String sequenceTable, String countCache, String insertSql, Class<T> type,
+				Function<Map<String, String>, T> fromCsv, Function<T, String> validator, BiFunction<Long, T, Object[]> parameters) {
+			this.name = name;
+			this.sequenceTable = sequenceTable;
+			this.countCache = countCache;
+			this.insertSql = insertSql;
+			this.type = type;
+			this.fromCsv = fromCsv;
+			this.validator = validator;
+			this.parameters = parameters;
+		}
+	}
+	
+	// contadores atualizados pelas threads dos blocos; o status le um retrato a cada consulta
+	private static final class Job {
+		
+		private final String id;
+		private final String target;
+		private final String fileName;
+		private final String format;
+		private final int maxErrors;
+		private final AtomicLong rowsRead = new AtomicLong();
+		private final AtomicLong rowsImported = new AtomicLong();
+		private final AtomicLong rowsFailed = new AtomicLong();
+		private final List<BulkItemResultVO> errors = new ArrayList<>();
+		private volatile String status = "QUEUED";
+		private volatile String error;
+		private volatile Date startedAt;
+		private volatile Date finishedAt;
+		
+		private Job(String id, String target, String fileName, String format, int maxErrors) {
+			this.id = id;
+			this.target = target;
+			this.fileName = fileName;
+			this.format = format;
+			this.maxErrors = maxErrors;
+		}
+		
+		private void running() {
+			startedAt = new Date();
+			status = "RUNNING";
+		}
+		
+		private void finished(String error) {
+			this.error = error;
+			finishedAt = new Date();
+			status = error == null ? "COMPLETED" : "FAILED";
+		}
+		
+		private void failed(long row, int httpStatus, String message) {
+			rowsFailed.incrementAndGet();
+			synchronized (errors) {
+				if (errors.size() < maxErrors) errors.add(new BulkItemResultVO((int) row, null, httpStatus, message));
+			}
+		}
+		
+		private ImportJobVO toVO() {
+			ImportJobVO vo = new ImportJobVO();
+			vo.setId(id);
+			vo.setTarget(target);
+			vo.setFileName(fileName);
+			vo.setFormat(format);
+			vo.setStatus(status);
+			vo.setRowsRead(rowsRead.get());
+			vo.setRowsImported(rowsImported.get());
+			vo.setRowsFailed(rowsFailed.get());
+			vo.setStartedAt(startedAt);
+			vo.setFinishedAt(finishedAt);
+			vo.setError(error);
+			if (startedAt != null) {
+				long end = finishedAt != null ? finishedAt.getTime() : System.currentTimeMillis();
+				long elapsed = Math.max(1, end - startedAt.getTime());
+				vo.setRowsPerSecond((vo.getRowsImported() + vo.getRowsFailed()) * 1000 / elapsed);
+			}
+			List<BulkItemResultVO> snapshot;
+			synchronized (errors) {
+				snapshot = new ArrayList<>(errors);
+			}
+			// os blocos terminam fora de ordem
+			snapshot.sort(Comparator.comparingInt(BulkItemResultVO::getIndex));
+			vo.setErrors(snapshot);
+			return vo;
+		}
+	}
+}
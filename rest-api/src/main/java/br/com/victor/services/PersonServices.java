@@ -1,27 +1,56 @@
 package br.com.victor.services;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
-
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriUtils;
 
+import br.com.victor.config.CacheConfig;
 import br.com.victor.controllers.PersonController;
+import br.com.victor.data.vo.v1.BulkItemResultVO;
 import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.exceptions.ConcurrentUpdateException;
 import br.com.victor.exceptions.RequiredObjectIsNullException;
 //import br.com.victor.data.vo.v2.PersonVOV2;
 import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.hateoas.SelfLinkFactory;
 import br.com.victor.mapper.Mapper;
 import br.com.victor.mapper.custom.PersonMapper;
 import br.com.victor.model.Person;
 import br.com.victor.repositories.PersonRepository;
+import br.com.victor.util.AfterCommit;
+import br.com.victor.util.KeysetCursor;
+import br.com.victor.util.KeysetPage;
 
 @Service
 public class PersonServices {
@@ -37,16 +66,27 @@ public class PersonServices {
 	@Autowired
 	PagedResourcesAssembler<PersonVO> assembler;
 
-	public PagedModel<EntityModel<PersonVO>> findAll(Pageable pageable) {
+	@Autowired
+	SelfLinkFactory linkFactory;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Autowired
+	BulkWriter bulkWriter;
+
+	// leitura em transacao somente leitura: sem flush no commit e sem snapshot de entidades
+	@Transactional(readOnly = true)
+	public PagedModel<EntityModel<PersonVO>> findAll(Pageable pageable, boolean withCount) {
 
 		logger.info("Finding all persons");
 
-		// usa propriedade do repository com paginação
-		var personPage = repository.findAll(pageable);
-		// converte para VO
-		var personVosPage = personPage.map(p -> Mapper.parseObject(p, PersonVO.class));
-		// HATEOAS
-		personVosPage.map(p -> p.add(linkTo(methodOn(PersonController.class).findById(p.getId())).withSelfRel()));
+		// usa propriedade do repository com paginação; o conteudo vem sem o SELECT COUNT(*)
+		var personSlice = repository.findPeopleSlice(pageable);
+		// HATEOAS: URI base calculada uma vez por request
+		var links = linkFactory.forController(PersonController.class);
+		// a consulta ja devolve o VO; so falta o link self
+		var personVosSlice = personSlice.map(p -> withSelfLink(p, links));
 
 		/*
 		 * MANEIRA SEM PAGINAÇÃO List<PersonVO> persons =
@@ -56,41 +96,95 @@ public class PersonServices {
 		 * withSelfRel()));
 		 */
 
-		Link link = linkTo(
-				methodOn(PersonController.class).findAll(pageable.getPageNumber(), pageable.getPageSize(), "asc"))
-				.withSelfRel();
+		if (!withCount) return toSliceModel(personVosSlice, links, "");
+
+		long total = count("all", () -> repository.count());
+		Link link = links.forPage(pageable, sortDirection(pageable));
 
-		return assembler.toModel(personVosPage, link);
+		return assembler.toModel(new PageImpl<>(personVosSlice.getContent(), pageable, total), link);
 	}
 	
-	public PagedModel<EntityModel<PersonVO>> findPersonByName(String firstname, Pageable pageable) {
+	@Transactional(readOnly = true)
+	public PagedModel<EntityModel<PersonVO>> findPersonByName(String firstname, Pageable pageable, boolean withCount) {
 		
 		logger.info("Finding persons by name");
 		
-		// usa propriedade do repository com paginação
-		var personPage = repository.findPersonsByName(firstname, pageable);
-		// converte para VO
-		var personVosPage = personPage.map(p -> Mapper.parseObject(p, PersonVO.class));
-		// HATEOAS
-		personVosPage.map(p -> p.add(linkTo(methodOn(PersonController.class).findById(p.getId())).withSelfRel()));
+		// usa propriedade do repository com paginação; o conteudo vem sem o SELECT COUNT(*)
+		var personSlice = repository.findPersonsByName(firstname, pageable);
+		// HATEOAS: URI base calculada uma vez por request
+		var links = linkFactory.forController(PersonController.class);
+		// a consulta ja devolve o VO; so falta o link self
+		var personVosSlice = personSlice.map(p -> withSelfLink(p, links));
+		
+		if (!withCount) {
+			String path = "/findPersonByName/" + UriUtils.encodePathSegment(firstname, StandardCharsets.UTF_8);
+			return toSliceModel(personVosSlice, links, path);
+		}
 		
-		Link link = linkTo(
-				methodOn(PersonController.class).findAll(pageable.getPageNumber(), pageable.getPageSize(), "asc"))
-				.withSelfRel();
+		long total = count("name:" + firstname, () -> repository.countPersonsByName(firstname));
+		Link link = links.forPage(pageable, sortDirection(pageable));
 		
-		return assembler.toModel(personVosPage, link);
+		return assembler.toModel(new PageImpl<>(personVosSlice.getContent(), pageable, total), link);
 	}
 
+	@Transactional(readOnly = true)
+	public CollectionModel<PersonVO> findAllByKeyset(String cursor, Integer limit, Direction direction) {
+		
+		logger.info("Finding persons by keyset");
+		
+		// paginacao por keyset: busca a partir de (firstName, id) do cursor, sem OFFSET e sem COUNT
+		KeysetCursor position = (cursor == null || cursor.isBlank()) ? null : KeysetCursor.decode(cursor);
+		Slice<PersonVO> slice;
+		if (position == null) {
+			slice = repository.findPeopleSlice(PageRequest.of(0, limit, Sort.by(direction, "firstName", "id")));
+		} else if (direction.isAscending() != position.isBackward()) {
+			slice = repository.findPeopleAfter(position.getKey(), position.getId(), PageRequest.of(0, limit));
+		} else {
+			slice = repository.findPeopleBefore(position.getKey(), position.getId(), PageRequest.of(0, limit));
+		}
+		KeysetPage<PersonVO> page = KeysetPage.of(slice, position);
+		
+		var links = linkFactory.forController(PersonController.class);
+		List<PersonVO> people = page.getContent().stream().map(e -> withSelfLink(e, links)).collect(Collectors.toList());
+		
+		String sortDirection = direction.isAscending() ? "asc" : "desc";
+		List<Link> pageLinks = new ArrayList<>();
+		pageLinks.add(links.forCursor("/keyset", cursor, limit, sortDirection, IanaLinkRelations.SELF));
+		if (page.hasNext()) {
+			PersonVO last = page.getLast();
+			String next = KeysetCursor.after(last.getFirstName(), last.getId()).encode();
+			pageLinks.add(links.forCursor("/keyset", next, limit, sortDirection, IanaLinkRelations.NEXT));
+		}
+		if (page.hasPrevious()) {
+			PersonVO first = page.getFirst();
+			String prev = KeysetCursor.before(first.getFirstName(), first.getId()).encode();
+			pageLinks.add(links.forCursor("/keyset", prev, limit, sortDirection, IanaLinkRelations.PREV));
+		}
+		
+		return CollectionModel.of(people, pageLinks);
+	}
+
+	@Transactional(readOnly = true)
 	public PersonVO findById(Long id) {
 
 		logger.info("Finding one person");
 
-		Person entity = repository.findById(id)
-				.orElseThrow(() -> new ResourceNotFoundException("No records found this ID"));
-
-		PersonVO vo = Mapper.parseObject(entity, PersonVO.class);
+		// read-through: so vai ao banco quando o id nao esta no cache; o cache guarda o VO sem links.
+		// O load roda dentro do compute do cache: um evict do mesmo id espera o load e descarta o valor,
+		// entao uma linha lida antes do commit de uma escrita nao volta para o cache depois do evict
+		PersonVO cached;
+		try {
+			cached = cache().get(id, () -> repository.findVOById(id)
+					.orElseThrow(() -> new ResourceNotFoundException("No records found this ID")));
+		} catch (Cache.ValueRetrievalException e) {
+			if (e.getCause() instanceof RuntimeException cause) throw cause;
+			throw e;
+		}
+
+		// copia: o link do request nao pode ir parar na instancia compartilhada pelo cache
+		PersonVO vo = copy(cached);
 		// HATEOAS
-		vo.add(linkTo(methodOn(PersonController.class).findById(id)).withSelfRel());
+		vo.add(linkFactory.forController(PersonController.class).forId(id));
 
 		return vo;
 	}
@@ -103,10 +197,14 @@ public class PersonServices {
 		logger.info("Create one person");
 
 		Person entity = Mapper.parseObject(person, Person.class);
+		// insert: a versao comeca no @Version do Hibernate, nao na enviada pelo cliente
+		entity.setVersion(null);
 
 		PersonVO vo = Mapper.parseObject(repository.save(entity), PersonVO.class);
+		evictAfterCommit(vo.getId());
+		clearCountsAfterCommit();
 		// HATEOAS
-		vo.add(linkTo(methodOn(PersonController.class).findById(vo.getId())).withSelfRel());
+		vo.add(linkFactory.forController(PersonController.class).forId(vo.getId()));
 
 		return vo;
 	}
@@ -130,17 +228,29 @@ public class PersonServices {
 
 		logger.info("Update one person");
 
-		Person entity = repository.findById(person.getId())
-				.orElseThrow(() -> new ResourceNotFoundException("No records found this ID"));
-
-		entity.setFirstName(person.getFirstName());
-		entity.setLastName(person.getLastName());
-		entity.setAddress(person.getAddress());
-		entity.setGender(person.getGender());
-
-		PersonVO vo = Mapper.parseObject(repository.save(entity), PersonVO.class);
+		// UPDATE ... WHERE id direto no banco: sem SELECT antes e sem entidade gerenciada
+		int updated = repository.updatePerson(person.getId(), person.getFirstName(), person.getLastName(),
+				person.getAddress(), person.getGender(), person.getVersion());
+		if (updated == 0) {
+			// com versao, nenhuma linha afetada pode ser o id existindo numa versao mais nova
+			if (person.getId() != null && person.getVersion() != null && repository.existsById(person.getId())) {
+				throw new ConcurrentUpdateException();
+			}
+			throw new ResourceNotFoundException("No records found this ID");
+		}
+		evictAfterCommit(person.getId());
+		clearCountsAfterCommit();
+
+		PersonVO vo = new PersonVO();
+		vo.setId(person.getId());
+		vo.setFirstName(person.getFirstName());
+		vo.setLastName(person.getLastName());
+		vo.setAddress(person.getAddress());
+		vo.setGender(person.getGender());
+		// a versao nova so e conhecida quando o cliente mandou a anterior
+		if (person.getVersion() != null) vo.setVersion(person.getVersion() + 1);
 		// HATEOAS
-		vo.add(linkTo(methodOn(PersonController.class).findById(vo.getId())).withSelfRel());
+		vo.add(linkFactory.forController(PersonController.class).forId(vo.getId()));
 
 		return vo;
 	}
@@ -149,11 +259,200 @@ public class PersonServices {
 
 		logger.info("Delete one person");
 
-		Person entity = repository.findById(id)
-				.orElseThrow(() -> new ResourceNotFoundException("No records found this ID"));
+		// DELETE ... WHERE id direto: sem carregar a entidade antes
+		if (repository.deletePersonById(id) == 0) {
+			throw new ResourceNotFoundException("No records found this ID");
+		}
+		evictAfterCommit(id);
+		clearCountsAfterCommit();
+
+	}
+
+	// cria em lote: itens invalidos voltam com 400 sem impedir os demais
+	public List<BulkItemResultVO> createAll(Iterator<PersonVO> people) {
+
+		logger.info("Create people in bulk");
+
+		List<BulkItemResultVO> results = bulkWriter.write(people, (chunk, firstIndex) -> {
+			BulkItemResultVO[] chunkResults = new BulkItemResultVO[chunk.size()];
+			List<Person> entities = new ArrayList<>(chunk.size());
+			List<Integer> positions = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				String error = validate(chunk.get(i));
+				if (error != null) {
+					chunkResults[i] = new BulkItemResultVO(firstIndex + i, null, HttpStatus.BAD_REQUEST.value(), error);
+					continue;
+				}
+				Person entity = Mapper.parseObject(chunk.get(i), Person.class);
+				entity.setId(null);
+				entity.setVersion(null);
+				entities.add(entity);
+				positions.add(i);
+			}
+			repository.saveAll(entities);
+			for (int j = 0; j < entities.size(); j++) {
+				int i = positions.get(j);
+				chunkResults[i] = new BulkItemResultVO(firstIndex + i, entities.get(j).getId(), HttpStatus.CREATED.value(), null);
+			}
+			return Arrays.asList(chunkResults);
+		});
+		clearCountsAfterCommit();
+
+		return results;
+	}
+
+	public List<BulkItemResultVO> updateAll(Iterator<PersonVO> people) {
+
+		logger.info("Update people in bulk");
+
+		List<BulkItemResultVO> results = bulkWriter.write(people, (chunk, firstIndex) -> {
+			BulkItemResultVO[] chunkResults = new BulkItemResultVO[chunk.size()];
+			List<Long> ids = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				PersonVO person = chunk.get(i);
+				String error = validate(person);
+				if (error == null && person.getId() == null) error = "Id is required";
+				if (error != null) {
+					chunkResults[i] = new BulkItemResultVO(firstIndex + i, null, HttpStatus.BAD_REQUEST.value(), error);
+				} else {
+					ids.add(person.getId());
+				}
+			}
+			// um SELECT ... IN por bloco no lugar de um findById por item; o flush do bloco manda os UPDATE em batch
+			Map<Long, Person> found = repository.findAllById(ids).stream()
+					.collect(Collectors.toMap(Person::getId, Function.identity()));
+			for (int i = 0; i < chunk.size(); i++) {
+				if (chunkResults[i] != null) continue;
+				PersonVO person = chunk.get(i);
+				Person entity = found.get(person.getId());
+				if (entity == null) {
+					chunkResults[i] = new BulkItemResultVO(firstIndex + i, person.getId(), HttpStatus.NOT_FOUND.value(), "No records found this ID");
+					continue;
+				}
+				if (person.getVersion() != null && !person.getVersion().equals(entity.getVersion())) {
+					chunkResults[i] = new BulkItemResultVO(firstIndex + i, person.getId(), HttpStatus.CONFLICT.value(), new ConcurrentUpdateException().getMessage());
+					continue;
+				}
+				entity.setFirstName(person.getFirstName());
+				entity.setLastName(person.getLastName());
+				entity.setAddress(person.getAddress());
+				entity.setGender(person.getGender());
+				chunkResults[i] = new BulkItemResultVO(firstIndex + i, person.getId(), HttpStatus.OK.value(), null);
+			}
+			return Arrays.asList(chunkResults);
+		});
+		evict(results);
+		clearCountsAfterCommit();
+
+		return results;
+	}
+
+	public List<BulkItemResultVO> deleteAll(Iterator<Long> ids) {
+
+		logger.info("Delete people in bulk");
+
+		List<BulkItemResultVO> results = bulkWriter.write(ids, (chunk, firstIndex) -> {
+			List<Long> requested = chunk.stream().filter(Objects::nonNull).collect(Collectors.toList());
+			Set<Long> existing = requested.isEmpty() ? Set.of() : new HashSet<>(repository.findExistingIds(requested));
+			// um DELETE ... WHERE id IN por bloco
+			if (!existing.isEmpty()) repository.deleteAllByIdInBatch(existing);
+
+			List<BulkItemResultVO> chunkResults = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				Long id = chunk.get(i);
+				if (id == null) {
+					chunkResults.add(new BulkItemResultVO(firstIndex + i, null, HttpStatus.BAD_REQUEST.value(), "Id is required"));
+				} else if (existing.contains(id)) {
+					chunkResults.add(new BulkItemResultVO(firstIndex + i, id, HttpStatus.NO_CONTENT.value(), null));
+				} else {
+					chunkResults.add(new BulkItemResultVO(firstIndex + i, id, HttpStatus.NOT_FOUND.value(), "No records found this ID"));
+				}
+			}
+			return chunkResults;
+		});
+		evict(results);
+		clearCountsAfterCommit();
+
+		return results;
+	}
+
+	private static PersonVO copy(PersonVO person) {
+		return new PersonVO(person.getId(), person.getFirstName(), person.getLastName(), person.getAddress(), person.getGender(), person.getVersion());
+	}
+
+	private PersonVO withSelfLink(PersonVO vo, SelfLinkFactory.SelfLinks links) {
+		vo.add(links.forId(vo.getId()));
+		return vo;
+	}
+
+	// pagina sem total: PageMetadata nulo e links next/prev a partir do Slice
+	private PagedModel<EntityModel<PersonVO>> toSliceModel(Slice<PersonVO> slice, SelfLinkFactory.SelfLinks links, String path) {
+		List<EntityModel<PersonVO>> content = slice.getContent().stream()
+				.map(vo -> EntityModel.of(vo))
+				.collect(Collectors.toList());
+		
+		String sortDirection = sortDirection(slice.getPageable());
+		List<Link> pageLinks = new ArrayList<>();
+		pageLinks.add(links.forSlice(path, slice.getPageable(), sortDirection, IanaLinkRelations.SELF));
+		if (slice.hasNext()) pageLinks.add(links.forSlice(path, slice.nextPageable(), sortDirection, IanaLinkRelations.NEXT));
+		if (slice.hasPrevious()) pageLinks.add(links.forSlice(path, slice.previousPageable(), sortDirection, IanaLinkRelations.PREV));
+		
+		return PagedModel.of(content, (PagedModel.PageMetadata) null, pageLinks);
+	}
+
+	// os links repetem a direcao pedida no request; o Sort do Pageable so tem a propriedade firstName
+	private static String sortDirection(Pageable pageable) {
+		Sort.Order order = pageable.getSort().getOrderFor("firstName");
+		return order != null && order.isDescending() ? "desc" : "asc";
+	}
 
-		repository.delete(entity);
+	// totais ficam num cache de TTL curto (CacheConfig.PERSON_COUNTS), limpo a cada escrita
+	private long count(String key, Supplier<Long> counter) {
+		Long total = countCache().get(key, Long.class);
+		if (total == null) {
+			total = counter.get();
+			countCache().put(key, total);
+		}
+		return total;
+	}
+
+	// invalidacoes so depois do commit: antes dele um leitor ainda pode carregar a linha antiga
+	private void evictAfterCommit(Long id) {
+		AfterCommit.run(() -> cache().evict(id));
+	}
+
+	private void clearCountsAfterCommit() {
+		AfterCommit.run(() -> countCache().clear());
+	}
+
+	private void evict(List<BulkItemResultVO> results) {
+		AfterCommit.run(() -> {
+			for (BulkItemResultVO result : results) {
+				if (result.getId() != null) cache().evict(result.getId());
+			}
+		});
+	}
+
+	// mesmas restricoes das colunas de person: o item invalido volta com 400 em vez de derrubar o bloco
+	public static String validate(PersonVO person) {
+		if (person == null) return "Item is empty or could not be parsed";
+		if (!fits(person.getFirstName(), 80)) return "firstName is required (up to 80 characters)";
+		if (!fits(person.getLastName(), 80)) return "lastName is required (up to 80 characters)";
+		if (!fits(person.getAddress(), 100)) return "address is required (up to 100 characters)";
+		if (!fits(person.getGender(), 6)) return "gender is required (up to 6 characters)";
+		return null;
+	}
+
+	private static boolean fits(String value, int maxLength) {
+		return StringUtils.hasText(value) && value.length() <= maxLength;
+	}
+
+	private Cache cache() {
+		return cacheManager.getCache(CacheConfig.PEOPLE);
+	}
 
+	private Cache countCache() {
+		return cacheManager.getCache(CacheConfig.PERSON_COUNTS);
 	}
 
 }
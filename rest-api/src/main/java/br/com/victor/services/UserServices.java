@@ -4,6 +4,7 @@ import java.util.logging.Logger;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -12,7 +13,7 @@ import br.com.victor.model.User;
 import br.com.victor.repositories.UserRepository;
 
 @Service
-public class UserServices implements UserDetailsService {
+public class UserServices implements UserDetailsService, UserDetailsPasswordService {
 
 	private Logger logger = Logger.getLogger(UserServices.class.getName());
 
@@ -33,4 +34,17 @@ public class UserServices implements UserDetailsService {
 			throw new UsernameNotFoundException("Username " + username + " not found!");
 		}
 	}
+
+	// chamado pelo DaoAuthenticationProvider apos um login valido quando o hash salvo usa um formato/custo
+	// diferente do configurado em security.password; regrava a senha sem exigir reset
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		logger.info("Rehashing password of user " + user.getUsername() + "!");
+		User entity = repository.findByUserName(user.getUsername());
+		if (entity == null) {
+			throw new UsernameNotFoundException("Username " + user.getUsername() + " not found!");
+		}
+		entity.setPassword(newPassword);
+		return repository.save(entity);
+	}
 }
@@ -0,0 +1,49 @@
+package br.com.victor.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// le no maximo count bytes do stream de origem (um intervalo do blob)
+class BoundedInputStream extends FilterInputStream {
+	
+	private long remaining;
+	
+	BoundedInputStream(InputStream in, long count) {
+		super(in);
+		this.remaining = count;
+	}
+	
+	@Override
+	public int read() throws IOException {
+		if (remaining <= 0) return -1;
+		int b = super.read();
+		if (b >= 0) remaining--;
+		return b;
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (remaining <= 0) return -1;
+		int read = super.read(b, off, (int) Math.min(len, remaining));
+		if (read > 0) remaining -= read;
+		return read;
+	}
+	
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(Math.min(n, remaining));
+		remaining -= skipped;
+		return skipped;
+	}
+	
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(super.available(), remaining);
+	}
+	
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
@@ -0,0 +1,27 @@
+package br.com.victor.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Onde os blobs (conteudo por SHA-256) ficam guardados. A implementacao e escolhida por
+ * {@code file.storage.type}: {@code local} (padrao, {@link LocalFileStore}) ou {@code s3} ({@link S3FileStore}).
+ *
+ * As chaves sao os hashes em hexadecimal, com sufixo {@code .gz} nas variantes comprimidas
+ * ({@link GzipVariants}); cada implementacao decide o layout (prefixos, shards).
+ */
+public interface FileStore {
+	
+	boolean exists(String key) throws IOException;
+	
+	// guarda o conteudo de source sob a chave e consome o arquivo (move ou envia e apaga)
+	void put(String key, Path source) throws IOException;
+	
+	void delete(String key) throws IOException;
+	
+	// tamanho, data e, quando o blob esta no disco local, o caminho (permite sendfile no download)
+	StoredObject stat(String key) throws IOException;
+	
+	InputStream open(String key, long position, long count) throws IOException;
+}
@@ -0,0 +1,134 @@
+package br.com.victor.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import br.com.victor.config.FileStorageConfig;
+import br.com.victor.services.FileBlobService;
+
+/**
+ * Migracao do layout antigo, ligada por {@code file.storage.migrate-flat-layout=true} e executada
+ * uma vez na subida da aplicacao:
+ *
+ * - arquivos soltos em {@code file.upload-dir} viram blobs no {@link FileStore} configurado e entram
+ *   no indice com o proprio nome (nomes que ja estao no indice sao mantidos e apenas registrados no log);
+ * - blobs gravados sem shard em {@code blobs/<hash>} passam para o layout do store.
+ *
+ * Cada arquivo solto e copiado para um temporario {@code .upload-}, que e o que o link consome; o
+ * original so e apagado depois que o nome foi indexado, entao uma falha no meio deixa o arquivo onde estava.
+ * Pode ser executada de novo: o que ja foi migrado nao esta mais no diretorio.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.migrate-flat-layout", havingValue = "true")
+public class FlatLayoutMigration implements ApplicationRunner {
+	
+	private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+	
+	private Logger logger = Logger.getLogger(FlatLayoutMigration.class.getName());
+	
+	private final Path uploadDir;
+	
+	@Autowired
+	private FileStore fileStore;
+	
+	@Autowired
+	private FileBlobService blobService;
+	
+	@Autowired
+	private GzipVariants gzipVariants;
+	
+	public FlatLayoutMigration(FileStorageConfig fileStorageConfig) {
+		this.uploadDir = Paths.get(fileStorageConfig.getUploadDir()).toAbsolutePath().normalize();
+	}
+	
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		logger.info("Migrating flat upload directory " + uploadDir);
+		
+		int blobs = migrateUnshardedBlobs(uploadDir.resolve(LocalFileStore.BLOBS_DIR));
+		int files = 0;
+		int skipped = 0;
+		
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(uploadDir, Files::isRegularFile)) {
+			for (Path file : entries) {
+				String filename = file.getFileName().toString();
+				// temporarios de uploads em andamento e das variantes gzip
+				if (filename.startsWith(".upload-") || filename.startsWith(".gzip-")) continue;
+				
+				if (blobService.isIndexed(filename)) {
+					logger.warning("Skipping " + filename + ": name already indexed, the flat copy is no longer served");
+					skipped++;
+					continue;
+				}
+				Path copy = null;
+				Path gzip = null;
+				try {
+					long size = Files.size(file);
+					String contentType = Files.probeContentType(file);
+					// o link consome o arquivo que recebe: ele leva uma copia e o original fica ate o commit
+					copy = Files.createTempFile(uploadDir, ".upload-", ".tmp");
+					Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+					gzip = gzipVariants.compress(copy, contentType, size);
+					blobService.link(filename, contentType, sha256(copy), size, copy, gzip);
+				} catch (Exception e) {
+					logger.log(Level.WARNING, "Could not migrate " + filename, e);
+					if (copy != null) Files.deleteIfExists(copy);
+					if (gzip != null) Files.deleteIfExists(gzip);
+					skipped++;
+					continue;
+				}
+				files++;
+				// ja indexado e servido pelo store: a copia solta pode sair
+				try {
+					Files.delete(file);
+				} catch (IOException e) {
+					logger.log(Level.WARNING, "Migrated " + filename + " but could not remove the flat copy", e);
+				}
+			}
+		}
+		
+		logger.info("Flat layout migration finished: " + files + " files, " + blobs + " blobs moved, " + skipped + " skipped");
+	}
+	
+	private int migrateUnshardedBlobs(Path blobsDir) throws Exception {
+		if (!Files.isDirectory(blobsDir)) return 0;
+		
+		int moved = 0;
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(blobsDir, Files::isRegularFile)) {
+			for (Path blob : entries) {
+				String hash = blob.getFileName().toString();
+				if (!HASH.matcher(hash).matches()) continue;
+				
+				fileStore.put(hash, blob);
+				moved++;
+			}
+		}
+		return moved;
+	}
+	
+	private static String sha256(Path file) throws Exception {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+			in.transferTo(OutputStream.nullOutputStream());
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+}
@@ -0,0 +1,129 @@
+package br.com.victor.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Variantes gzip dos blobs, gravadas no upload ao lado do original com a chave {@code <hash>.gz}.
+ *
+ * So tipos de texto (text/*, JSON, XML, YAML, JavaScript, SVG) sao comprimidos; imagens, videos,
+ * zips e demais midias ja comprimidas ficam so com o original. A variante so e guardada quando
+ * economiza pelo menos {@code file.compression.min-ratio} do tamanho.
+ */
+@Component
+public class GzipVariants {
+	
+	public static final String ENCODING = "gzip";
+	
+	private static final String SUFFIX = ".gz";
+	
+	private static final Set<String> COMPRESSIBLE = Set.of(
+			"application/json", "application/xml", "application/x-yaml", "application/yaml",
+			"application/javascript", "application/x-javascript", "application/x-ndjson", "image/svg+xml");
+	
+	private final boolean enabled;
+	private final long minSize;
+	private final double minRatio;
+	
+	public GzipVariants(
+			@Value("${file.compression.enabled:true}") boolean enabled,
+			@Value("${file.compression.min-size:1024}") long minSize,
+			@Value("${file.compression.min-ratio:0.1}") double minRatio) {
+		this.enabled = enabled;
+		this.minSize = minSize;
+		this.minRatio = minRatio;
+	}
+	
+	public static String keyOf(String hash) {
+		return hash + SUFFIX;
+	}
+	
+	public boolean isCompressible(String contentType, long size) {
+		if (!enabled || size < minSize || contentType == null) return false;
+		try {
+			MimeType type = MimeTypeUtils.parseMimeType(contentType);
+			String subtype = type.getSubtype();
+			return "text".equals(type.getType())
+					|| COMPRESSIBLE.contains(type.getType() + "/" + subtype)
+					|| subtype.endsWith("+json") || subtype.endsWith("+xml");
+		} catch (InvalidMimeTypeException e) {
+			return false;
+		}
+	}
+	
+	// comprime source num temporario ao lado; null quando o tipo nao comprime ou o ganho e pequeno
+	public Path compress(Path source, String contentType, long size) throws IOException {
+		if (!isCompressible(contentType, size)) return null;
+		
+		Path target = Files.createTempFile(source.getParent(), ".gzip-", ".tmp");
+		try {
+			try (InputStream in = Files.newInputStream(source);
+					OutputStream out = new BestCompressionGzip(Files.newOutputStream(target))) {
+				in.transferTo(out);
+			}
+			if (Files.size(target) > size * (1 - minRatio)) {
+				Files.delete(target);
+				return null;
+			}
+			return target;
+		} catch (IOException e) {
+			Files.deleteIfExists(target);
+			throw e;
+		}
+	}
+	
+	// Accept-Encoding com gzip (ou *) e q diferente de zero; um gzip explicito vale mais que o *
+	public static boolean acceptsGzip(HttpServletRequest request) {
+		String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		if (header == null) return false;
+		
+		Boolean gzip = null;
+		Boolean any = null;
+		for (String coding : header.split(",")) {
+			String[] parts = coding.trim().split(";");
+			String name = parts[0].trim();
+			if (ENCODING.equalsIgnoreCase(name)) gzip = isAccepted(parts);
+			else if ("*".equals(name)) any = isAccepted(parts);
+		}
+		if (gzip != null) return gzip;
+		return any != null && any;
+	}
+	
+	private static boolean isAccepted(String[] parts) {
+		for (int i = 1; i < parts.length; i++) {
+			String param = parts[i].trim();
+			if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+				try {
+					return Double.parseDouble(param.substring(2)) > 0;
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	// a variante e gravada uma vez e servida muitas: vale o nivel maximo
+	private static final class BestCompressionGzip extends GZIPOutputStream {
+		
+		private BestCompressionGzip(OutputStream out) throws IOException {
+			super(out, 64 * 1024);
+			def.setLevel(Deflater.BEST_COMPRESSION);
+		}
+	}
+}
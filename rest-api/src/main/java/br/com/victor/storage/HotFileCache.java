@@ -0,0 +1,140 @@
+package br.com.victor.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Arquivos pequenos mais baixados, mantidos em {@link ByteBuffer} direto (fora do heap) junto com o
+ * content type e o ETag ja calculados: um download repetido nao consulta o indice nem o disco.
+ * A variante gzip, quando existe, entra junto e conta no peso da entrada.
+ *
+ * O limite e em bytes ({@code file.hot-cache.maximum-weight}); so entram arquivos ate
+ * {@code file.hot-cache.max-file-size}. O {@code storeFile} invalida o nome sobrescrito.
+ */
+@Component
+public class HotFileCache {
+	
+	private final Cache<String, Entry> cache;
+	private final long maxFileSize;
+	
+	// conta invalidacoes: uma carga que comecou antes de um storeFile do mesmo nome nao fica no cache
+	private final AtomicLong invalidations = new AtomicLong();
+	
+	public HotFileCache(
+			@Value("${file.hot-cache.max-file-size:262144}") long maxFileSize,
+			@Value("${file.hot-cache.maximum-weight:67108864}") long maximumWeight,
+			@Value("${file.hot-cache.expire-after-write-minutes:10}") long expireAfterWriteMinutes,
+			MeterRegistry registry) {
+		this.maxFileSize = maxFileSize;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(maximumWeight)
+				.weigher((String filename, Entry entry) -> (int) Math.max(1, entry.getWeight()))
+				.expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(registry, cache, "hotFiles");
+	}
+	
+	public Entry get(String filename) {
+		return cache.getIfPresent(filename);
+	}
+	
+	public boolean isCacheable(long size) {
+		return size <= maxFileSize;
+	}
+	
+	// marca o inicio de uma carga; o valor volta no put
+	public long beginLoad() {
+		return invalidations.get();
+	}
+	
+	public void put(String filename, Entry entry, long loadStamp) {
+		cache.put(filename, entry);
+		// houve storeFile durante a carga: a entrada pode ser do conteudo anterior
+		if (invalidations.get() != loadStamp) cache.invalidate(filename);
+	}
+	
+	public void invalidate(String filename) {
+		invalidations.incrementAndGet();
+		cache.invalidate(filename);
+	}
+	
+	// le o arquivo inteiro (e a variante gzip, quando ha) para buffers diretos
+	public Entry load(StoredObject file, StoredObject gzip, String contentType, String etag) throws IOException {
+		return new Entry(read(file), gzip == null ? null : read(gzip), contentType, etag);
+	}
+	
+	private static StoredObject read(StoredObject file) throws IOException {
+		ByteBuffer content = ByteBuffer.allocateDirect((int) file.getSize());
+		
+		if (file.getLocalPath() != null) {
+			try (FileChannel channel = FileChannel.open(file.getLocalPath(), StandardOpenOption.READ)) {
+				fill(channel, content);
+			}
+		} else {
+			try (InputStream in = file.open(0, file.getSize()); ReadableByteChannel channel = Channels.newChannel(in)) {
+				fill(channel, content);
+			}
+		}
+		content.flip();
+		
+		return StoredObject.inMemory(content, file.getLastModified());
+	}
+	
+	private static void fill(ReadableByteChannel channel, ByteBuffer content) throws IOException {
+		while (content.hasRemaining()) {
+			if (channel.read(content) < 0) break;
+		}
+	}
+	
+	public static final class Entry {
+		
+		private final StoredObject object;
+		private final StoredObject gzip;
+		private final String contentType;
+		private final String etag;
+		
+		public Entry(StoredObject object, StoredObject gzip, String contentType, String etag) {
+			this.object = object;
+			this.gzip = gzip;
+			this.contentType = contentType;
+			this.etag = etag;
+		}
+		
+		public StoredObject getObject() {
+			return object;
+		}
+		
+		public StoredObject getGzip() {
+			return gzip;
+		}
+		
+		public String getContentType() {
+			return contentType;
+		}
+		
+		public String getEtag() {
+			return etag;
+		}
+		
+		private long getWeight() {
+			return object.getSize() + (gzip == null ? 0 : gzip.getSize());
+		}
+	}
+}
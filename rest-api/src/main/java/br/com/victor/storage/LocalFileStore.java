@@ -0,0 +1,88 @@
+package br.com.victor.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import br.com.victor.config.FileStorageConfig;
+
+/**
+ * Blobs no disco em {@code <upload-dir>/blobs/ab/cd/abcd...}: dois niveis de prefixo do hash
+ * (65536 diretorios) mantem cada diretorio pequeno mesmo com milhoes de arquivos. A variante gzip
+ * ({@code abcd....gz}) fica no mesmo diretorio do original.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalFileStore implements FileStore {
+	
+	public static final String BLOBS_DIR = "blobs";
+	
+	private static final Pattern KEY = Pattern.compile("[0-9a-f]{4,}(\\.gz)?");
+	
+	private final Path root;
+	
+	public LocalFileStore(FileStorageConfig fileStorageConfig) {
+		this.root = Paths.get(fileStorageConfig.getUploadDir())
+				.toAbsolutePath().normalize().resolve(BLOBS_DIR);
+	}
+	
+	@Override
+	public boolean exists(String key) {
+		return Files.isRegularFile(resolve(key));
+	}
+	
+	@Override
+	public void put(String key, Path source) throws IOException {
+		Path target = resolve(key);
+		if (Files.exists(target)) {
+			Files.deleteIfExists(source);
+			return;
+		}
+		Files.createDirectories(target.getParent());
+		// source fica no mesmo disco (diretorio de upload): rename atomico, sem copia
+		Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	@Override
+	public void delete(String key) throws IOException {
+		Files.deleteIfExists(resolve(key));
+	}
+	
+	@Override
+	public StoredObject stat(String key) throws IOException {
+		Path path = resolve(key);
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		return new StoredObject(this, key, attributes.size(), attributes.lastModifiedTime().toMillis(), path);
+	}
+	
+	@Override
+	public InputStream open(String key, long position, long count) throws IOException {
+		Path path = resolve(key);
+		if (!Files.isRegularFile(path)) throw new NoSuchFileException(path.toString());
+		
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		channel.position(position);
+		return new BoundedInputStream(Channels.newInputStream(channel), count);
+	}
+	
+	public Path resolve(String key) {
+		if (!KEY.matcher(key).matches()) throw new IllegalArgumentException("Invalid blob key " + key);
+		return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+	}
+	
+	public Path getRoot() {
+		return root;
+	}
+}
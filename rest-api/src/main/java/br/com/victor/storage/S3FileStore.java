@@ -0,0 +1,84 @@
+package br.com.victor.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Blobs num bucket S3 (ou compativel, como MinIO via {@code file.storage.s3.endpoint} e path-style).
+ * As chaves usam o mesmo layout do disco, {@code <prefix>ab/cd/abcd...}. Criado por
+ * {@link br.com.victor.config.S3StorageConfig} quando {@code file.storage.type=s3}.
+ *
+ * Transacoes: o {@code putObject} acontece dentro da transacao do {@code FileBlobService}, antes de o nome
+ * ficar visivel; um put desfeito por rollback deixa um objeto sem linha, reaproveitado pelo proximo upload
+ * do mesmo conteudo. Os {@code deleteObject} so chegam depois do commit, numa transacao propria.
+ */
+public class S3FileStore implements FileStore {
+	
+	private final S3Client client;
+	private final String bucket;
+	private final String prefix;
+	
+	public S3FileStore(S3Client client, String bucket, String prefix) {
+		this.client = client;
+		this.bucket = bucket;
+		this.prefix = prefix == null ? "" : prefix;
+	}
+	
+	@Override
+	public boolean exists(String key) {
+		try {
+			head(key);
+			return true;
+		} catch (S3Exception e) {
+			if (e.statusCode() == 404) return false;
+			throw e;
+		}
+	}
+	
+	@Override
+	public void put(String key, Path source) throws IOException {
+		client.putObject(PutObjectRequest.builder().bucket(bucket).key(objectKey(key)).build(), RequestBody.fromFile(source));
+		Files.deleteIfExists(source);
+	}
+	
+	@Override
+	public void delete(String key) {
+		client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(objectKey(key)).build());
+	}
+	
+	@Override
+	public StoredObject stat(String key) {
+		HeadObjectResponse head = head(key);
+		return new StoredObject(this, key, head.contentLength(), head.lastModified().toEpochMilli(), null);
+	}
+	
+	@Override
+	public InputStream open(String key, long position, long count) {
+		// Range do proprio S3: so o intervalo pedido sai do bucket
+		GetObjectRequest request = GetObjectRequest.builder()
+				.bucket(bucket)
+				.key(objectKey(key))
+				.range("bytes=" + position + "-" + (position + count - 1))
+				.build();
+		return client.getObject(request);
+	}
+	
+	private HeadObjectResponse head(String key) {
+		return client.headObject(HeadObjectRequest.builder().bucket(bucket).key(objectKey(key)).build());
+	}
+	
+	private String objectKey(String key) {
+		return prefix + key.substring(0, 2) + "/" + key.substring(2, 4) + "/" + key;
+	}
+}
@@ -0,0 +1,85 @@
+package br.com.victor.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Metadados de um arquivo para o download. {@code localPath} existe quando o conteudo esta no disco
+ * (store local ou arquivo ainda no layout antigo) e {@code content} quando o arquivo esta em memoria
+ * ({@link HotFileCache}); sem nenhum dos dois o conteudo e lido pelo {@link FileStore}.
+ */
+public class StoredObject {
+	
+	private final FileStore store;
+	private final String key;
+	private final long size;
+	private final long lastModified;
+	private final Path localPath;
+	private final ByteBuffer content;
+	
+	public StoredObject(FileStore store, String key, long size, long lastModified, Path localPath) {
+		this(store, key, size, lastModified, localPath, null);
+	}
+	
+	private StoredObject(FileStore store, String key, long size, long lastModified, Path localPath, ByteBuffer content) {
+		this.store = store;
+		this.key = key;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.localPath = localPath;
+		this.content = content;
+	}
+	
+	// conteudo ja carregado (buffer somente leitura, compartilhado entre requests)
+	public static StoredObject inMemory(ByteBuffer content, long lastModified) {
+		return new StoredObject(null, null, content.remaining(), lastModified, null, content.asReadOnlyBuffer());
+	}
+	
+	// arquivo do layout antigo: nao esta em nenhum store, so tem localPath
+	public static StoredObject ofLocalFile(Path path, long size, long lastModified) {
+		return new StoredObject(null, null, size, lastModified, path);
+	}
+	
+	// leitura pelo store, para objetos sem localPath e sem content
+	public InputStream open(long position, long count) throws IOException {
+		return store.open(key, position, count);
+	}
+	
+	// conteudo inteiro, de onde ele estiver (memoria, disco ou store)
+	public InputStream openStream() throws IOException {
+		if (content != null) {
+			ByteBuffer buffer = content.duplicate();
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			return new ByteArrayInputStream(bytes);
+		}
+		if (localPath != null) return Files.newInputStream(localPath);
+		return open(0, size);
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	public Path getLocalPath() {
+		return localPath;
+	}
+
+	// copia independente de posicao/limite: cada request le o buffer sem interferir nos outros
+	public ByteBuffer getContent() {
+		return content == null ? null : content.duplicate();
+	}
+	
+}
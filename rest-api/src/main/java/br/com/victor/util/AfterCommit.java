@@ -0,0 +1,28 @@
+package br.com.victor.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Efeitos fora do banco (invalidar cache, apagar arquivo) que so podem acontecer depois que a
+ * escrita ficou visivel. Com transacao ativa a acao espera o commit e e descartada no rollback;
+ * sem transacao o repository ja commitou, entao a acao roda na hora.
+ */
+public final class AfterCommit {
+
+	private AfterCommit() {
+	}
+
+	public static void run(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+}
@@ -0,0 +1,74 @@
+package br.com.victor.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitura de CSV no formato RFC 4180 em duas etapas: {@link #next(BufferedReader)} so separa os
+ * registros (respeitando quebras de linha dentro de aspas) e {@link #parse(String)} quebra um registro
+ * nos campos. Assim a leitura do arquivo fica sequencial e o parse dos campos pode rodar em paralelo.
+ */
+public final class CsvRecords {
+	
+	private CsvRecords() {}
+	
+	// proximo registro cru, sem o terminador; null no fim do arquivo. Linhas em branco sao ignoradas
+	public static String next(BufferedReader reader) throws IOException {
+		String line;
+		do {
+			line = reader.readLine();
+			if (line == null) return null;
+		} while (line.isEmpty());
+		
+		// aspas em numero impar: o campo entre aspas continua na linha seguinte
+		if (quotes(line) % 2 == 0) return line;
+		
+		StringBuilder record = new StringBuilder(line);
+		int quotes = quotes(line);
+		while (quotes % 2 != 0) {
+			String continuation = reader.readLine();
+			if (continuation == null) break;
+			record.append('\n').append(continuation);
+			quotes += quotes(continuation);
+		}
+		return record.toString();
+	}
+	
+	public static List<String> parse(String record) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < record.length(); i++) {
+			char c = record.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+	
+	private static int quotes(String line) {
+		int count = 0;
+		for (int i = 0; i < line.length(); i++) {
+			if (line.charAt(i) == '"') count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,66 @@
+package br.com.victor.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import br.com.victor.exceptions.InvalidCursorException;
+
+/**
+ * Posicao opaca da paginacao por keyset: a chave de ordenacao e o id do ultimo (ou primeiro)
+ * registro entregue, mais o sentido da busca. Serializada em Base64 URL-safe.
+ */
+public final class KeysetCursor {
+
+	private static final String FORWARD = "f";
+	private static final String BACKWARD = "b";
+	private static final String SEPARATOR = "|";
+
+	private final String key;
+	private final Long id;
+	private final boolean backward;
+
+	private KeysetCursor(String key, Long id, boolean backward) {
+		this.key = key;
+		this.id = id;
+		this.backward = backward;
+	}
+
+	public static KeysetCursor after(String key, Long id) {
+		return new KeysetCursor(key, id, false);
+	}
+
+	public static KeysetCursor before(String key, Long id) {
+		return new KeysetCursor(key, id, true);
+	}
+
+	public static KeysetCursor decode(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] parts = raw.split("\\|", 3);
+			if (parts.length != 3 || !(FORWARD.equals(parts[0]) || BACKWARD.equals(parts[0]))) {
+				throw new InvalidCursorException();
+			}
+			return new KeysetCursor(parts[2], Long.valueOf(parts[1]), BACKWARD.equals(parts[0]));
+		} catch (IllegalArgumentException e) {
+			throw new InvalidCursorException();
+		}
+	}
+
+	public String encode() {
+		String raw = (backward ? BACKWARD : FORWARD) + SEPARATOR + id + SEPARATOR + (key == null ? "" : key);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public boolean isBackward() {
+		return backward;
+	}
+
+}
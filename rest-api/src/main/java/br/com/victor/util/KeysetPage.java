@@ -0,0 +1,59 @@
+package br.com.victor.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.domain.Slice;
+
+/**
+ * Janela de uma consulta por keyset ja na ordem pedida pelo cliente, com a informacao de
+ * existencia de proxima/anterior derivada do Slice (limit + 1) e do cursor recebido.
+ */
+public final class KeysetPage<T> {
+
+	private final List<T> content;
+	private final boolean hasNext;
+	private final boolean hasPrevious;
+
+	private KeysetPage(List<T> content, boolean hasNext, boolean hasPrevious) {
+		this.content = content;
+		this.hasNext = hasNext;
+		this.hasPrevious = hasPrevious;
+	}
+
+	public static <T> KeysetPage<T> of(Slice<T> slice, KeysetCursor position) {
+		List<T> content = new ArrayList<>(slice.getContent());
+		if (content.isEmpty()) return new KeysetPage<>(content, false, false);
+		
+		boolean backward = position != null && position.isBackward();
+		// a busca para tras vem na ordem inversa
+		if (backward) Collections.reverse(content);
+		
+		boolean more = slice.hasNext();
+		boolean hasNext = backward || more;
+		boolean hasPrevious = position != null && (!backward || more);
+		return new KeysetPage<>(content, hasNext, hasPrevious);
+	}
+
+	public List<T> getContent() {
+		return content;
+	}
+
+	public T getFirst() {
+		return content.get(0);
+	}
+
+	public T getLast() {
+		return content.get(content.size() - 1);
+	}
+
+	public boolean hasNext() {
+		return hasNext;
+	}
+
+	public boolean hasPrevious() {
+		return hasPrevious;
+	}
+
+}
@@ -0,0 +1,57 @@
+package br.com.victor.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Le um corpo NDJSON (um objeto JSON por linha) sob demanda, sem carregar a entrada inteira.
+ *
+ * Linhas em branco sao ignoradas; uma linha que nao e JSON valido vira {@code null}, para que o
+ * item seja rejeitado sozinho sem interromper a leitura das linhas seguintes.
+ */
+public final class NdjsonIterator<T> implements Iterator<T> {
+	
+	private final BufferedReader reader;
+	private final ObjectReader objectReader;
+	private String next;
+	
+	public NdjsonIterator(InputStream in, ObjectReader objectReader) {
+		this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		this.objectReader = objectReader;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		try {
+			while (next == null) {
+				String line = reader.readLine();
+				if (line == null) return false;
+				if (!line.isBlank()) next = line;
+			}
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public T next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		String line = next;
+		next = null;
+		try {
+			return objectReader.readValue(line);
+		} catch (JsonProcessingException e) {
+			return null;
+		}
+	}
+}
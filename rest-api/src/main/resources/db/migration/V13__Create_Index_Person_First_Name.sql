@@ -0,0 +1 @@
+CREATE INDEX `idx_person_first_name_id` ON `person` (`first_name`, `id`);
@@ -0,0 +1,8 @@
+-- indice FULLTEXT com parser ngram (ngram_token_size padrao = 2) para a busca por nome:
+-- a frase "abc" em BOOLEAN MODE vira os tokens ab + bc consecutivos, ou seja, busca por substring.
+-- sem stopwords: com o parser ngram qualquer token que contenha uma stopword ("a", "i", ...) seria descartado
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+ALTER TABLE `person` ADD FULLTEXT INDEX `ft_person_first_name` (`first_name`) WITH PARSER ngram;
+
+SET SESSION innodb_ft_enable_stopword = ON;
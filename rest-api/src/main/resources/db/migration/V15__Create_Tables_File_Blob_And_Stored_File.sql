@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS `file_blob` (
+  `hash` char(64) NOT NULL,
+  `size` bigint NOT NULL,
+  `ref_count` bigint NOT NULL,
+  PRIMARY KEY (`hash`)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS `stored_file` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `file_name` varchar(255) NOT NULL,
+  `blob_hash` char(64) NOT NULL,
+  `content_type` varchar(255) DEFAULT NULL,
+  `size` bigint NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_stored_file_name` (`file_name`),
+  KEY `idx_stored_file_blob_hash` (`blob_hash`),
+  CONSTRAINT `fk_stored_file_blob` FOREIGN KEY (`blob_hash`) REFERENCES `file_blob` (`hash`)
+) ENGINE=InnoDB;
@@ -0,0 +1,18 @@
+-- ids de person e books alocados pelo Hibernate em blocos (SequenceStyleGenerator com pooled-lo):
+-- como o MySQL nao tem sequence, cada tabela guarda em next_val o proximo id livre
+CREATE TABLE IF NOT EXISTS `person_seq` (
+  `next_val` bigint NOT NULL
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS `books_seq` (
+  `next_val` bigint NOT NULL
+) ENGINE=InnoDB;
+
+-- os ids existentes sao mantidos; a alocacao continua depois do maior
+INSERT INTO `person_seq` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `person`;
+INSERT INTO `books_seq` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `books`;
+
+-- sem AUTO_INCREMENT: a tabela de ids e a unica origem, um INSERT sem id falha em vez de colidir com um bloco ja alocado.
+-- bigint nas duas tabelas (o id e Long nas entidades): cada restart descarta o resto do bloco de 100
+ALTER TABLE `person` MODIFY `id` bigint NOT NULL;
+ALTER TABLE `books` MODIFY `id` bigint NOT NULL;
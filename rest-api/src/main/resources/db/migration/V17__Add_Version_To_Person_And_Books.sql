@@ -0,0 +1,3 @@
+-- versao para o controle otimista opcional dos updates; coluna no fim da tabela (ALGORITHM=INSTANT no MySQL 8)
+ALTER TABLE `person` ADD COLUMN `version` bigint NOT NULL DEFAULT 0;
+ALTER TABLE `books` ADD COLUMN `version` bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,129 @@
+package br.com.victor.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import br.com.victor.model.Permission;
+import br.com.victor.model.User;
+import br.com.victor.security.jwt.JwtAuthenticationCache;
+import br.com.victor.security.jwt.JwtTokenFilter;
+import br.com.victor.security.jwt.JwtTokenProvider;
+import br.com.victor.security.jwt.TokenRevocationList;
+import jakarta.servlet.FilterChain;
+
+/**
+ * Caminho do {@link JwtTokenFilter} para um request autenticado.
+ *
+ * {@code legacyDoubleVerify} reproduz o comportamento anterior (Algorithm e JWTVerifier novos,
+ * token verificado duas vezes); {@code singleVerify} e o caminho atual sem cache e
+ * {@code filterWithCache} e o filtro completo com o cache de autenticacao.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenFilterBenchmark {
+
+	private static final FilterChain NO_OP_CHAIN = (request, response) -> {};
+
+	private JwtTokenProvider provider;
+	private JwtTokenFilter filter;
+	private UserDetailsService userDetailsService;
+	private String secretKey;
+	private String token;
+	private MockHttpServletRequest request;
+	private MockHttpServletResponse response;
+
+	@Setup
+	public void setUp() {
+		User user = new User();
+		user.setUserName("leandro");
+		Permission permission = new Permission();
+		permission.setDescription("ADMIN");
+		user.setPermissions(List.of(permission));
+		userDetailsService = username -> user;
+
+		provider = new JwtTokenProvider();
+		ReflectionTestUtils.setField(provider, "userDetailsService", userDetailsService);
+		TokenRevocationList revocationList = new TokenRevocationList(3600000);
+		ReflectionTestUtils.setField(provider, "revocationList", revocationList);
+		ReflectionTestUtils.invokeMethod(provider, "init");
+		secretKey = (String) ReflectionTestUtils.getField(provider, "secretKey");
+
+		request = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		token = provider.createAccessToken("leandro", user.getRoles()).getAccessToken();
+		request.addHeader("Authorization", "Bearer " + token);
+		response = new MockHttpServletResponse();
+
+		filter = new JwtTokenFilter(provider, new JwtAuthenticationCache(10000, revocationList));
+	}
+
+	@TearDown
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Benchmark
+	public Authentication legacyDoubleVerify() {
+		DecodedJWT validated = JWT.require(Algorithm.HMAC256(secretKey.getBytes())).build().verify(token);
+		validated.getExpiresAt();
+		DecodedJWT decoded = JWT.require(Algorithm.HMAC256(secretKey.getBytes())).build().verify(token);
+		UserDetails userDetails = userDetailsService.loadUserByUsername(decoded.getSubject());
+		return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+	}
+
+	@Benchmark
+	public Authentication singleVerify() {
+		DecodedJWT decoded = provider.decodedToken(token);
+		provider.validateToken(decoded);
+		return provider.getAuthentication(decoded);
+	}
+
+	@Benchmark
+	public Authentication filterWithCache() throws Exception {
+		filter.doFilter(request, response, NO_OP_CHAIN);
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return auth;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(JwtTokenFilterBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,103 @@
+package br.com.victor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import br.com.victor.data.vo.v1.BookVO;
+import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.mapper.Mapper;
+import br.com.victor.model.Book;
+import br.com.victor.model.Person;
+import br.com.victor.unittests.mapper.mocks.MockBook;
+import br.com.victor.unittests.mapper.mocks.MockPerson;
+
+/**
+ * Compara os conversores diretos do {@link Mapper} com o caminho antigo via ModelMapper.
+ *
+ * Executar com {@code main} (ou {@code java -cp ... org.openjdk.jmh.Main MapperBenchmark -prof gc});
+ * o GCProfiler mostra a alocacao por operacao ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+	private final ModelMapper modelMapper = new ModelMapper();
+
+	private Person person;
+	private Book book;
+	private List<Person> page;
+
+	@Setup
+	public void setUp() {
+		person = new MockPerson().mockEntity(1);
+		book = new MockBook().mockEntity(1);
+		page = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			page.add(new MockPerson().mockEntity(i));
+		}
+	}
+
+	@Benchmark
+	public PersonVO personModelMapper() {
+		return modelMapper.map(person, PersonVO.class);
+	}
+
+	@Benchmark
+	public PersonVO personDirect() {
+		return Mapper.parseObject(person, PersonVO.class);
+	}
+
+	@Benchmark
+	public BookVO bookModelMapper() {
+		return modelMapper.map(book, BookVO.class);
+	}
+
+	@Benchmark
+	public BookVO bookDirect() {
+		return Mapper.parseObject(book, BookVO.class);
+	}
+
+	@Benchmark
+	public List<PersonVO> pageOf100ModelMapper() {
+		List<PersonVO> result = new ArrayList<>(page.size());
+		for (Person p : page) {
+			result.add(modelMapper.map(p, PersonVO.class));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<PersonVO> pageOf100Direct() {
+		return Mapper.parseListObjects(page, PersonVO.class);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(MapperBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,100 @@
+package br.com.victor.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Carga HTTP de concorrencia fixa para comparar os dois modos de execucao com a aplicacao rodando.
+ *
+ * O mesmo teste roda duas vezes contra a aplicacao no Java 21, uma em cada modo:
+ * <pre>
+ * java -jar target/rest-api.jar                                        # threads do Tomcat (threads.max 200)
+ * SPRING_THREADS_VIRTUAL_ENABLED=true java -jar target/rest-api.jar     # virtual threads
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=br.com.victor.benchmarks.ThreadModeLoadDriver \
+ *     -Dexec.args="http://localhost:8080/api/person/v1?page=0&amp;size=12 $TOKEN 2000 60"
+ * </pre>
+ * Argumentos: URL, access token do /auth/signin, requests simultaneos e duracao em segundos. Com
+ * concorrencia bem acima de threads.max o modo padrao enfileira no accept e a latencia sobe antes da CPU;
+ * o que comparar e vazao, p99 e erros por status, junto com {@code tomcat.threads.busy} e
+ * {@code hikaricp.connections.pending} em /actuator/metrics e {@code jvm.threads.virtual.pinned} no modo virtual.
+ *
+ * Os requests sao assincronos ({@link HttpClient#sendAsync}), entao o gerador nao precisa de uma
+ * thread por conexao e nao vira o gargalo da medicao.
+ */
+public class ThreadModeLoadDriver {
+
+	private static final int MAX_SAMPLES = 5_000_000;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 4) {
+			System.err.println("usage: ThreadModeLoadDriver <url> <token> <concurrency> <seconds>");
+			System.exit(1);
+		}
+		URI uri = URI.create(args[0]);
+		String token = args[1];
+		int concurrency = Integer.parseInt(args[2]);
+		long seconds = Long.parseLong(args[3]);
+
+		HttpClient client = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+		HttpRequest request = HttpRequest.newBuilder(uri)
+				.header("Authorization", "Bearer " + token)
+				.header("Accept", "application/json")
+				.timeout(Duration.ofSeconds(30))
+				.GET()
+				.build();
+
+		Semaphore inFlight = new Semaphore(concurrency);
+		long[] latencies = new long[MAX_SAMPLES];
+		AtomicInteger samples = new AtomicInteger();
+		Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+		long start = System.nanoTime();
+		long end = start + Duration.ofSeconds(seconds).toNanos();
+		while (System.nanoTime() < end) {
+			inFlight.acquire();
+			long sent = System.nanoTime();
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.whenComplete((response, error) -> {
+					long latency = System.nanoTime() - sent;
+					int index = samples.getAndIncrement();
+					if (index < MAX_SAMPLES) latencies[index] = latency;
+					String outcome = error != null ? error.getClass().getSimpleName() : String.valueOf(response.statusCode());
+					outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+					inFlight.release();
+				});
+		}
+		// espera os requests que ainda estao em voo
+		inFlight.acquire(concurrency);
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		int count = Math.min(samples.get(), MAX_SAMPLES);
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+
+		System.out.printf("url=%s concurrency=%d duration=%.1fs%n", uri, concurrency, elapsed);
+		System.out.printf("requests=%d throughput=%.0f req/s%n", samples.get(), samples.get() / elapsed);
+		System.out.printf("latency p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms%n",
+				percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0));
+		System.out.println("outcomes=" + new TreeMap<>(outcomes));
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) return 0;
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+}
@@ -7,24 +7,32 @@ import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import br.com.victor.data.vo.v1.BookVO;
 import br.com.victor.data.vo.v1.PersonVO;
 import br.com.victor.mapper.Mapper;
+import br.com.victor.model.Book;
 import br.com.victor.model.Person;
+import br.com.victor.unittests.mapper.mocks.MockBook;
 import br.com.victor.unittests.mapper.mocks.MockPerson;
 
 public class MapperConverterTest {
     
     MockPerson inputObject;
+    MockBook inputBook;
 
     @BeforeEach
     public void setUp() {
         inputObject = new MockPerson();
+        inputBook = new MockBook();
     }
 
     @Test
     public void parseEntityToVOTest() {
-        PersonVO output = Mapper.parseObject(inputObject.mockEntity(), PersonVO.class);
+        Person entity = inputObject.mockEntity();
+        entity.setVersion(2L);
+        PersonVO output = Mapper.parseObject(entity, PersonVO.class);
         assertEquals(Long.valueOf(0L), output.getId());
+        assertEquals(Long.valueOf(2L), output.getVersion());
         assertEquals("First Name Test0", output.getFirstName());
         assertEquals("Last Name Test0", output.getLastName());
         assertEquals("Address Test0", output.getAddress());
@@ -61,8 +69,11 @@ public class MapperConverterTest {
 
     @Test
     public void parseVOToEntityTest() {
-        Person output = Mapper.parseObject(inputObject.mockVO(), Person.class);
+        PersonVO vo = inputObject.mockVO();
+        vo.setVersion(4L);
+        Person output = Mapper.parseObject(vo, Person.class);
         assertEquals(Long.valueOf(0L), output.getId());
+        assertEquals(Long.valueOf(4L), output.getVersion());
         assertEquals("First Name Test0", output.getFirstName());
         assertEquals("Last Name Test0", output.getLastName());
         assertEquals("Address Test0", output.getAddress());
@@ -96,4 +107,30 @@ public class MapperConverterTest {
         assertEquals("Address Test12", outputTwelve.getAddress());
         assertEquals("Male", outputTwelve.getGender());
     }
+
+    @Test
+    public void parseBookEntityToVOTest() {
+        Book entity = inputBook.mockEntity(3);
+        entity.setVersion(1L);
+        BookVO output = Mapper.parseObject(entity, BookVO.class);
+        assertEquals(Long.valueOf(3L), output.getId());
+        assertEquals(Long.valueOf(1L), output.getVersion());
+        assertEquals("Some Author3", output.getAuthor());
+        assertEquals("Some Title3", output.getTitle());
+        assertEquals(25D, output.getPrice());
+        assertEquals(entity.getLaunchDate(), output.getLaunchDate());
+    }
+
+    @Test
+    public void parseBookVOToEntityTest() {
+        BookVO vo = inputBook.mockVO(5);
+        vo.setVersion(6L);
+        Book output = Mapper.parseObject(vo, Book.class);
+        assertEquals(Long.valueOf(5L), output.getId());
+        assertEquals(Long.valueOf(6L), output.getVersion());
+        assertEquals("Some Author5", output.getAuthor());
+        assertEquals("Some Title5", output.getTitle());
+        assertEquals(25D, output.getPrice());
+        assertEquals(vo.getLaunchDate(), output.getLaunchDate());
+    }
 }
@@ -0,0 +1,96 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import br.com.victor.data.vo.v1.security.AccountCredentialsVO;
+import br.com.victor.exceptions.TooManySigninAttemptsException;
+import br.com.victor.exceptions.handler.CustomizedResponseEntityExceptionHandler;
+import br.com.victor.repositories.UserRepository;
+import br.com.victor.services.AuthServices;
+
+// o hash da senha roda num pool limitado: pool e fila cheios (ou espera longa) viram 429 sem bloquear o request
+class AuthServicesTest {
+	
+	private AuthServices service;
+	
+	private AuthenticationManager authenticationManager;
+	
+	private UserRepository repository;
+	
+	private ThreadPoolExecutor executor;
+	
+	private final CountDownLatch release = new CountDownLatch(1);
+	
+	@BeforeEach
+	void setUp() {
+		authenticationManager = mock(AuthenticationManager.class);
+		repository = mock(UserRepository.class);
+		// uma thread e uma vaga na fila, como o SigninExecutorConfig com AbortPolicy
+		executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+		
+		service = new AuthServices();
+		ReflectionTestUtils.setField(service, "authenticationManager", authenticationManager);
+		ReflectionTestUtils.setField(service, "repository", repository);
+		ReflectionTestUtils.setField(service, "credentialVerificationExecutor", executor);
+		ReflectionTestUtils.setField(service, "signinTimeoutMillis", 5000L);
+	}
+	
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+	
+	@Test
+	void testSigninIsRejectedWhenTheVerificationPoolIsSaturated() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		executor.submit(() -> {
+			started.countDown();
+			release.await();
+			return null;
+		});
+		executor.submit(() -> null);
+		started.await();
+		
+		Exception exception = assertThrows(TooManySigninAttemptsException.class, () -> service.signin(new AccountCredentialsVO("leandro", "admin123")));
+		
+		verify(authenticationManager, never()).authenticate(any());
+		verify(repository, never()).findByUserName(any());
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, new CustomizedResponseEntityExceptionHandler()
+				.handleTooManySigninAttemptsException(exception, new ServletWebRequest(new MockHttpServletRequest()))
+				.getStatusCode());
+	}
+	
+	@Test
+	void testSigninIsRejectedWhenTheVerificationTakesTooLong() {
+		ReflectionTestUtils.setField(service, "signinTimeoutMillis", 50L);
+		when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+			release.await();
+			return mock(Authentication.class);
+		});
+		
+		assertThrows(TooManySigninAttemptsException.class, () -> service.signin(new AccountCredentialsVO("leandro", "admin123")));
+		
+		verify(repository, never()).findByUserName(any());
+	}
+}
@@ -1,6 +1,9 @@
 package br.com.victor.unittests.mockito.services;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
@@ -14,10 +17,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import br.com.victor.data.vo.v1.BookVO;
+import br.com.victor.exceptions.ConcurrentUpdateException;
 import br.com.victor.exceptions.RequiredObjectIsNullException;
+import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.hateoas.SelfLinkFactory;
 import br.com.victor.model.Book;
 import br.com.victor.repositories.BookRepository;
 import br.com.victor.services.BookServices;
@@ -34,6 +48,12 @@ class BookServicesTest {
 	
 	@Mock
 	BookRepository repository;
+	
+	@Spy
+	SelfLinkFactory linkFactory = new SelfLinkFactory();
+	
+	@Spy
+	CacheManager cacheManager = new ConcurrentMapCacheManager();
 
 	@BeforeEach
 	void setUpMocks() throws Exception {
@@ -43,10 +63,9 @@ class BookServicesTest {
 	
 	@Test
 	void testFindById() {
-		Book entity = input.mockEntity(1);
-		entity.setId(1L);
+		BookVO projection = input.mockVO(1);
 		
-		when(repository.findById(1L)).thenReturn(Optional.of(entity));
+		when(repository.findVOById(1L)).thenReturn(Optional.of(projection));
 		
 		var result = service.findById(1L);
 		
@@ -59,6 +78,37 @@ class BookServicesTest {
 		assertEquals(25D, result.getPrice());
 		assertNotNull(result.getLaunchDate());
 	}
+	
+	@Test
+	void testFindByIdUsesCacheUntilEvicted() {
+		BookVO projection = input.mockVO(2);
+		
+		when(repository.findVOById(2L)).thenReturn(Optional.of(projection));
+		when(repository.deleteBookById(2L)).thenReturn(1);
+		
+		service.findById(2L);
+		service.findById(2L);
+		verify(repository, times(1)).findVOById(2L);
+		
+		service.delete(2L);
+		service.findById(2L);
+		verify(repository, times(2)).findVOById(2L);
+	}
+	
+	@Test
+	void testFindAllWithoutCountKeepsDirection() {
+		List<BookVO> content = input.mockVOList().subList(0, 3);
+		PageRequest pageable = PageRequest.of(0, 3, Sort.by(Direction.DESC, "title"));
+		
+		when(repository.findBooksSlice(pageable)).thenReturn(new SliceImpl<>(content, pageable, true));
+		
+		var result = service.findAll(pageable, false);
+		
+		verify(repository, never()).count();
+		var next = UriComponentsBuilder.fromUriString(result.getLink("next").get().getHref()).build().getQueryParams();
+		assertEquals("desc", next.getFirst("direction"));
+		assertEquals("false", next.getFirst("count"));
+	}
 /*
 	@Test
 	void testFindAll() {
@@ -109,11 +159,13 @@ class BookServicesTest {
 	void testCreate() {
 		Book entity = input.mockEntity(1);
 		
-		Book persisted = entity;
-		persisted.setId(1L);
+		Book persisted = input.mockEntity(1);
+		persisted.setVersion(0L);
 		
 		BookVO vo = input.mockVO(1);
 		vo.setId(1L);
+		// a versao enviada no create e ignorada: o save recebe a entidade sem versao
+		vo.setVersion(9L);
 		
 		when(repository.save(entity)).thenReturn(persisted);
 		
@@ -121,6 +173,7 @@ class BookServicesTest {
 		
 		assertNotNull(result);
 		assertNotNull(result.getId());
+		assertEquals(Long.valueOf(0L), result.getVersion());
 		assertNotNull(result.getLinks());
 		assertTrue(result.toString().contains("links: [</api/book/v1/1>;rel=\"self\"]"));
 		assertEquals("Some Author1", result.getAuthor());
@@ -144,20 +197,14 @@ class BookServicesTest {
 
 	@Test
 	void testUpdate() {
-		Book entity = input.mockEntity(1);
-		entity.setId(1L);
-		
-		Book persisted = entity;
-		persisted.setId(1L);
-		
 		BookVO vo = input.mockVO(1);
 		vo.setId(1L);
 		
-		when(repository.findById(1L)).thenReturn(Optional.of(entity));
-		when(repository.save(entity)).thenReturn(persisted);
+		when(repository.updateBook(1L, "Some Author1", vo.getLaunchDate(), 25D, "Some Title1", null)).thenReturn(1);
 		
 		var result = service.update(vo);
 		
+		verify(repository, never()).findById(1L);
 		assertNotNull(result);
 		assertNotNull(result.getId());
 		assertNotNull(result.getLinks());
@@ -168,6 +215,17 @@ class BookServicesTest {
 		assertNotNull(result.getLaunchDate());;
 	}
 	
+	@Test
+	void testUpdateWithStaleVersion() {
+		BookVO vo = input.mockVO(1);
+		vo.setId(1L);
+		vo.setVersion(3L);
+		
+		when(repository.existsById(1L)).thenReturn(true);
+		
+		assertThrows(ConcurrentUpdateException.class, () -> service.update(vo));
+	}
+	
 	@Test
 	void testUpdateWithNullBook() {
 		
@@ -183,12 +241,16 @@ class BookServicesTest {
 
 	@Test
 	void testDelete() {
-		Book entity = input.mockEntity(1);
-		entity.setId(1L);
-		
-		when(repository.findById(1L)).thenReturn(Optional.of(entity));
+		when(repository.deleteBookById(1L)).thenReturn(1);
 		
 		service.delete(1L);
+		
+		verify(repository, never()).findById(1L);
+	}
+	
+	@Test
+	void testDeleteNotFound() {
+		assertThrows(ResourceNotFoundException.class, () -> service.delete(1L));
 	}
 
 }
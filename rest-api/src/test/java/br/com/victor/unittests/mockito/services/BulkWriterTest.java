@@ -0,0 +1,79 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import br.com.victor.data.vo.v1.BulkItemResultVO;
+import br.com.victor.services.BulkWriter;
+import jakarta.persistence.EntityManager;
+
+class BulkWriterTest {
+	
+	private BulkWriter writer;
+	
+	private EntityManager entityManager;
+	
+	@BeforeEach
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		
+		writer = new BulkWriter();
+		ReflectionTestUtils.setField(writer, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(writer, "entityManager", entityManager);
+		ReflectionTestUtils.setField(writer, "chunkSize", 2);
+	}
+	
+	@Test
+	void testWriteSplitsIntoChunksAndKeepsInputOrder() {
+		List<List<String>> chunks = new ArrayList<>();
+		
+		var results = writer.write(List.of("a", "b", "c", "d", "e").iterator(), (chunk, firstIndex) -> {
+			chunks.add(new ArrayList<>(chunk));
+			return created(chunk.size(), firstIndex);
+		});
+		
+		assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e")), chunks);
+		assertEquals(5, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(i, results.get(i).getIndex());
+			assertEquals(Long.valueOf(i), results.get(i).getId());
+		}
+		// um flush (batch JDBC) e um clear por bloco
+		verify(entityManager, times(3)).flush();
+		verify(entityManager, times(3)).clear();
+	}
+	
+	@Test
+	void testFailedChunkDoesNotStopTheOthers() {
+		var results = writer.write(List.of(1, 2, 3, 4).iterator(), (chunk, firstIndex) -> {
+			if (firstIndex == 0) throw new IllegalStateException("Duplicate entry");
+			return created(chunk.size(), firstIndex);
+		});
+		
+		assertEquals(4, results.size());
+		assertEquals(500, results.get(0).getStatus());
+		assertEquals(500, results.get(1).getStatus());
+		assertNotNull(results.get(1).getError());
+		assertNull(results.get(1).getId());
+		assertEquals(201, results.get(2).getStatus());
+		assertEquals(3, results.get(3).getIndex());
+	}
+	
+	private static List<BulkItemResultVO> created(int size, int firstIndex) {
+		List<BulkItemResultVO> results = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			results.add(new BulkItemResultVO(firstIndex + i, (long) (firstIndex + i), 201, null));
+		}
+		return results;
+	}
+}
@@ -0,0 +1,108 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.victor.exceptions.UnsupportedExportFormatException;
+import br.com.victor.services.ExportService;
+
+class ExportServiceTest {
+	
+	private ExportService service;
+	
+	private JdbcTemplate jdbcTemplate;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		
+		service = new ExportService();
+		ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		
+		// duas pessoas; a segunda tem virgula e aspas no endereco
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.next()).thenReturn(true, true, false);
+		when(rs.getObject(1)).thenReturn(1L, 2L);
+		when(rs.getObject(2)).thenReturn("Ayrton", "Ada");
+		when(rs.getObject(3)).thenReturn("Senna", "Lovelace");
+		when(rs.getObject(4)).thenReturn("Sao Paulo", "London, \"UK\"");
+		when(rs.getObject(5)).thenReturn("Male", "Female");
+		when(rs.getObject(6)).thenReturn(0L, null);
+		
+		when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+			.thenAnswer(invocation -> invocation.getArgument(1, ResultSetExtractor.class).extractData(rs));
+	}
+	
+	@Test
+	void testExportPeopleAsNdjson() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		
+		service.exportPeople("ndjson", response);
+		
+		assertEquals("application/x-ndjson;charset=UTF-8", response.getContentType());
+		String[] lines = response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertEquals("{\"id\":1,\"firstName\":\"Ayrton\",\"lastName\":\"Senna\",\"address\":\"Sao Paulo\",\"gender\":\"Male\",\"version\":0}", lines[0]);
+		assertTrue(lines[1].startsWith("{\"id\":2,"));
+	}
+	
+	@Test
+	void testExportPeopleAsCsv() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		
+		service.exportPeople("csv", response);
+		
+		assertTrue(response.getHeader("Content-Disposition").contains("people.csv"));
+		assertEquals("id,firstName,lastName,address,gender,version\r\n"
+				+ "1,Ayrton,Senna,Sao Paulo,Male,0\r\n"
+				+ "2,Ada,Lovelace,\"London, \"\"UK\"\"\",Female,\r\n",
+				response.getContentAsString(StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	void testUnsupportedFormat() {
+		assertThrows(UnsupportedExportFormatException.class,
+				() -> service.exportBooks("xlsx", new MockHttpServletResponse()));
+	}
+	
+	@Test
+	void testExportStreamsOnlyItsOwnStatement() throws Exception {
+		ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+		service.exportBooks("csv", new MockHttpServletResponse());
+		verify(jdbcTemplate).query(creator.capture(), any(ResultSetExtractor.class));
+		
+		Connection connection = mock(Connection.class);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY))).thenReturn(statement);
+		
+		creator.getValue().createPreparedStatement(connection);
+		
+		// streaming do Connector/J por statement; a conexao do pool nao e alterada
+		verify(statement).setFetchSize(Integer.MIN_VALUE);
+		verify(connection).prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+		verifyNoMoreInteractions(connection);
+	}
+}
@@ -0,0 +1,176 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import br.com.victor.model.FileBlob;
+import br.com.victor.model.StoredFile;
+import br.com.victor.repositories.FileBlobRepository;
+import br.com.victor.repositories.StoredFileRepository;
+import br.com.victor.services.FileBlobService;
+import br.com.victor.storage.FileStore;
+import br.com.victor.storage.GzipVariants;
+
+class FileBlobServiceTest {
+	
+	private static final String HASH_A = "a".repeat(64);
+	private static final String HASH_B = "b".repeat(64);
+	
+	@TempDir
+	Path dir;
+	
+	private FileBlobService service;
+	
+	private FileBlobRepository blobRepository;
+	
+	private StoredFileRepository fileRepository;
+	
+	private FileStore fileStore;
+	
+	private Path temp;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		blobRepository = mock(FileBlobRepository.class);
+		fileRepository = mock(StoredFileRepository.class);
+		fileStore = mock(FileStore.class);
+		
+		service = new FileBlobService();
+		ReflectionTestUtils.setField(service, "blobRepository", blobRepository);
+		ReflectionTestUtils.setField(service, "fileRepository", fileRepository);
+		ReflectionTestUtils.setField(service, "fileStore", fileStore);
+		ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+		
+		when(fileRepository.saveAndFlush(any(StoredFile.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		temp = Files.writeString(dir.resolve(".upload-1.tmp"), "content");
+	}
+	
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+	
+	@Test
+	void testPreviousBlobIsDeletedOnlyAfterCommit() throws Exception {
+		when(fileRepository.findByFileNameForUpdate("report.txt")).thenReturn(storedFile("report.txt", HASH_A));
+		when(blobRepository.deleteUnreferenced(HASH_A)).thenReturn(1);
+		
+		TransactionSynchronizationManager.initSynchronization();
+		service.link("report.txt", "text/plain", HASH_B, 7, temp, null);
+		
+		verify(fileStore, never()).delete(anyString());
+		
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		verify(fileStore).delete(HASH_A);
+		verify(fileStore).delete(GzipVariants.keyOf(HASH_A));
+	}
+	
+	@Test
+	void testRolledBackLinkKeepsPreviousBlobAndTemp() throws Exception {
+		when(fileRepository.findByFileNameForUpdate("report.txt")).thenReturn(storedFile("report.txt", HASH_A));
+		when(blobRepository.deleteUnreferenced(HASH_A)).thenReturn(1);
+		when(fileStore.exists(HASH_B)).thenReturn(true);
+		
+		TransactionSynchronizationManager.initSynchronization();
+		service.link("report.txt", "text/plain", HASH_B, 7, temp, null);
+		TransactionSynchronizationUtils.invokeAfterCompletion(
+				TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+		
+		verify(fileStore, never()).delete(anyString());
+		// o descarte do temp tambem espera o commit
+		assertTrue(Files.exists(temp));
+	}
+	
+	@Test
+	void testBlobRecreatedBeforeCleanupIsKept() throws Exception {
+		when(fileRepository.findByFileNameForUpdate("report.txt")).thenReturn(storedFile("report.txt", HASH_A));
+		when(blobRepository.deleteUnreferenced(HASH_A)).thenReturn(1);
+		// outro upload do mesmo conteudo recriou a linha entre o commit e a limpeza
+		when(blobRepository.findByHashForUpdate(HASH_A)).thenReturn(new FileBlob());
+		
+		TransactionSynchronizationManager.initSynchronization();
+		service.link("report.txt", "text/plain", HASH_B, 7, temp, null);
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		
+		verify(fileStore, never()).delete(anyString());
+	}
+	
+	@Test
+	void testBlobRowsAreLockedInHashOrder() throws Exception {
+		when(fileRepository.findByFileNameForUpdate("up.txt")).thenReturn(storedFile("up.txt", HASH_A));
+		when(fileRepository.findByFileNameForUpdate("down.txt")).thenReturn(storedFile("down.txt", HASH_B));
+		
+		service.link("up.txt", "text/plain", HASH_B, 7, temp, null);
+		InOrder up = inOrder(fileRepository, blobRepository);
+		up.verify(fileRepository).findByFileNameForUpdate("up.txt");
+		up.verify(blobRepository).release(HASH_A);
+		up.verify(blobRepository).acquire(HASH_B, 7);
+		
+		service.link("down.txt", "text/plain", HASH_A, 7, Files.writeString(dir.resolve(".upload-2.tmp"), "other"), null);
+		InOrder down = inOrder(fileRepository, blobRepository);
+		down.verify(fileRepository).findByFileNameForUpdate("down.txt");
+		down.verify(blobRepository).acquire(HASH_A, 7);
+		down.verify(blobRepository).release(HASH_B);
+	}
+	
+	@Test
+	void testConcurrentFirstUploadRetriesAsUpdate() throws Exception {
+		// o primeiro INSERT perde para outro upload do mesmo nome; na segunda tentativa a linha ja existe
+		when(fileRepository.findByFileNameForUpdate("new.txt")).thenReturn(null, storedFile("new.txt", HASH_B));
+		when(fileRepository.saveAndFlush(any(StoredFile.class)))
+			.thenThrow(new DataIntegrityViolationException("Duplicate entry 'new.txt'"))
+			.thenAnswer(invocation -> invocation.getArgument(0));
+		when(fileStore.exists(HASH_A)).thenReturn(false, true);
+		
+		StoredFile file = service.link("new.txt", "text/plain", HASH_A, 7, temp, null);
+		
+		assertEquals(HASH_A, file.getBlobHash());
+		verify(fileRepository, times(2)).findByFileNameForUpdate("new.txt");
+		// o blob gravado na primeira tentativa e reaproveitado na segunda
+		verify(fileStore, times(1)).put(HASH_A, temp);
+		verify(blobRepository).release(HASH_B);
+	}
+	
+	@Test
+	void testSameContentKeepsBlobAndDiscardsTemp() throws Exception {
+		when(fileRepository.findByFileNameForUpdate("same.txt")).thenReturn(storedFile("same.txt", HASH_A));
+		
+		service.link("same.txt", "text/plain", HASH_A, 7, temp, null);
+		
+		verify(blobRepository, never()).acquire(anyString(), anyLong());
+		verify(blobRepository, never()).release(anyString());
+		assertFalse(Files.exists(temp));
+	}
+	
+	private static StoredFile storedFile(String name, String hash) {
+		StoredFile file = new StoredFile();
+		file.setFileName(name);
+		file.setBlobHash(hash);
+		return file;
+	}
+}
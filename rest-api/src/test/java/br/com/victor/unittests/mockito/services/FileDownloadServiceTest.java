@@ -0,0 +1,214 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.victor.config.FileStorageConfig;
+import br.com.victor.exceptions.MyFileNotFoundException;
+import br.com.victor.services.FileBlobService;
+import br.com.victor.services.FileDownloadService;
+import br.com.victor.services.FileStorageService;
+import br.com.victor.storage.HotFileCache;
+import br.com.victor.storage.StoredObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FileDownloadServiceTest {
+	
+	private static final String CONTENT = "0123456789abcdefghij";
+	
+	@TempDir
+	Path uploadDir;
+	
+	private FileDownloadService service;
+	
+	private HotFileCache hotFileCache;
+	
+	private FileBlobService blobService;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		Files.writeString(uploadDir.resolve("file.txt"), CONTENT);
+		
+		FileStorageConfig config = new FileStorageConfig();
+		config.setUploadDir(uploadDir.toString());
+		
+		// sem entrada no indice: o arquivo e servido do layout antigo, solto no diretorio de upload
+		FileStorageService storageService = new FileStorageService(config);
+		blobService = mock(FileBlobService.class);
+		ReflectionTestUtils.setField(storageService, "blobService", blobService);
+		
+		hotFileCache = new HotFileCache(16, 1024, 10, new SimpleMeterRegistry());
+		
+		service = new FileDownloadService();
+		ReflectionTestUtils.setField(service, "storageService", storageService);
+		ReflectionTestUtils.setField(service, "hotFileCache", hotFileCache);
+	}
+	
+	@Test
+	void testDownloadWholeFile() throws Exception {
+		MockHttpServletResponse response = download(new MockHttpServletRequest("GET", "/"));
+		
+		assertEquals(200, response.getStatus());
+		assertEquals(CONTENT, response.getContentAsString());
+		assertEquals("bytes", response.getHeader("Accept-Ranges"));
+		assertNotNull(response.getHeader("ETag"));
+		assertNotNull(response.getHeader("Last-Modified"));
+	}
+	
+	@Test
+	void testDownloadSingleRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("Range", "bytes=10-14");
+		
+		MockHttpServletResponse response = download(request);
+		
+		assertEquals(206, response.getStatus());
+		assertEquals("abcde", response.getContentAsString());
+		assertEquals("bytes 10-14/20", response.getHeader("Content-Range"));
+		assertEquals(5, response.getContentLengthLong());
+	}
+	
+	@Test
+	void testDownloadMultipleRanges() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("Range", "bytes=0-1,-2");
+		
+		MockHttpServletResponse response = download(request);
+		String body = response.getContentAsString();
+		
+		assertEquals(206, response.getStatus());
+		assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+		assertTrue(body.contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n"));
+		assertTrue(body.contains("Content-Range: bytes 18-19/20\r\n\r\nij\r\n"));
+		assertEquals(body.getBytes(StandardCharsets.US_ASCII).length, response.getContentLengthLong());
+	}
+	
+	@Test
+	void testDownloadIgnoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("Range", "bytes=10-14");
+		request.addHeader("If-Range", "\"stale\"");
+		
+		MockHttpServletResponse response = download(request);
+		
+		assertEquals(200, response.getStatus());
+		assertEquals(CONTENT, response.getContentAsString());
+	}
+	
+	@Test
+	void testDownloadUnsatisfiableRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("Range", "bytes=50-60");
+		
+		MockHttpServletResponse response = download(request);
+		
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */20", response.getHeader("Content-Range"));
+	}
+	
+	@Test
+	void testDownloadIgnoresMalformedRange() throws Exception {
+		for (String range : new String[] { "bytes=abc", "bytes=14-10", "items=0-5", "bytes" }) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+			request.addHeader("Range", range);
+			
+			MockHttpServletResponse response = download(request);
+			
+			// RFC 9110: Range invalido e ignorado, o arquivo sai inteiro com 200
+			assertEquals(200, response.getStatus(), range);
+			assertNull(response.getHeader("Content-Range"), range);
+			assertEquals(CONTENT, response.getContentAsString(), range);
+		}
+	}
+	
+	@Test
+	void testDownloadNotModified() throws Exception {
+		String etag = download(new MockHttpServletRequest("GET", "/")).getHeader("ETag");
+		
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("If-None-Match", etag);
+		
+		MockHttpServletResponse response = download(request);
+		
+		assertEquals(304, response.getStatus());
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+	
+	@Test
+	void testRepeatDownloadOfSmallFileIsServedFromMemory() throws Exception {
+		Files.writeString(uploadDir.resolve("small.txt"), "tiny");
+		
+		MockHttpServletResponse first = download("small.txt", new MockHttpServletRequest("GET", "/"));
+		Files.delete(uploadDir.resolve("small.txt"));
+		MockHttpServletResponse second = download("small.txt", new MockHttpServletRequest("GET", "/"));
+		
+		assertEquals("tiny", second.getContentAsString());
+		assertEquals(first.getHeader("ETag"), second.getHeader("ETag"));
+		assertEquals(first.getContentType(), second.getContentType());
+		
+		hotFileCache.invalidate("small.txt");
+		assertThrows(MyFileNotFoundException.class, () -> download("small.txt", new MockHttpServletRequest("GET", "/")));
+	}
+	
+	@Test
+	void testDownloadServesGzipVariantWhenAccepted() throws Exception {
+		Path variant = uploadDir.resolve("file.txt.gz");
+		try (GZIPOutputStream out = new GZIPOutputStream(Files.newOutputStream(variant))) {
+			out.write(CONTENT.getBytes(StandardCharsets.US_ASCII));
+		}
+		when(blobService.findGzipVariant(any()))
+			.thenReturn(Optional.of(StoredObject.ofLocalFile(variant, Files.size(variant), 0)));
+		
+		MockHttpServletResponse identity = download(new MockHttpServletRequest("GET", "/"));
+		
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("Accept-Encoding", "br;q=1, gzip;q=0.8");
+		MockHttpServletResponse gzipped = download(request);
+		
+		assertNull(identity.getHeader("Content-Encoding"));
+		assertEquals(CONTENT, identity.getContentAsString());
+		assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", gzipped.getHeader("Vary"));
+		assertEquals(Files.size(variant), gzipped.getContentLengthLong());
+		assertNotEquals(identity.getHeader("ETag"), gzipped.getHeader("ETag"));
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+			assertEquals(CONTENT, new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+		}
+		
+		// Range sempre sobre o original
+		request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("Accept-Encoding", "gzip");
+		request.addHeader("Range", "bytes=10-14");
+		MockHttpServletResponse range = download(request);
+		
+		assertNull(range.getHeader("Content-Encoding"));
+		assertEquals("abcde", range.getContentAsString());
+	}
+	
+	private MockHttpServletResponse download(MockHttpServletRequest request) throws Exception {
+		return download("file.txt", request);
+	}
+	
+	private MockHttpServletResponse download(String filename, MockHttpServletRequest request) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		service.download(filename, request, response);
+		return response;
+	}
+}
@@ -0,0 +1,202 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import br.com.victor.config.FileStorageConfig;
+import br.com.victor.exceptions.FileStorageException;
+import br.com.victor.repositories.FileBlobRepository;
+import br.com.victor.repositories.StoredFileRepository;
+import br.com.victor.services.FileBlobService;
+import br.com.victor.services.FileStorageService;
+import br.com.victor.storage.GzipVariants;
+import br.com.victor.storage.HotFileCache;
+import br.com.victor.storage.LocalFileStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FileStorageServiceTest {
+	
+	@TempDir
+	Path uploadDir;
+	
+	private FileStorageService service;
+	
+	private LocalFileStore fileStore;
+	
+	private FileBlobRepository blobRepository;
+	
+	@BeforeEach
+	void setUp() {
+		FileStorageConfig config = new FileStorageConfig();
+		config.setUploadDir(uploadDir.toString());
+		
+		blobRepository = mock(FileBlobRepository.class);
+		fileStore = new LocalFileStore(config);
+		FileBlobService blobService = new FileBlobService();
+		ReflectionTestUtils.setField(blobService, "blobRepository", blobRepository);
+		ReflectionTestUtils.setField(blobService, "fileRepository", mock(StoredFileRepository.class));
+		ReflectionTestUtils.setField(blobService, "fileStore", fileStore);
+		ReflectionTestUtils.setField(blobService, "transactionManager", mock(PlatformTransactionManager.class));
+		
+		service = new FileStorageService(config);
+		ReflectionTestUtils.setField(service, "blobService", blobService);
+		ReflectionTestUtils.setField(service, "hotFileCache", new HotFileCache(262144, 1048576, 10, new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(service, "gzipVariants", new GzipVariants(true, 1024, 0.1));
+		ReflectionTestUtils.setField(service, "multipartProperties", new MultipartProperties());
+	}
+	
+	@Test
+	void testStoreFileComputesChecksum() throws Exception {
+		byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+		
+		var result = service.storeFile("dir/hello.txt", "text/plain", new ByteArrayInputStream(content));
+		
+		assertEquals("hello.txt", result.getFileName());
+		assertEquals(5, result.getSize());
+		assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824", result.getChecksum());
+		// layout com shards: blobs/2c/f2/2cf24d...
+		Path blob = uploadDir.resolve("blobs").resolve("2c").resolve("f2").resolve(result.getChecksum());
+		assertEquals(blob, fileStore.resolve(result.getChecksum()));
+		assertArrayEquals(content, Files.readAllBytes(blob));
+		// so o diretorio de blobs fica no upload, sem temporarios
+		try (var files = Files.list(uploadDir)) {
+			assertEquals(1, files.count());
+		}
+	}
+	
+	@Test
+	void testStoreFileReusesBlobForIdenticalContent() throws Exception {
+		byte[] content = "same content".getBytes(StandardCharsets.UTF_8);
+		
+		var first = service.storeFile("first.txt", "text/plain", new ByteArrayInputStream(content));
+		var second = service.storeFile("second.txt", "text/plain", new ByteArrayInputStream(content));
+		
+		assertEquals(first.getChecksum(), second.getChecksum());
+		verify(blobRepository, times(2)).acquire(first.getChecksum(), content.length);
+		try (var blobs = Files.walk(uploadDir.resolve("blobs"))) {
+			assertEquals(1, blobs.filter(Files::isRegularFile).count());
+		}
+		try (var files = Files.list(uploadDir)) {
+			assertEquals(1, files.count());
+		}
+	}
+	
+	@Test
+	void testStoreFileKeepsGzipVariantOnlyForCompressibleTypes() throws Exception {
+		byte[] content = "line of text\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+		
+		var text = service.storeFile("log.txt", "text/plain", new ByteArrayInputStream(content));
+		Path variant = fileStore.resolve(GzipVariants.keyOf(text.getChecksum()));
+		assertTrue(Files.size(variant) < content.length);
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(variant))) {
+			assertArrayEquals(content, in.readAllBytes());
+		}
+		
+		byte[] other = "pixels\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+		var image = service.storeFile("photo.png", "image/png", new ByteArrayInputStream(other));
+		assertFalse(fileStore.exists(GzipVariants.keyOf(image.getChecksum())));
+		// nenhum temporario de compressao fica para tras
+		try (var files = Files.list(uploadDir)) {
+			assertEquals(1, files.count());
+		}
+	}
+	
+	@Test
+	void testStoreFilesKeepsOrderWithPerFileErrors() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		ReflectionTestUtils.setField(service, "uploadExecutor", executor);
+		ReflectionTestUtils.setField(service, "parallelismPerRequest", 2);
+		
+		List<MultipartFile> files = List.of(
+				new MockMultipartFile("files", "a.txt", "text/plain", "a".getBytes(StandardCharsets.UTF_8)),
+				new MockMultipartFile("files", "bad..txt", "text/plain", "b".getBytes(StandardCharsets.UTF_8)),
+				new MockMultipartFile("files", "c.txt", "text/plain", "c".getBytes(StandardCharsets.UTF_8)));
+		
+		try {
+			var result = service.storeFiles(files);
+			
+			assertEquals(3, result.size());
+			assertEquals("a.txt", result.get(0).getFileName());
+			assertNull(result.get(0).getError());
+			assertEquals("bad..txt", result.get(1).getFileName());
+			assertNotNull(result.get(1).getError());
+			assertEquals("c.txt", result.get(2).getFileName());
+			assertNull(result.get(2).getError());
+			assertTrue(fileStore.exists(result.get(2).getChecksum()));
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	void testStoreFileRejectsInvalidName() {
+		Exception exception = assertThrows(FileStorageException.class, () -> {
+			service.storeFile("bad..txt", "text/plain", new ByteArrayInputStream(new byte[0]));
+		});
+		
+		assertTrue(exception.getMessage().contains("invalid path sequence"));
+	}
+	
+	@Test
+	void testStoreMultipartStreamStoresEachFilePart() throws Exception {
+		String boundary = "----upload-boundary";
+		String body = "--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"description\"\r\n\r\n"
+				+ "ignored form field\r\n"
+				+ "--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"files\"; filename=\"hello.txt\"\r\n"
+				+ "Content-Type: text/plain\r\n\r\n"
+				+ "hello\r\n"
+				+ "--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"files\"; filename=\"other.bin\"\r\n"
+				+ "Content-Type: application/octet-stream\r\n\r\n"
+				+ "other content\r\n"
+				+ "--" + boundary + "--\r\n";
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/file/v1/uploadStream");
+		request.setContentType("multipart/form-data; boundary=" + boundary);
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		
+		var result = service.storeMultipartStream(request);
+		
+		// o campo de formulario nao vira arquivo; cada parte de arquivo e gravada uma vez, na ordem do corpo
+		assertEquals(2, result.size());
+		assertEquals("hello.txt", result.get(0).getFileName());
+		assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824", result.get(0).getChecksum());
+		assertEquals("other.bin", result.get(1).getFileName());
+		assertEquals(13, result.get(1).getSize());
+		assertArrayEquals("other content".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(fileStore.resolve(result.get(1).getChecksum())));
+	}
+	
+	@Test
+	void testStoreMultipartStreamRejectsOtherContentTypes() {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/file/v1/uploadStream");
+		request.setContentType("application/json");
+		request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+		
+		Exception exception = assertThrows(FileStorageException.class, () -> service.storeMultipartStream(request));
+		
+		assertEquals("Sorry! request is not a multipart upload", exception.getMessage());
+	}
+}
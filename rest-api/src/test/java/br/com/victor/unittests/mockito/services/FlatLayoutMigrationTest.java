@@ -0,0 +1,96 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.victor.config.FileStorageConfig;
+import br.com.victor.exceptions.FileStorageException;
+import br.com.victor.services.FileBlobService;
+import br.com.victor.storage.FileStore;
+import br.com.victor.storage.FlatLayoutMigration;
+import br.com.victor.storage.GzipVariants;
+
+class FlatLayoutMigrationTest {
+	
+	@TempDir
+	Path uploadDir;
+	
+	private FlatLayoutMigration migration;
+	
+	private FileBlobService blobService;
+	
+	@BeforeEach
+	void setUp() {
+		FileStorageConfig config = new FileStorageConfig();
+		config.setUploadDir(uploadDir.toString());
+		
+		blobService = mock(FileBlobService.class);
+		
+		migration = new FlatLayoutMigration(config);
+		ReflectionTestUtils.setField(migration, "fileStore", mock(FileStore.class));
+		ReflectionTestUtils.setField(migration, "blobService", blobService);
+		ReflectionTestUtils.setField(migration, "gzipVariants", new GzipVariants(true, 1024, 0.1));
+	}
+	
+	@Test
+	void testLinksACopyAndRemovesTheOriginalAfterwards() throws Exception {
+		Path original = Files.writeString(uploadDir.resolve("report.bin"), "flat content");
+		ArgumentCaptor<Path> linked = ArgumentCaptor.forClass(Path.class);
+		
+		migration.run(new DefaultApplicationArguments());
+		
+		verify(blobService).link(eq("report.bin"), any(), anyString(), eq(12L), linked.capture(), isNull());
+		assertNotEquals(original, linked.getValue());
+		assertTrue(linked.getValue().getFileName().toString().startsWith(".upload-"));
+		assertFalse(Files.exists(original));
+	}
+	
+	@Test
+	void testFailedLinkKeepsTheOriginalAndNoTemporaries() throws Exception {
+		Path original = Files.writeString(uploadDir.resolve("report.bin"), "flat content");
+		when(blobService.link(anyString(), any(), anyString(), anyLong(), any(Path.class), any()))
+			.thenThrow(new FileStorageException("store unavailable"));
+		
+		migration.run(new DefaultApplicationArguments());
+		
+		// o original continua servido pelo layout antigo e a migracao pode rodar de novo
+		assertEquals("flat content", Files.readString(original));
+		assertEquals(List.of("report.bin"), listNames());
+	}
+	
+	@Test
+	void testIndexedNameIsSkipped() throws Exception {
+		Path original = Files.writeString(uploadDir.resolve("report.bin"), "flat content");
+		when(blobService.isIndexed("report.bin")).thenReturn(true);
+		
+		migration.run(new DefaultApplicationArguments());
+		
+		assertTrue(Files.exists(original));
+		assertEquals(List.of("report.bin"), listNames());
+	}
+	
+	private List<String> listNames() throws Exception {
+		try (var files = Files.list(uploadDir)) {
+			return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.victor.model.Book;
+import br.com.victor.model.Person;
+
+// mapeamento SequenceStyleGenerator + pooled-lo das entidades: com o dialeto do MySQL (sem sequence) o Hibernate
+// usa as tabelas person_seq/books_seq da V16; o H2 em modo MySQL faz o papel do banco
+class IdAllocationTest {
+	
+	private static final String URL = "jdbc:h2:mem:ids;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	
+	private final List<SessionFactory> factories = new ArrayList<>();
+	
+	@AfterEach
+	void tearDown() {
+		for (int i = factories.size() - 1; i >= 0; i--) factories.get(i).close();
+	}
+	
+	@Test
+	void testIdsComeFromOneBlockOfTheIdTable() {
+		SessionFactory factory = start("create-drop");
+		
+		List<Long> people = persistPeople(factory, 3);
+		List<Long> books = persistBooks(factory, 2);
+		
+		assertEquals(List.of(1L, 2L, 3L), people);
+		assertEquals(List.of(1L, 2L), books);
+		// um unico UPDATE reservou o bloco inteiro: next_val ja aponta para o primeiro id do proximo bloco
+		assertEquals(101L, nextVal(factory, "person_seq"));
+		assertEquals(101L, nextVal(factory, "books_seq"));
+	}
+	
+	@Test
+	void testBlockIsRefilledAndARestartStartsANewBlock() {
+		SessionFactory first = start("create");
+		
+		List<Long> ids = persistPeople(first, 101);
+		
+		// o 101o id abre o segundo bloco
+		assertEquals(1L, ids.get(0));
+		assertEquals(101L, ids.get(100));
+		assertEquals(201L, nextVal(first, "person_seq"));
+		
+		// outro no (ou um restart) nunca reusa o que ja foi reservado: o resto do bloco atual e descartado
+		SessionFactory second = start("none");
+		assertEquals(List.of(201L), persistPeople(second, 1));
+		assertEquals(List.of(102L), persistPeople(first, 1));
+		assertEquals(301L, nextVal(second, "person_seq"));
+	}
+	
+	private SessionFactory start(String schema) {
+		SessionFactory factory = new Configuration()
+				.addAnnotatedClass(Person.class)
+				.addAnnotatedClass(Book.class)
+				.setProperty("hibernate.connection.url", URL)
+				.setProperty("hibernate.connection.username", "sa")
+				.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL8Dialect")
+				.setProperty("hibernate.hbm2ddl.auto", schema)
+				.buildSessionFactory();
+		factories.add(factory);
+		return factory;
+	}
+	
+	private static List<Long> persistPeople(SessionFactory factory, int count) {
+		return factory.fromTransaction(session -> {
+			List<Long> ids = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				Person person = new Person();
+				person.setFirstName("First" + i);
+				person.setLastName("Last" + i);
+				person.setAddress("Address" + i);
+				person.setGender("Female");
+				session.persist(person);
+				ids.add(person.getId());
+			}
+			return ids;
+		});
+	}
+	
+	private static List<Long> persistBooks(SessionFactory factory, int count) {
+		return factory.fromTransaction(session -> {
+			List<Long> ids = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				Book book = new Book();
+				book.setAuthor("Author" + i);
+				book.setTitle("Title" + i);
+				book.setPrice(25D);
+				book.setLaunchDate(new Date());
+				session.persist(book);
+				ids.add(book.getId());
+			}
+			return ids;
+		});
+	}
+	
+	private static long nextVal(SessionFactory factory, String table) {
+		return factory.fromTransaction(session -> ((Number) session
+				.createNativeQuery("SELECT next_val FROM " + table, Object.class)
+				.getSingleResult()).longValue());
+	}
+}
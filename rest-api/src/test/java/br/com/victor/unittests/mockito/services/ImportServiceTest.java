@@ -0,0 +1,182 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import br.com.victor.data.vo.v1.ImportJobVO;
+import br.com.victor.exceptions.UnsupportedImportFormatException;
+import br.com.victor.services.ExportService;
+import br.com.victor.services.FileStorageService;
+import br.com.victor.services.ImportService;
+import br.com.victor.storage.StoredObject;
+
+class ImportServiceTest {
+	
+	private ImportService service;
+	
+	private FileStorageService fileStorageService;
+	
+	private JdbcTemplate jdbcTemplate;
+	
+	@BeforeEach
+	void setUp() {
+		fileStorageService = mock(FileStorageService.class);
+		jdbcTemplate = mock(JdbcTemplate.class);
+		CacheManager cacheManager = mock(CacheManager.class);
+		when(cacheManager.getCache(anyString())).thenReturn(mock(Cache.class));
+		when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(100L);
+		
+		service = new ImportService();
+		ReflectionTestUtils.setField(service, "fileStorageService", fileStorageService);
+		ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(service, "cacheManager", cacheManager);
+		// job e blocos rodam na thread do teste
+		ReflectionTestUtils.setField(service, "jobExecutor", new ExecutorServiceAdapter(new SyncTaskExecutor()));
+		ReflectionTestUtils.setField(service, "chunkExecutor", new ExecutorServiceAdapter(new SyncTaskExecutor()));
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	void testImportPeopleFromCsv() {
+		stored("people.csv", "first_name,lastName,address,gender\r\n"
+				+ "Ayrton,Senna,Sao Paulo,Male\r\n"
+				+ "Ada,Lovelace,London,Female - too long\r\n"
+				+ "Alan,Turing,\"Bletchley Park,\nUK\",Male\r\n");
+		
+		ImportJobVO job = service.importPeople("people.csv", null);
+		ImportJobVO status = service.findJob(job.getId());
+		
+		assertEquals("COMPLETED", status.getStatus());
+		assertEquals("csv", status.getFormat());
+		assertEquals(3, status.getRowsRead());
+		assertEquals(2, status.getRowsImported());
+		assertEquals(1, status.getRowsFailed());
+		assertEquals(1, status.getErrors().size());
+		assertEquals(2, status.getErrors().get(0).getIndex());
+		assertEquals(400, status.getErrors().get(0).getStatus());
+		
+		// os ids validos saem em sequencia a partir do next_val reservado
+		verify(jdbcTemplate).update(anyString(), eq(102L));
+		ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+		assertEquals(2, batch.getValue().size());
+		assertArrayEquals(new Object[] { 100L, "Ayrton", "Senna", "Sao Paulo", "Male" }, batch.getValue().get(0));
+		assertArrayEquals(new Object[] { 101L, "Alan", "Turing", "Bletchley Park,\nUK", "Male" }, batch.getValue().get(1));
+	}
+	
+	@Test
+	void testImportBooksFromNdjsonRejectsInvalidRows() {
+		stored("books.ndjson", "{\"author\":\"Knuth\",\"launchDate\":\"2017-11-29\",\"price\":49.0,\"title\":\"TAOCP\"}\n"
+				+ "not json\n"
+				+ "\n"
+				+ "{\"author\":\"Knuth\",\"price\":49.0,\"title\":\"TAOCP\"}\n");
+		
+		ImportJobVO status = service.findJob(service.importBooks("books.ndjson", null).getId());
+		
+		assertEquals("COMPLETED", status.getStatus());
+		assertEquals(3, status.getRowsRead());
+		assertEquals(1, status.getRowsImported());
+		assertEquals(2, status.getErrors().size());
+		assertEquals("Row is not valid JSON", status.getErrors().get(0).getError());
+		assertEquals("launchDate is required", status.getErrors().get(1).getError());
+	}
+	
+	@Test
+	void testUnsupportedFormat() {
+		assertThrows(UnsupportedImportFormatException.class, () -> service.importPeople("people.xlsx", null));
+		verify(fileStorageService, never()).resolve(any());
+		verify(jdbcTemplate, never()).update(anyString(), anyLong());
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	void testExportedBooksImportBackWithTheSameLaunchDate() throws Exception {
+		// mesmo ObjectMapper do Spring Boot (java.time registrado, datas sem timestamp numerico)
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+		ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+		
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.next()).thenReturn(true, false, true, false);
+		when(rs.getObject(1)).thenReturn(7L);
+		when(rs.getObject(2)).thenReturn("Knuth");
+		// o driver devolve LocalDateTime para datetime; o Hibernate le a coluna @Temporal(DATE) como java.sql.Date
+		when(rs.getObject(3)).thenReturn(LocalDateTime.of(2017, 11, 29, 0, 0));
+		when(rs.getDate(3)).thenReturn(java.sql.Date.valueOf("2017-11-29"));
+		when(rs.getObject(4)).thenReturn(new BigDecimal("49.90"));
+		when(rs.getObject(5)).thenReturn("TAOCP");
+		when(rs.getObject(6)).thenReturn(3L);
+		JdbcTemplate exportJdbc = mock(JdbcTemplate.class);
+		when(exportJdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+			.thenAnswer(invocation -> invocation.getArgument(1, ResultSetExtractor.class).extractData(rs));
+		ExportService export = new ExportService();
+		ReflectionTestUtils.setField(export, "jdbcTemplate", exportJdbc);
+		ReflectionTestUtils.setField(export, "objectMapper", objectMapper);
+		
+		MockHttpServletResponse ndjson = new MockHttpServletResponse();
+		export.exportBooks("ndjson", ndjson);
+		MockHttpServletResponse csv = new MockHttpServletResponse();
+		export.exportBooks("csv", csv);
+		
+		// o mesmo formato do BookVO na API JSON
+		String exported = ndjson.getContentAsString(StandardCharsets.UTF_8);
+		assertTrue(exported.contains("\"launchDate\":\"2017-11-29\""));
+		
+		stored("books.ndjson", exported);
+		stored("books.csv", csv.getContentAsString(StandardCharsets.UTF_8));
+		assertEquals(1, service.findJob(service.importBooks("books.ndjson", null).getId()).getRowsImported());
+		assertEquals(1, service.findJob(service.importBooks("books.csv", null).getId()).getRowsImported());
+		
+		ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batch.capture());
+		Object[] fromNdjson = batch.getAllValues().get(0).get(0);
+		Object[] fromCsv = batch.getAllValues().get(1).get(0);
+		assertEquals("Knuth", fromNdjson[1]);
+		assertEquals(49.9, fromNdjson[3]);
+		// o Jackson le yyyy-MM-dd em UTC, como no POST da API; o CSV usa a data local
+		assertEquals(LocalDate.of(2017, 11, 29), new Date(((Date) fromNdjson[2]).getTime()).toInstant().atZone(ZoneOffset.UTC).toLocalDate());
+		assertEquals("2017-11-29", fromCsv[2].toString());
+	}
+	
+	private void stored(String fileName, String content) {
+		ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+		when(fileStorageService.resolve(fileName)).thenReturn(StoredObject.inMemory(buffer, 0L));
+	}
+}
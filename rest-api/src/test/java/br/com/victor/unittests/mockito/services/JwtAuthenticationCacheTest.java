@@ -0,0 +1,95 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import br.com.victor.security.jwt.JwtAuthenticationCache;
+import br.com.victor.security.jwt.TokenRevocationList;
+
+class JwtAuthenticationCacheTest {
+	
+	private JwtAuthenticationCache cache;
+	
+	private TokenRevocationList revocationList;
+	
+	private final Authentication leandro = new UsernamePasswordAuthenticationToken("leandro", "", List.of());
+	
+	private final Authentication flavio = new UsernamePasswordAuthenticationToken("flavio", "", List.of());
+	
+	@BeforeEach
+	void setUp() {
+		revocationList = new TokenRevocationList(3600000);
+		cache = new JwtAuthenticationCache(100, revocationList);
+	}
+	
+	@Test
+	void testEntryLivesUntilTheTokenExpires() throws Exception {
+		cache.put("token", leandro, new Date(), new Date(System.currentTimeMillis() + 300));
+		
+		assertSame(leandro, cache.get("token"));
+		// a entrada some junto com o exp do token, sem depender do tamanho do cache
+		Thread.sleep(400);
+		assertNull(cache.get("token"));
+	}
+	
+	@Test
+	void testExpiredTokenIsNotCached() {
+		cache.put("token", leandro, new Date(), new Date(System.currentTimeMillis() - 1000));
+		cache.put("no-exp", leandro, new Date(), null);
+		
+		assertNull(cache.get("token"));
+		assertNull(cache.get("no-exp"));
+	}
+	
+	@Test
+	void testRevokeRejectsCachedTokens() {
+		cache.put("token", leandro, new Date(System.currentTimeMillis() - 1000), new Date(System.currentTimeMillis() + 60000));
+		cache.put("other", flavio, new Date(System.currentTimeMillis() - 1000), new Date(System.currentTimeMillis() + 60000));
+		
+		revocationList.revoke("leandro");
+		
+		assertNull(cache.get("token"));
+		assertSame(flavio, cache.get("other"));
+	}
+	
+	@Test
+	void testTokenVerifiedBeforeRevokeAndCachedAfterIsRejected() {
+		Date issuedAt = new Date(System.currentTimeMillis() - 1000);
+		
+		// o request verificou o token, o revoke rodou e so entao o put aconteceu
+		revocationList.revoke("leandro");
+		cache.invalidateUser("leandro");
+		cache.put("token", leandro, issuedAt, new Date(System.currentTimeMillis() + 60000));
+		
+		assertNull(cache.get("token"));
+	}
+	
+	@Test
+	void testTokenIssuedAfterRevokeIsServed() {
+		revocationList.revoke("leandro");
+		
+		cache.put("token", leandro, new Date(System.currentTimeMillis() + 1000), new Date(System.currentTimeMillis() + 60000));
+		
+		assertSame(leandro, cache.get("token"));
+	}
+	
+	@Test
+	void testInvalidateUserDropsOnlyThatUser() {
+		Date issuedAt = new Date();
+		Date expiresAt = new Date(System.currentTimeMillis() + 60000);
+		cache.put("token", leandro, issuedAt, expiresAt);
+		cache.put("other", flavio, issuedAt, expiresAt);
+		
+		cache.invalidateUser("leandro");
+		
+		assertNull(cache.get("token"));
+		assertSame(flavio, cache.get("other"));
+	}
+}
@@ -0,0 +1,75 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import br.com.victor.data.vo.v1.security.TokenVO;
+import br.com.victor.exceptions.InvalidJwtAuthenticationException;
+import br.com.victor.security.jwt.JwtTokenProvider;
+import br.com.victor.security.jwt.TokenRevocationList;
+
+class JwtTokenProviderTest {
+	
+	private JwtTokenProvider provider;
+	
+	private TokenRevocationList revocationList;
+	
+	@BeforeEach
+	void setUp() {
+		// o issuer do access token sai do request corrente
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		
+		revocationList = new TokenRevocationList(3600000);
+		
+		provider = new JwtTokenProvider();
+		ReflectionTestUtils.setField(provider, "revocationList", revocationList);
+		ReflectionTestUtils.invokeMethod(provider, "init");
+	}
+	
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+	
+	@Test
+	void testRefreshToken() {
+		TokenVO token = provider.createAccessToken("leandro", List.of("ADMIN"));
+		
+		TokenVO refreshed = provider.refreshToken("Bearer " + token.getRefreshToken());
+		
+		assertEquals("leandro", refreshed.getUsername());
+		assertNotNull(refreshed.getAccessToken());
+	}
+	
+	@Test
+	void testRefreshTokenOfRevokedUserIsRejected() {
+		TokenVO token = provider.createAccessToken("leandro", List.of("ADMIN"));
+		
+		revocationList.revoke("leandro");
+		
+		assertThrows(InvalidJwtAuthenticationException.class, () -> provider.refreshToken("Bearer " + token.getRefreshToken()));
+	}
+	
+	@Test
+	void testRefreshTokenOfAnotherUserIsNotAffected() {
+		TokenVO token = provider.createAccessToken("flavio", List.of("MANAGER"));
+		
+		revocationList.revoke("leandro");
+		
+		assertEquals("flavio", provider.refreshToken(token.getRefreshToken()).getUsername());
+	}
+	
+	@Test
+	void testInvalidRefreshTokenIsRejected() {
+		assertThrows(InvalidJwtAuthenticationException.class, () -> provider.refreshToken("Bearer not-a-token"));
+	}
+}
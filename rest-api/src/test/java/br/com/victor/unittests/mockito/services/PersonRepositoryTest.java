@@ -0,0 +1,78 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.repositories.PersonRepository;
+import br.com.victor.repositories.PersonRepository.PersonRow;
+
+// os metodos default escolhem a consulta: FULLTEXT para termos do tamanho do token ngram, LIKE '%termo%' abaixo disso
+class PersonRepositoryTest {
+	
+	private PersonRepository repository;
+	
+	@BeforeEach
+	void setUp() {
+		repository = mock(PersonRepository.class, CALLS_REAL_METHODS);
+	}
+	
+	@Test
+	void testSearchUsesFulltextPhraseWithColumnSort() {
+		PersonRow row = mock(PersonRow.class);
+		when(row.getId()).thenReturn(1L);
+		when(row.getFirstName()).thenReturn("Ana Clara");
+		when(row.getVersion()).thenReturn(2L);
+		doReturn(new SliceImpl<>(List.of(row))).when(repository).searchPersonsByName(anyString(), any(Pageable.class));
+		
+		Slice<PersonVO> result = repository.findPersonsByName(" an\"a ", PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "firstName")));
+		
+		// aspas do usuario nao fecham a frase; a ordenacao vira nome de coluna na consulta nativa
+		ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+		verify(repository).searchPersonsByName(eq("\"an a\""), pageable.capture());
+		assertEquals(Sort.Direction.DESC, pageable.getValue().getSort().getOrderFor("first_name").getDirection());
+		assertEquals(1, pageable.getValue().getPageNumber());
+		assertEquals("Ana Clara", result.getContent().get(0).getFirstName());
+		assertEquals(Long.valueOf(2L), result.getContent().get(0).getVersion());
+		verify(repository, never()).findPersonsByNameContaining(anyString(), any(Pageable.class));
+	}
+	
+	@Test
+	void testShortTermKeepsSubstringMatch() {
+		Pageable pageable = PageRequest.of(0, 12, Sort.by("firstName"));
+		Slice<PersonVO> slice = new SliceImpl<>(List.of(new PersonVO(3L, "Maria", "Silva", "Recife", "Female", 0L)));
+		doReturn(slice).when(repository).findPersonsByNameContaining("a", pageable);
+		
+		// um caractere fica fora do indice ngram: continua casando no meio do nome, como antes do FULLTEXT
+		assertSame(slice, repository.findPersonsByName(" a ", pageable));
+		verify(repository, never()).searchPersonsByName(anyString(), any(Pageable.class));
+	}
+	
+	@Test
+	void testCountFollowsTheSameBranches() {
+		doReturn(7L).when(repository).countSearchPersonsByName("\"ana\"");
+		doReturn(40L).when(repository).countPersonsByNameContaining("a");
+		
+		assertEquals(7L, repository.countPersonsByName("ana"));
+		assertEquals(40L, repository.countPersonsByName("a"));
+	}
+}
@@ -1,6 +1,9 @@
 package br.com.victor.unittests.mockito.services;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
@@ -14,14 +17,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.exceptions.ConcurrentUpdateException;
 import br.com.victor.exceptions.RequiredObjectIsNullException;
+import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.hateoas.SelfLinkFactory;
 import br.com.victor.model.Person;
 import br.com.victor.repositories.PersonRepository;
 import br.com.victor.services.PersonServices;
 import br.com.victor.unittests.mapper.mocks.MockPerson;
+import br.com.victor.util.KeysetCursor;
 
 @TestInstance(Lifecycle.PER_CLASS)
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +51,12 @@ class PersonServicesTest {
 	
 	@Mock
 	PersonRepository repository;
+	
+	@Spy
+	SelfLinkFactory linkFactory = new SelfLinkFactory();
+	
+	@Spy
+	CacheManager cacheManager = new ConcurrentMapCacheManager();
 
 	@BeforeEach
 	void setUpMocks() throws Exception {
@@ -43,10 +66,9 @@ class PersonServicesTest {
 	
 	@Test
 	void testFindById() {
-		Person entity = input.mockEntity(1);
-		entity.setId(1L);
+		PersonVO projection = input.mockVO(1);
 		
-		when(repository.findById(1L)).thenReturn(Optional.of(entity));
+		when(repository.findVOById(1L)).thenReturn(Optional.of(projection));
 		
 		var result = service.findById(1L);
 		
@@ -59,6 +81,110 @@ class PersonServicesTest {
 		assertEquals("Last Name Test1", result.getLastName());
 		assertEquals("Female", result.getGender());
 	}
+	
+	@Test
+	void testFindByIdUsesCacheUntilEvicted() {
+		PersonVO projection = input.mockVO(2);
+		
+		when(repository.findVOById(2L)).thenReturn(Optional.of(projection));
+		
+		when(repository.deletePersonById(2L)).thenReturn(1);
+		
+		service.findById(2L);
+		var cached = service.findById(2L);
+		verify(repository, times(1)).findVOById(2L);
+		// o VO do cache nao acumula os links dos requests anteriores
+		assertEquals(1, cached.getLinks().toList().size());
+		
+		service.delete(2L);
+		service.findById(2L);
+		verify(repository, times(2)).findVOById(2L);
+	}
+	
+	@Test
+	void testEvictionWaitsForCommit() {
+		PersonVO vo = input.mockVO(3);
+		vo.setId(3L);
+		
+		when(repository.findVOById(3L)).thenReturn(Optional.of(input.mockVO(3)));
+		when(repository.updatePerson(3L, "First Name Test3", "Last Name Test3", "Address Test3", "Female", null)).thenReturn(1);
+		
+		service.findById(3L);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			service.update(vo);
+			// antes do commit o cache ainda serve a versao anterior
+			service.findById(3L);
+			verify(repository, times(1)).findVOById(3L);
+			
+			TransactionSynchronizationUtils.triggerAfterCommit();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		service.findById(3L);
+		verify(repository, times(2)).findVOById(3L);
+	}
+	@Test
+	void testFindAllWithoutCount() {
+		List<PersonVO> content = input.mockVOList().subList(3, 6);
+		PageRequest pageable = PageRequest.of(1, 3);
+		
+		when(repository.findPeopleSlice(pageable)).thenReturn(new SliceImpl<>(content, pageable, true));
+		
+		var result = service.findAll(pageable, false);
+		
+		verify(repository, never()).count();
+		assertNotNull(result);
+		assertNull(result.getMetadata());
+		assertEquals(3, result.getContent().size());
+		assertTrue(result.getLink("prev").isPresent());
+		assertTrue(result.getLink("next").isPresent());
+		
+		var next = UriComponentsBuilder.fromUriString(result.getLink("next").get().getHref()).build().getQueryParams();
+		assertEquals("2", next.getFirst("page"));
+		assertEquals("false", next.getFirst("count"));
+	}
+	
+	@Test
+	void testFindAllWithoutCountKeepsDirection() {
+		List<PersonVO> content = input.mockVOList().subList(0, 3);
+		PageRequest pageable = PageRequest.of(0, 3, Sort.by(Direction.DESC, "firstName"));
+		
+		when(repository.findPeopleSlice(pageable)).thenReturn(new SliceImpl<>(content, pageable, true));
+		
+		var result = service.findAll(pageable, false);
+		
+		var self = UriComponentsBuilder.fromUriString(result.getLink("self").get().getHref()).build().getQueryParams();
+		var next = UriComponentsBuilder.fromUriString(result.getLink("next").get().getHref()).build().getQueryParams();
+		assertEquals("desc", self.getFirst("direction"));
+		assertEquals("desc", next.getFirst("direction"));
+		assertEquals("1", next.getFirst("page"));
+	}
+	
+	@Test
+	void testFindAllByKeyset() {
+		List<PersonVO> window = input.mockVOList().subList(1, 4);
+		String cursor = KeysetCursor.after("First Name Test0", 0L).encode();
+		
+		when(repository.findPeopleAfter("First Name Test0", 0L, PageRequest.of(0, 3)))
+			.thenReturn(new SliceImpl<>(window, PageRequest.of(0, 3), true));
+		
+		var result = service.findAllByKeyset(cursor, 3, Direction.ASC);
+		
+		assertNotNull(result);
+		assertEquals(3, result.getContent().size());
+		assertTrue(result.getLink("prev").isPresent());
+		assertTrue(result.getLink("next").isPresent());
+		
+		String nextHref = result.getLink("next").get().getHref();
+		String nextCursor = UriComponentsBuilder.fromUriString(nextHref).build().getQueryParams().getFirst("cursor");
+		KeysetCursor next = KeysetCursor.decode(nextCursor);
+		
+		assertEquals("First Name Test3", next.getKey());
+		assertEquals(Long.valueOf(3L), next.getId());
+		assertFalse(next.isBackward());
+	}
+	
 /*
 	@Test
 	void testFindAll() {
@@ -109,11 +235,13 @@ class PersonServicesTest {
 	void testCreate() {
 		Person entity = input.mockEntity(1);
 		
-		Person persisted = entity;
-		persisted.setId(1L);
+		Person persisted = input.mockEntity(1);
+		persisted.setVersion(0L);
 		
 		PersonVO vo = input.mockVO(1);
 		vo.setId(1L);
+		// a versao enviada no create e ignorada: o save recebe a entidade sem versao
+		vo.setVersion(9L);
 		
 		when(repository.save(entity)).thenReturn(persisted);
 		
@@ -121,6 +249,7 @@ class PersonServicesTest {
 		
 		assertNotNull(result);
 		assertNotNull(result.getId());
+		assertEquals(Long.valueOf(0L), result.getVersion());
 		assertNotNull(result.getLinks());
 		assertTrue(result.toString().contains("links: [</api/person/v1/1>;rel=\"self\"]"));
 		assertEquals("Address Test1", result.getAddress());
@@ -144,20 +273,14 @@ class PersonServicesTest {
 
 	@Test
 	void testUpdate() {
-		Person entity = input.mockEntity(1);
-		entity.setId(1L);
-		
-		Person persisted = entity;
-		persisted.setId(1L);
-		
 		PersonVO vo = input.mockVO(1);
 		vo.setId(1L);
 		
-		when(repository.findById(1L)).thenReturn(Optional.of(entity));
-		when(repository.save(entity)).thenReturn(persisted);
+		when(repository.updatePerson(1L, "First Name Test1", "Last Name Test1", "Address Test1", "Female", null)).thenReturn(1);
 		
 		var result = service.update(vo);
 		
+		verify(repository, never()).findById(1L);
 		assertNotNull(result);
 		assertNotNull(result.getId());
 		assertNotNull(result.getLinks());
@@ -168,6 +291,29 @@ class PersonServicesTest {
 		assertEquals("Female", result.getGender());
 	}
 	
+	@Test
+	void testUpdateNotFound() {
+		PersonVO vo = input.mockVO(1);
+		vo.setId(1L);
+		
+		assertThrows(ResourceNotFoundException.class, () -> service.update(vo));
+	}
+	
+	@Test
+	void testUpdateWithStaleVersion() {
+		PersonVO vo = input.mockVO(1);
+		vo.setId(1L);
+		vo.setVersion(3L);
+		
+		when(repository.updatePerson(1L, "First Name Test1", "Last Name Test1", "Address Test1", "Female", 3L)).thenReturn(0);
+		when(repository.existsById(1L)).thenReturn(true);
+		
+		assertThrows(ConcurrentUpdateException.class, () -> service.update(vo));
+		
+		when(repository.updatePerson(1L, "First Name Test1", "Last Name Test1", "Address Test1", "Female", 3L)).thenReturn(1);
+		assertEquals(Long.valueOf(4L), service.update(vo).getVersion());
+	}
+	
 	@Test
 	void testUpdateWithNullPerson() {
 		
@@ -183,12 +329,16 @@ class PersonServicesTest {
 
 	@Test
 	void testDelete() {
-		Person entity = input.mockEntity(1);
-		entity.setId(1L);
-		
-		when(repository.findById(1L)).thenReturn(Optional.of(entity));
+		when(repository.deletePersonById(1L)).thenReturn(1);
 		
 		service.delete(1L);
+		
+		verify(repository, never()).findById(1L);
+	}
+	
+	@Test
+	void testDeleteNotFound() {
+		assertThrows(ResourceNotFoundException.class, () -> service.delete(1L));
 	}
 
 }
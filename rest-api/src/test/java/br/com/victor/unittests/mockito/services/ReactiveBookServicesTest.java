@@ -0,0 +1,140 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.victor.data.vo.v1.BookVO;
+import br.com.victor.exceptions.ConcurrentUpdateException;
+import br.com.victor.exceptions.RequiredObjectIsNullException;
+import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.reactive.hateoas.ReactiveSelfLinks;
+import br.com.victor.reactive.repositories.ReactiveBookRepository;
+import br.com.victor.reactive.services.ReactiveBookServices;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ReactiveBookServicesTest {
+	
+	private ReactiveBookServices service;
+	
+	private ReactiveBookRepository repository;
+	
+	private ReactiveSelfLinks links;
+	
+	@BeforeEach
+	void setUp() {
+		repository = mock(ReactiveBookRepository.class);
+		
+		service = new ReactiveBookServices();
+		ReflectionTestUtils.setField(service, "repository", repository);
+		
+		links = ReactiveSelfLinks.forRequest(MockServerHttpRequest.get("http://localhost:8081/api/book/v1?page=1").build(), "/api/book/v1");
+	}
+	
+	@Test
+	void testFindAllWithoutCount() {
+		// limit 2 + a linha extra que indica a proxima pagina
+		when(repository.findBooks(1, 2, false)).thenReturn(Flux.fromStream(LongStream.rangeClosed(1, 3).mapToObj(ReactiveBookServicesTest::book)));
+		
+		PagedModel<EntityModel<BookVO>> result = service.findAll(PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "title")), false, links).block();
+		
+		assertNull(result.getMetadata());
+		assertEquals(2, result.getContent().size());
+		assertEquals("http://localhost:8081/api/book/v1?page=2&limit=2&direction=desc&count=false",
+				result.getRequiredLink(IanaLinkRelations.NEXT).getHref());
+		assertEquals("http://localhost:8081/api/book/v1?page=0&limit=2&direction=desc&count=false",
+				result.getRequiredLink(IanaLinkRelations.PREV).getHref());
+		verify(repository, never()).count();
+	}
+	
+	@Test
+	void testFindAllWithCount() {
+		when(repository.findBooks(0, 2, true)).thenReturn(Flux.just(book(1), book(2)));
+		when(repository.count()).thenReturn(Mono.just(4L));
+		
+		PagedModel<EntityModel<BookVO>> result = service.findAll(PageRequest.of(0, 2, Sort.by("title")), true, links).block();
+		
+		assertEquals(4, result.getMetadata().getTotalElements());
+		assertEquals(2, result.getMetadata().getTotalPages());
+		assertEquals("http://localhost:8081/api/book/v1?page=1&limit=2&direction=asc",
+				result.getRequiredLink(IanaLinkRelations.LAST).getHref());
+		assertEquals("http://localhost:8081/api/book/v1/2",
+				result.getContent().stream().skip(1).findFirst().get().getContent().getRequiredLink(IanaLinkRelations.SELF).getHref());
+	}
+	
+	@Test
+	void testFindByIdNotFound() {
+		when(repository.findById(7L)).thenReturn(Mono.empty());
+		
+		assertThrows(ResourceNotFoundException.class, () -> service.findById(7L, links).block());
+	}
+	
+	@Test
+	void testCreateValidatesBeforeInsert() {
+		BookVO book = book(1);
+		book.setTitle(" ");
+		
+		Exception exception = assertThrows(RequiredObjectIsNullException.class, () -> service.create(book, links).block());
+		
+		assertEquals("title is required (up to 250 characters)", exception.getMessage());
+		verify(repository, never()).insert(any(BookVO.class));
+	}
+	
+	@Test
+	void testUpdateWithStaleVersion() {
+		BookVO book = book(1);
+		book.setVersion(3L);
+		when(repository.update(any(BookVO.class))).thenReturn(Mono.just(0L));
+		when(repository.existsById(1L)).thenReturn(Mono.just(true));
+		
+		assertThrows(ConcurrentUpdateException.class, () -> service.update(book, links).block());
+	}
+	
+	@Test
+	void testUpdateWithoutVersionNotFound() {
+		when(repository.update(any(BookVO.class))).thenReturn(Mono.just(0L));
+		
+		assertThrows(ResourceNotFoundException.class, () -> service.update(book(1), links).block());
+		verify(repository, never()).existsById(1L);
+	}
+	
+	@Test
+	void testUpdateIncrementsVersion() {
+		BookVO book = book(1);
+		book.setVersion(3L);
+		when(repository.update(any(BookVO.class))).thenReturn(Mono.just(1L));
+		
+		BookVO result = service.update(book, links).block();
+		
+		assertEquals(4L, result.getVersion());
+		assertEquals("http://localhost:8081/api/book/v1/1", result.getRequiredLink(IanaLinkRelations.SELF).getHref());
+	}
+	
+	@Test
+	void testDeleteNotFound() {
+		when(repository.deleteById(9L)).thenReturn(Mono.just(0L));
+		
+		assertThrows(ResourceNotFoundException.class, () -> service.delete(9L).block());
+	}
+	
+	private static BookVO book(long id) {
+		return new BookVO(id, "Some Author" + id, new Date(), 25D, "Some Title" + id, null);
+	}
+}
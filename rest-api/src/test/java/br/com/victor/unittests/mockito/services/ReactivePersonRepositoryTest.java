@@ -0,0 +1,142 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.reactive.repositories.ReactivePersonRepository;
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// ids do INSERT reativo: mesmo protocolo pooled-lo do Hibernate na tabela person_seq (V16)
+@SuppressWarnings({ "unchecked", "rawtypes" })
+class ReactivePersonRepositoryTest {
+	
+	private static final String SELECT_NEXT = "SELECT next_val FROM person_seq FOR UPDATE";
+	private static final String UPDATE_NEXT = "UPDATE person_seq SET next_val = :next";
+	
+	private ReactivePersonRepository repository;
+	
+	private DatabaseClient client;
+	
+	private TransactionalOperator transactionalOperator;
+	
+	private GenericExecuteSpec updateSpec;
+	
+	private GenericExecuteSpec insertSpec;
+	
+	@BeforeEach
+	void setUp() {
+		client = mock(DatabaseClient.class);
+		transactionalOperator = mock(TransactionalOperator.class);
+		// sem banco: a transacao so repassa o Mono, o teste confere que a alocacao passa por ela
+		when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		
+		// o driver devolve next_val como Integer ou Long; 41 e o primeiro id livre
+		Row row = mock(Row.class);
+		when(row.get(0)).thenReturn(41);
+		GenericExecuteSpec selectSpec = mock(GenericExecuteSpec.class);
+		when(selectSpec.map(any(Function.class))).thenAnswer(invocation -> {
+			Object next = ((Function<Row, Object>) invocation.getArgument(0)).apply(row);
+			RowsFetchSpec rows = mock(RowsFetchSpec.class);
+			when(rows.one()).thenReturn(Mono.just(next));
+			return rows;
+		});
+		
+		updateSpec = mock(GenericExecuteSpec.class, RETURNS_SELF);
+		insertSpec = mock(GenericExecuteSpec.class, RETURNS_SELF);
+		// cada FetchSpec e montado antes do when(...fetch()), sem stubbing aninhado
+		FetchSpec<Map<String, Object>> updated = rowsUpdated(1L);
+		FetchSpec<Map<String, Object>> inserted = rowsUpdated(1L);
+		when(updateSpec.fetch()).thenReturn(updated);
+		when(insertSpec.fetch()).thenReturn(inserted);
+		
+		when(client.sql(anyString())).thenReturn(insertSpec);
+		when(client.sql(SELECT_NEXT)).thenReturn(selectSpec);
+		when(client.sql(UPDATE_NEXT)).thenReturn(updateSpec);
+		
+		repository = new ReactivePersonRepository();
+		ReflectionTestUtils.setField(repository, "client", client);
+		ReflectionTestUtils.setField(repository, "transactionalOperator", transactionalOperator);
+	}
+	
+	@Test
+	void testInsertUsesFirstFreeIdAndAdvancesTheSequence() {
+		PersonVO person = new PersonVO(null, "Ada", "Lovelace", "London", "Female", null);
+		
+		PersonVO inserted = repository.insert(person).block();
+		
+		assertEquals(Long.valueOf(41L), inserted.getId());
+		assertEquals(Long.valueOf(0L), inserted.getVersion());
+		
+		InOrder order = inOrder(client, updateSpec, insertSpec);
+		order.verify(client).sql(SELECT_NEXT);
+		order.verify(client).sql(UPDATE_NEXT);
+		order.verify(updateSpec).bind("next", 42L);
+		order.verify(insertSpec).bind("id", 41L);
+		verify(transactionalOperator).transactional(any(Mono.class));
+	}
+	
+	@Test
+	void testNoInsertWithoutAnAllocatedId() {
+		GenericExecuteSpec emptySelect = mock(GenericExecuteSpec.class);
+		RowsFetchSpec noRows = mock(RowsFetchSpec.class);
+		when(noRows.one()).thenReturn(Mono.empty());
+		when(emptySelect.map(any(Function.class))).thenReturn(noRows);
+		when(client.sql(SELECT_NEXT)).thenReturn(emptySelect);
+		
+		// person_seq sem linha: nada e inserido
+		assertNull(repository.insert(new PersonVO(null, "Ada", "Lovelace", "London", "Female", null)).block());
+		verify(insertSpec, never()).fetch();
+	}
+	
+	@Test
+	void testNameSearchUsesFulltextOrSubstringMatch() {
+		RowsFetchSpec rows = mock(RowsFetchSpec.class);
+		when(rows.all()).thenReturn(Flux.empty());
+		GenericExecuteSpec searchSpec = mock(GenericExecuteSpec.class, RETURNS_SELF);
+		when(searchSpec.map(any(BiFunction.class))).thenReturn(rows);
+		when(client.sql(anyString())).thenReturn(searchSpec);
+		
+		repository.findPersonsByName("ana", 0, 12, true).collectList().block();
+		repository.findPersonsByName(" a ", 0, 12, true).collectList().block();
+		
+		// mesma regra do PersonRepository: frase no FULLTEXT, ou LIKE '%termo%' abaixo do token ngram
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(client, times(2)).sql(sql.capture());
+		assertTrue(sql.getAllValues().get(0).contains("WHERE MATCH(first_name) AGAINST (:term IN BOOLEAN MODE)"));
+		assertTrue(sql.getAllValues().get(1).contains("WHERE first_name LIKE CONCAT('%', :term, '%')"));
+		verify(searchSpec).bind("term", "\"ana\"");
+		verify(searchSpec).bind("term", "a");
+	}
+	
+	private static FetchSpec<Map<String, Object>> rowsUpdated(long count) {
+		FetchSpec<Map<String, Object>> fetch = mock(FetchSpec.class);
+		when(fetch.rowsUpdated()).thenReturn(Mono.just(count));
+		return fetch;
+	}
+}
@@ -0,0 +1,114 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.victor.data.vo.v1.PersonVO;
+import br.com.victor.exceptions.ConcurrentUpdateException;
+import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.reactive.hateoas.ReactiveSelfLinks;
+import br.com.victor.reactive.repositories.ReactivePersonRepository;
+import br.com.victor.reactive.services.ReactivePersonServices;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ReactivePersonServicesTest {
+	
+	private ReactivePersonServices service;
+	
+	private ReactivePersonRepository repository;
+	
+	private ReactiveSelfLinks links;
+	
+	@BeforeEach
+	void setUp() {
+		repository = mock(ReactivePersonRepository.class);
+		
+		service = new ReactivePersonServices();
+		ReflectionTestUtils.setField(service, "repository", repository);
+		
+		links = ReactiveSelfLinks.forRequest(MockServerHttpRequest.get("http://localhost:8081/api/person/v1?page=1").build(), "/api/person/v1");
+	}
+	
+	@Test
+	void testFindAllWithoutCount() {
+		// limit 2 + a linha extra que indica a proxima pagina
+		when(repository.findPeople(1, 2, true)).thenReturn(Flux.fromStream(LongStream.rangeClosed(1, 3).mapToObj(ReactivePersonServicesTest::person)));
+		
+		PagedModel<EntityModel<PersonVO>> result = service.findAll(PageRequest.of(1, 2, Sort.by("firstName")), false, links).block();
+		
+		assertNull(result.getMetadata());
+		assertEquals(2, result.getContent().size());
+		assertEquals("http://localhost:8081/api/person/v1?page=2&limit=2&direction=asc&count=false",
+				result.getRequiredLink(IanaLinkRelations.NEXT).getHref());
+		assertEquals("http://localhost:8081/api/person/v1?page=0&limit=2&direction=asc&count=false",
+				result.getRequiredLink(IanaLinkRelations.PREV).getHref());
+		verify(repository, never()).count();
+	}
+	
+	@Test
+	void testFindAllWithCount() {
+		when(repository.findPeople(0, 2, false)).thenReturn(Flux.just(person(1), person(2)));
+		when(repository.count()).thenReturn(Mono.just(5L));
+		
+		PagedModel<EntityModel<PersonVO>> result = service.findAll(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "firstName")), true, links).block();
+		
+		assertEquals(5, result.getMetadata().getTotalElements());
+		assertEquals(3, result.getMetadata().getTotalPages());
+		assertEquals("http://localhost:8081/api/person/v1?page=2&limit=2&direction=desc",
+				result.getRequiredLink(IanaLinkRelations.LAST).getHref());
+		assertEquals("/api/person/v1/1,/api/person/v1/2", result.getContent().stream()
+				.map(model -> model.getContent().getRequiredLink(IanaLinkRelations.SELF).toUri().getPath())
+				.collect(Collectors.joining(",")));
+	}
+	
+	@Test
+	void testFindByIdNotFound() {
+		when(repository.findById(7L)).thenReturn(Mono.empty());
+		
+		assertThrows(ResourceNotFoundException.class, () -> service.findById(7L, links).block());
+	}
+	
+	@Test
+	void testUpdateWithStaleVersion() {
+		PersonVO person = person(1);
+		person.setVersion(3L);
+		when(repository.update(any(PersonVO.class))).thenReturn(Mono.just(0L));
+		when(repository.existsById(1L)).thenReturn(Mono.just(true));
+		
+		assertThrows(ConcurrentUpdateException.class, () -> service.update(person, links).block());
+	}
+	
+	@Test
+	void testUpdateIncrementsVersion() {
+		PersonVO person = person(1);
+		person.setVersion(3L);
+		when(repository.update(any(PersonVO.class))).thenReturn(Mono.just(1L));
+		
+		PersonVO result = service.update(person, links).block();
+		
+		assertEquals(4L, result.getVersion());
+		assertEquals("http://localhost:8081/api/person/v1/1", result.getRequiredLink(IanaLinkRelations.SELF).getHref());
+	}
+	
+	private static PersonVO person(long id) {
+		return new PersonVO(id, "First Name Test" + id, "Last Name Test" + id, "Address Test" + id, "Male", null);
+	}
+}
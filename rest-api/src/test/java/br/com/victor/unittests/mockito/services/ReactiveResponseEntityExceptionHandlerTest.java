@@ -0,0 +1,76 @@
+package br.com.victor.unittests.mockito.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.victor.exceptions.ConcurrentUpdateException;
+import br.com.victor.exceptions.RequiredObjectIsNullException;
+import br.com.victor.exceptions.ResourceNotFoundException;
+import br.com.victor.reactive.exceptions.handler.ReactiveResponseEntityExceptionHandler;
+import reactor.core.publisher.Mono;
+
+// o advice aplicado a um controller minimo: cada excecao do service tem que sair com o status da API servlet
+class ReactiveResponseEntityExceptionHandlerTest {
+	
+	private WebTestClient client;
+	
+	@BeforeEach
+	void setUp() {
+		client = WebTestClient.bindToController(new FailingController())
+				.controllerAdvice(new ReactiveResponseEntityExceptionHandler())
+				.build();
+	}
+	
+	@Test
+	void testNotFoundIs404() {
+		client.get().uri("/api/book/v1/7").exchange()
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("No records found this ID")
+				.jsonPath("$.details").isEqualTo("uri=/api/book/v1/7");
+	}
+	
+	@Test
+	void testConcurrentUpdateIs409() {
+		client.get().uri("/api/book/v1/stale").exchange()
+				.expectStatus().isEqualTo(409)
+				.expectBody()
+				.jsonPath("$.details").isEqualTo("uri=/api/book/v1/stale");
+	}
+	
+	@Test
+	void testRequiredObjectIs400() {
+		client.get().uri("/api/book/v1/invalid").exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("title is required (up to 250 characters)");
+	}
+	
+	@Test
+	void testUnexpectedErrorIs500() {
+		client.get().uri("/api/book/v1/broken").exchange()
+				.expectStatus().is5xxServerError();
+	}
+	
+	@RestController
+	static class FailingController {
+		
+		@GetMapping("/api/book/v1/{id}")
+		Mono<String> findById(@PathVariable("id") String id) {
+			switch (id) {
+			case "stale":
+				return Mono.error(new ConcurrentUpdateException());
+			case "invalid":
+				return Mono.error(new RequiredObjectIsNullException("title is required (up to 250 characters)"));
+			case "broken":
+				return Mono.error(new IllegalStateException("connection reset"));
+			default:
+				return Mono.error(new ResourceNotFoundException("No records found this ID"));
+			}
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import br.com.victor.reactive.hateoas.ReactiveSelfLinks;
+
+class ReactiveSelfLinksTest {
+	
+	private final ReactiveSelfLinks links = ReactiveSelfLinks.forRequest(
+			MockServerHttpRequest.get("https://api.example.com:8443/api/person/v1/findPersonByName/ana?page=3&limit=5#top").build(),
+			"/api/person/v1");
+	
+	@Test
+	void testBaseUriKeepsHostAndDropsPathQueryAndFragment() {
+		assertEquals("https://api.example.com:8443/api/person/v1/42", links.forId(42L).getHref());
+		assertEquals(IanaLinkRelations.SELF, links.forId(42L).getRel());
+	}
+	
+	@Test
+	void testPageLinkWithoutCountCarriesTheFlag() {
+		Link link = links.forPage("/findPersonByName/ana", 1, 5, "desc", false, IanaLinkRelations.NEXT);
+		
+		assertEquals("https://api.example.com:8443/api/person/v1/findPersonByName/ana?page=1&limit=5&direction=desc&count=false", link.getHref());
+		assertEquals(IanaLinkRelations.NEXT, link.getRel());
+	}
+	
+	@Test
+	void testPagedModelWithTotal() {
+		PagedModel<EntityModel<String>> model = links.toPagedModel(List.of("a", "b"), "", 1, 2, "asc", 7L, true);
+		
+		assertEquals(7, model.getMetadata().getTotalElements());
+		assertEquals(4, model.getMetadata().getTotalPages());
+		assertEquals(List.of("first", "prev", "self", "next", "last"), rels(model));
+		assertEquals("https://api.example.com:8443/api/person/v1?page=3&limit=2&direction=asc",
+				model.getRequiredLink(IanaLinkRelations.LAST).getHref());
+	}
+	
+	@Test
+	void testLastPageWithTotalHasNoNext() {
+		PagedModel<EntityModel<String>> model = links.toPagedModel(List.of("g"), "", 3, 2, "asc", 7L, false);
+		
+		assertEquals(List.of("first", "prev", "self"), rels(model));
+	}
+	
+	@Test
+	void testPagedModelWithoutTotal() {
+		PagedModel<EntityModel<String>> first = links.toPagedModel(List.of("a", "b"), "", 0, 2, "asc", null, true);
+		PagedModel<EntityModel<String>> last = links.toPagedModel(List.of("c"), "", 1, 2, "asc", null, false);
+		
+		assertNull(first.getMetadata());
+		assertEquals(List.of("self", "next"), rels(first));
+		assertEquals(List.of("self", "prev"), rels(last));
+		assertTrue(last.getRequiredLink(IanaLinkRelations.PREV).getHref().endsWith("?page=0&limit=2&direction=asc&count=false"));
+	}
+	
+	private static List<String> rels(PagedModel<?> model) {
+		return model.getLinks().stream().map(link -> link.getRel().value()).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,138 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.victor.storage.GzipVariants;
+import br.com.victor.storage.S3FileStore;
+import br.com.victor.storage.StoredObject;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+// contrato do FileStore contra um S3Client em memoria (bucket/key -> bytes), sem rede nem MinIO
+class S3FileStoreTest {
+	
+	private static final String HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+	private static final Instant MODIFIED = Instant.parse("2024-01-02T03:04:05Z");
+	
+	@TempDir
+	Path dir;
+	
+	private Map<String, byte[]> objects;
+	
+	private S3FileStore store;
+	
+	@BeforeEach
+	void setUp() {
+		objects = new HashMap<>();
+		S3Client client = mock(S3Client.class);
+		
+		when(client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+			PutObjectRequest request = invocation.getArgument(0);
+			RequestBody body = invocation.getArgument(1);
+			try (InputStream in = body.contentStreamProvider().newStream()) {
+				objects.put(request.bucket() + "/" + request.key(), in.readAllBytes());
+			}
+			return PutObjectResponse.builder().build();
+		});
+		when(client.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> {
+			HeadObjectRequest request = invocation.getArgument(0);
+			byte[] content = objects.get(request.bucket() + "/" + request.key());
+			if (content == null) throw S3Exception.builder().statusCode(404).message("Not Found").build();
+			return HeadObjectResponse.builder().contentLength((long) content.length).lastModified(MODIFIED).build();
+		});
+		when(client.deleteObject(any(DeleteObjectRequest.class))).thenAnswer(invocation -> {
+			DeleteObjectRequest request = invocation.getArgument(0);
+			objects.remove(request.bucket() + "/" + request.key());
+			return DeleteObjectResponse.builder().build();
+		});
+		when(client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+			GetObjectRequest request = invocation.getArgument(0);
+			byte[] content = objects.get(request.bucket() + "/" + request.key());
+			// Range no formato bytes=inicio-fim (fim inclusivo), o unico que o store usa
+			String[] range = request.range().substring("bytes=".length()).split("-");
+			byte[] slice = Arrays.copyOfRange(content, Integer.parseInt(range[0]), Integer.parseInt(range[1]) + 1);
+			return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+					AbortableInputStream.create(new ByteArrayInputStream(slice)));
+		});
+		
+		store = new S3FileStore(client, "uploads", "files/");
+	}
+	
+	@Test
+	void testPutUsesShardedKeyAndConsumesSource() throws Exception {
+		Path source = Files.writeString(dir.resolve(".upload-1.tmp"), "hello");
+		
+		store.put(HASH, source);
+		
+		assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), objects.get("uploads/files/2c/f2/" + HASH));
+		assertFalse(Files.exists(source));
+		assertTrue(store.exists(HASH));
+	}
+	
+	@Test
+	void testMissingKeyDoesNotExist() {
+		assertFalse(store.exists(HASH));
+		assertFalse(store.exists(GzipVariants.keyOf(HASH)));
+	}
+	
+	@Test
+	void testStatHasNoLocalPath() throws Exception {
+		store.put(HASH, Files.writeString(dir.resolve(".upload-1.tmp"), "hello"));
+		
+		StoredObject object = store.stat(HASH);
+		
+		assertEquals(HASH, object.getKey());
+		assertEquals(5, object.getSize());
+		assertEquals(MODIFIED.toEpochMilli(), object.getLastModified());
+		// sem caminho local o download nao tenta sendfile
+		assertNull(object.getLocalPath());
+	}
+	
+	@Test
+	void testOpenReadsOnlyTheRequestedRange() throws Exception {
+		store.put(HASH, Files.writeString(dir.resolve(".upload-1.tmp"), "0123456789"));
+		
+		try (InputStream in = store.open(HASH, 2, 5)) {
+			assertEquals("23456", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+	
+	@Test
+	void testDeleteRemovesOnlyTheKey() throws Exception {
+		store.put(HASH, Files.writeString(dir.resolve(".upload-1.tmp"), "hello"));
+		store.put(GzipVariants.keyOf(HASH), Files.writeString(dir.resolve(".gzip-1.tmp"), "gz"));
+		
+		store.delete(HASH);
+		
+		assertFalse(store.exists(HASH));
+		assertTrue(store.exists(GzipVariants.keyOf(HASH)));
+	}
+}
@@ -0,0 +1,117 @@
+package br.com.victor.unittests.mockito.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import br.com.victor.model.User;
+import br.com.victor.repositories.UserRepository;
+import br.com.victor.security.Pbkdf2IterationsPasswordEncoder;
+import br.com.victor.services.UserServices;
+
+// rehash no login: o DaoAuthenticationProvider chama o updatePassword quando o encoder pede upgrade
+class UserServicesTest {
+	
+	// custos baixos para o teste nao gastar segundos em PBKDF2
+	private static final int OLD_ITERATIONS = 1000;
+	private static final int NEW_ITERATIONS = 2000;
+	
+	private UserRepository repository;
+	
+	private DaoAuthenticationProvider provider;
+	
+	@BeforeEach
+	void setUp() {
+		repository = mock(UserRepository.class);
+		when(repository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		UserServices service = new UserServices(repository);
+		
+		provider = new DaoAuthenticationProvider();
+		provider.setUserDetailsService(service);
+		provider.setUserDetailsPasswordService(service);
+		provider.setPasswordEncoder(encoder("pbkdf2", NEW_ITERATIONS));
+	}
+	
+	@Test
+	void testLoginRehashesPbkdf2WithAnotherIterationCount() {
+		User user = user(encoder("pbkdf2", OLD_ITERATIONS).encode("admin123"));
+		when(repository.findByUserName("leandro")).thenReturn(user);
+		
+		provider.authenticate(new UsernamePasswordAuthenticationToken("leandro", "admin123"));
+		
+		ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+		verify(repository).save(saved.capture());
+		assertTrue(saved.getValue().getPassword().startsWith("{pbkdf2}" + NEW_ITERATIONS + "$"));
+		assertTrue(encoder("pbkdf2", NEW_ITERATIONS).matches("admin123", saved.getValue().getPassword()));
+	}
+	
+	@Test
+	void testLoginKeepsHashWithTheConfiguredCost() {
+		User user = user(encoder("pbkdf2", NEW_ITERATIONS).encode("admin123"));
+		when(repository.findByUserName("leandro")).thenReturn(user);
+		
+		provider.authenticate(new UsernamePasswordAuthenticationToken("leandro", "admin123"));
+		
+		verify(repository, never()).save(any(User.class));
+	}
+	
+	@Test
+	void testLoginRehashesBcryptIntoTheConfiguredFormat() {
+		User user = user(encoder("bcrypt", NEW_ITERATIONS).encode("admin123"));
+		when(repository.findByUserName("leandro")).thenReturn(user);
+		
+		provider.authenticate(new UsernamePasswordAuthenticationToken("leandro", "admin123"));
+		
+		ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+		verify(repository).save(saved.capture());
+		assertTrue(saved.getValue().getPassword().startsWith("{pbkdf2}" + NEW_ITERATIONS + "$"));
+	}
+	
+	@Test
+	void testLegacyHashWithoutIterationsUsesTheOriginalCost() {
+		Pbkdf2IterationsPasswordEncoder encoder = new Pbkdf2IterationsPasswordEncoder(Pbkdf2IterationsPasswordEncoder.LEGACY_ITERATIONS);
+		String legacy = Pbkdf2IterationsPasswordEncoder.withIterations(Pbkdf2IterationsPasswordEncoder.LEGACY_ITERATIONS).encode("admin123");
+		
+		assertTrue(encoder.matches("admin123", legacy));
+		assertFalse(encoder.upgradeEncoding(legacy));
+		assertTrue(new Pbkdf2IterationsPasswordEncoder(NEW_ITERATIONS).upgradeEncoding(legacy));
+		assertFalse(encoder.matches("admin123", "abc$" + legacy));
+	}
+	
+	// mesmo arranjo do SecurityConfig.passwordEncoder
+	private static PasswordEncoder encoder(String encodingId, int pbkdf2Iterations) {
+		DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(encodingId, Map.of(
+				"pbkdf2", new Pbkdf2IterationsPasswordEncoder(pbkdf2Iterations),
+				"bcrypt", new BCryptPasswordEncoder(4)));
+		encoder.setDefaultPasswordEncoderForMatches(
+				Pbkdf2IterationsPasswordEncoder.withIterations(Pbkdf2IterationsPasswordEncoder.LEGACY_ITERATIONS));
+		return encoder;
+	}
+	
+	private static User user(String password) {
+		User user = new User();
+		user.setUserName("leandro");
+		user.setPassword(password);
+		user.setPermissions(List.of());
+		user.setAccountNonExpired(true);
+		user.setAccountNonLocked(true);
+		user.setCredentialsNonExpired(true);
+		user.setEnabled(true);
+		return user;
+	}
+}